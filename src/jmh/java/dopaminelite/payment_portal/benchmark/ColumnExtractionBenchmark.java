@@ -0,0 +1,68 @@
+package dopaminelite.payment_portal.benchmark;
+
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
+import dopaminelite.payment_portal.entity.PaymentSubmission;
+import dopaminelite.payment_portal.service.export.ColumnPlan;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-cell cost of resolving column values for 1M cells (100k rows x 10 columns),
+ * comparing the original by-name string switch with a {@link ColumnPlan} compiled once per export.
+ *
+ * <p>The column list deliberately mixes the casing clients send, and leaves out the columns
+ * whose rendering cost (joining file names) would dominate the lookup being measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColumnExtractionBenchmark {
+    
+    private static final int ROWS = 100_000;
+    
+    private static final List<String> COLUMNS = List.of(
+            "id", "studentId", "portalName", "status", "fileCount",
+            "rejectionReason", "PORTALID", "portal", "Status", "fileCount"
+    );
+    
+    private List<PaymentSubmission> submissions;
+    private List<SubmissionExportRow> rows;
+    
+    @Setup
+    public void setUp() {
+        submissions = SubmissionFixtures.submissions(ROWS);
+        rows = SubmissionFixtures.rows(ROWS);
+    }
+    
+    @Benchmark
+    public void legacySwitchPerCell(Blackhole blackhole) {
+        for (String column : COLUMNS) {
+            blackhole.consume(LegacyColumns.formatColumnName(column));
+        }
+        for (PaymentSubmission submission : submissions) {
+            for (String column : COLUMNS) {
+                blackhole.consume(LegacyColumns.getCellValue(submission, column));
+            }
+        }
+    }
+    
+    @Benchmark
+    public void compiledPlan(Blackhole blackhole) {
+        ColumnPlan plan = ColumnPlan.compile(COLUMNS);
+        for (int i = 0; i < plan.size(); i++) {
+            blackhole.consume(plan.headerLabel(i));
+        }
+        for (SubmissionExportRow row : rows) {
+            for (int i = 0; i < plan.size(); i++) {
+                blackhole.consume(plan.text(row, i));
+            }
+        }
+    }
+    
+}
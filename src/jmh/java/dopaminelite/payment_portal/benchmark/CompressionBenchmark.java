@@ -0,0 +1,108 @@
+package dopaminelite.payment_portal.benchmark;
+
+import dopaminelite.payment_portal.config.DataSheetExportProperties;
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
+import dopaminelite.payment_portal.service.export.ColumnPlan;
+import dopaminelite.payment_portal.service.export.CsvDataSheetWriter;
+import dopaminelite.payment_portal.service.export.PartitionedRenderer;
+import dopaminelite.payment_portal.service.export.PdfDataSheetWriter;
+import dopaminelite.payment_portal.service.export.XlsxDataSheetWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Measures what gzip costs and saves for each export format, on the same 20k rows.
+ *
+ * <p>{@code render} is the writer alone and {@code renderGzip} the writer behind the same
+ * {@link GZIPOutputStream} setup the service uses, so the difference between the two is the CPU
+ * cost of compression. The {@code rawBytes} and {@code gzipBytes} counters are reported per second;
+ * their quotient is the compression ratio, which is also printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class CompressionBenchmark {
+    
+    private static final int ROWS = 20_000;
+    
+    private static final ColumnPlan COLUMNS = ColumnPlan.compile(List.of(
+            "id", "studentId", "portalName", "status", "submittedAt", "fileCount", "files", "rejectionReason"
+    ));
+    
+    @Param({"CSV", "XLSX", "PDF"})
+    public String format;
+    
+    private List<SubmissionExportRow> rows;
+    private CsvDataSheetWriter csvWriter;
+    private XlsxDataSheetWriter xlsxWriter;
+    private PdfDataSheetWriter pdfWriter;
+    
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Sizes {
+        public long rawBytes;
+        public long gzipBytes;
+        
+        @Setup(Level.Iteration)
+        public void reset() {
+            rawBytes = 0;
+            gzipBytes = 0;
+        }
+    }
+    
+    @Setup
+    public void setUp() throws IOException {
+        rows = SubmissionFixtures.rows(ROWS);
+        DataSheetExportProperties properties = new DataSheetExportProperties();
+        properties.getParallel().setEnabled(false);
+        csvWriter = new CsvDataSheetWriter(new PartitionedRenderer(properties));
+        xlsxWriter = new XlsxDataSheetWriter();
+        pdfWriter = new PdfDataSheetWriter();
+        
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        write(raw);
+        PdfExportBenchmark.CountingOutputStream compressed = new PdfExportBenchmark.CountingOutputStream();
+        writeGzip(compressed);
+        System.out.printf("%n%s: %,d bytes raw, %,d bytes gzip, ratio %.2f%n",
+                format, raw.size(), compressed.count, (double) raw.size() / compressed.count);
+    }
+    
+    @Benchmark
+    public void render(Sizes sizes) throws IOException {
+        PdfExportBenchmark.CountingOutputStream out = new PdfExportBenchmark.CountingOutputStream();
+        write(out);
+        sizes.rawBytes += out.count;
+    }
+    
+    @Benchmark
+    public void renderGzip(Sizes sizes) throws IOException {
+        PdfExportBenchmark.CountingOutputStream out = new PdfExportBenchmark.CountingOutputStream();
+        writeGzip(out);
+        sizes.gzipBytes += out.count;
+    }
+    
+    private void writeGzip(OutputStream out) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024);
+        write(gzip);
+        gzip.finish();
+    }
+    
+    private void write(OutputStream out) throws IOException {
+        switch (format) {
+            case "CSV" -> csvWriter.write(rows.stream(), COLUMNS, out);
+            case "XLSX" -> xlsxWriter.write(rows.stream(), COLUMNS, out);
+            case "PDF" -> pdfWriter.write(rows.stream(), COLUMNS, out);
+            default -> throw new IllegalArgumentException(format);
+        }
+    }
+    
+}
@@ -0,0 +1,157 @@
+package dopaminelite.payment_portal.benchmark;
+
+import dopaminelite.payment_portal.config.DataSheetExportProperties;
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
+import dopaminelite.payment_portal.entity.PaymentSubmission;
+import dopaminelite.payment_portal.service.export.ColumnPlan;
+import dopaminelite.payment_portal.service.export.CsvDataSheetWriter;
+import dopaminelite.payment_portal.service.export.PartitionedRenderer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the byte-level {@link CsvDataSheetWriter} with the two CSV renderers it replaced:
+ * the original {@code generateCsv}, which joined each row through a stream into a StringBuilder,
+ * and the first streaming version, which escaped Strings into a {@link BufferedWriter}.
+ *
+ * <p>{@code byteEncoderParallel} runs the same encoder with partitions spread over all cores.
+ * Scores are rows per second. The {@code bytes} counter reports encoded bytes per second.
+ * Run with {@code -prof gc}; because each operation is one row, {@code gc.alloc.rate.norm}
+ * is the allocation per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(CsvExportBenchmark.ROWS)
+public class CsvExportBenchmark {
+    
+    static final int ROWS = 10_000;
+    
+    private static final List<String> COLUMNS = List.of(
+            "id", "studentId", "portalName", "status", "submittedAt", "fileCount", "files", "rejectionReason"
+    );
+    
+    private List<PaymentSubmission> submissions;
+    private List<SubmissionExportRow> rows;
+    private ColumnPlan plan;
+    private CsvDataSheetWriter writer;
+    private CsvDataSheetWriter parallelWriter;
+    
+    /**
+     * Per-thread byte counter, reported by JMH as a rate next to the primary score.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Output {
+        public long bytes;
+        
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+    
+    @Setup
+    public void setUp() {
+        submissions = SubmissionFixtures.submissions(ROWS);
+        rows = SubmissionFixtures.rows(ROWS);
+        plan = ColumnPlan.compile(COLUMNS);
+        
+        DataSheetExportProperties sequential = new DataSheetExportProperties();
+        sequential.getParallel().setEnabled(false);
+        writer = new CsvDataSheetWriter(new PartitionedRenderer(sequential));
+        
+        DataSheetExportProperties parallel = new DataSheetExportProperties();
+        parallel.getParallel().setRowThreshold(0);
+        parallel.getParallel().setPartitionSize(500);
+        parallelWriter = new CsvDataSheetWriter(new PartitionedRenderer(parallel));
+    }
+    
+    @Benchmark
+    public void byteEncoder(Output output) throws IOException {
+        PdfExportBenchmark.CountingOutputStream out = new PdfExportBenchmark.CountingOutputStream();
+        writer.write(rows.stream(), plan, out);
+        output.bytes += out.count;
+    }
+    
+    @Benchmark
+    public void byteEncoderParallel(Output output) throws IOException {
+        PdfExportBenchmark.CountingOutputStream out = new PdfExportBenchmark.CountingOutputStream();
+        parallelWriter.write(rows.stream(), plan, out);
+        output.bytes += out.count;
+    }
+    
+    @Benchmark
+    public void bufferedWriterBaseline(Output output) throws IOException {
+        PdfExportBenchmark.CountingOutputStream out = new PdfExportBenchmark.CountingOutputStream();
+        writeWithBufferedWriter(rows, plan, out);
+        output.bytes += out.count;
+    }
+    
+    @Benchmark
+    public void generateCsvBaseline(Output output, Blackhole blackhole) {
+        byte[] csv = generateCsv(submissions, COLUMNS);
+        output.bytes += csv.length;
+        blackhole.consume(csv);
+    }
+    
+    /**
+     * The original in-memory renderer.
+     */
+    private static byte[] generateCsv(List<PaymentSubmission> submissions, List<String> columns) {
+        StringBuilder csv = new StringBuilder();
+        
+        // Header
+        csv.append(String.join(",", columns)).append("\n");
+        
+        // Data rows
+        for (PaymentSubmission submission : submissions) {
+            csv.append(columns.stream()
+                    .map(col -> LegacyColumns.getCellValue(submission, col))
+                    .map(LegacyColumns::escapeCsv)
+                    .collect(Collectors.joining(",")))
+                    .append("\n");
+        }
+        
+        return csv.toString().getBytes();
+    }
+    
+    /**
+     * The first streaming renderer: rows rendered to Strings, escaped and written through a Writer.
+     */
+    private static void writeWithBufferedWriter(List<SubmissionExportRow> rows, ColumnPlan columns,
+                                                OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(columns.name(i));
+        }
+        writer.write('\n');
+        for (SubmissionExportRow row : rows) {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(LegacyColumns.escapeCsv(columns.text(row, i)));
+            }
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+    
+}
@@ -0,0 +1,134 @@
+package dopaminelite.payment_portal.benchmark;
+
+import dopaminelite.payment_portal.config.DataSheetExportProperties;
+import dopaminelite.payment_portal.dto.export.DataSheetExportRequest;
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
+import dopaminelite.payment_portal.entity.enums.DataSheetType;
+import dopaminelite.payment_portal.entity.enums.ExportCompression;
+import dopaminelite.payment_portal.entity.enums.ExportFormat;
+import dopaminelite.payment_portal.entity.enums.SubmissionStatus;
+import dopaminelite.payment_portal.service.DataSheetService;
+import dopaminelite.payment_portal.service.export.ColumnPlan;
+import dopaminelite.payment_portal.service.export.CsvDataSheetWriter;
+import dopaminelite.payment_portal.service.export.ExportColumn;
+import dopaminelite.payment_portal.service.export.ExportFileStore;
+import dopaminelite.payment_portal.service.export.ExportMetrics;
+import dopaminelite.payment_portal.service.export.ExportProgress;
+import dopaminelite.payment_portal.service.export.ExportRowReader;
+import dopaminelite.payment_portal.service.export.ExportStats;
+import dopaminelite.payment_portal.service.export.NdjsonDataSheetWriter;
+import dopaminelite.payment_portal.service.export.PartitionedRenderer;
+import dopaminelite.payment_portal.service.export.PdfDataSheetWriter;
+import dopaminelite.payment_portal.service.export.PrerenderedDataSheetStore;
+import dopaminelite.payment_portal.service.export.SpooledRows;
+import dopaminelite.payment_portal.service.export.XlsxDataSheetWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Renders complete data sheets through {@link DataSheetService#renderDataSheet}, as a streamed
+ * export does after admission: rows are spooled ahead of rendering (spilling past the configured
+ * memory limit), encoded by the format's writer and recorded in the export metrics.
+ *
+ * <p>The database is replaced by an {@link ExportRowReader} that serves synthetic rows, so the
+ * scores cover everything from the fetched rows to the last byte, but not the query itself.
+ * Scores are milliseconds per export; run with {@code -prof gc} for allocation per export.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class DataSheetServiceBenchmark {
+    
+    @Param({"CSV", "PDF"})
+    public ExportFormat format;
+    
+    @Param({"1000", "10000", "50000"})
+    public int rows;
+    
+    private Path spoolDirectory;
+    private DataSheetService service;
+    private DataSheetExportRequest request;
+    private ColumnPlan columns;
+    
+    @Setup
+    public void setUp() throws IOException {
+        spoolDirectory = Files.createTempDirectory("export-benchmark");
+        DataSheetExportProperties properties = new DataSheetExportProperties();
+        properties.setSpoolDirectory(spoolDirectory);
+        properties.getPrerender().setEnabled(false);
+        properties.getMetrics().setSlowThreshold(Duration.ofDays(1));
+        
+        ExportFileStore fileStore = new ExportFileStore(properties);
+        PartitionedRenderer renderer = new PartitionedRenderer(properties);
+        service = new DataSheetService(
+                null,
+                new CsvDataSheetWriter(renderer),
+                new XlsxDataSheetWriter(),
+                new PdfDataSheetWriter(),
+                new NdjsonDataSheetWriter(renderer),
+                new PrerenderedDataSheetStore(properties, fileStore),
+                new FixtureRowReader(fileStore, properties, SubmissionFixtures.rows(rows)),
+                properties,
+                new ExportMetrics(new SimpleMeterRegistry(), properties)
+        );
+        request = new DataSheetExportRequest(DataSheetType.ALL, format, 11, 2025, null, null, ExportCompression.NONE);
+        columns = ColumnPlan.compile(null);
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(spoolDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    @Benchmark
+    public void renderDataSheet(Blackhole blackhole) throws IOException {
+        PdfExportBenchmark.CountingOutputStream out = new PdfExportBenchmark.CountingOutputStream();
+        service.renderDataSheet(request, columns, out, ExportProgress.NONE);
+        blackhole.consume(out.count);
+    }
+    
+    /**
+     * Serves the same fixture rows for every export instead of querying the database.
+     */
+    private static final class FixtureRowReader extends ExportRowReader {
+        
+        private final ExportFileStore fileStore;
+        private final DataSheetExportProperties properties;
+        private final List<SubmissionExportRow> fixtures;
+        
+        FixtureRowReader(ExportFileStore fileStore, DataSheetExportProperties properties,
+                         List<SubmissionExportRow> fixtures) {
+            super(null, fileStore, properties);
+            this.fileStore = fileStore;
+            this.properties = properties;
+            this.fixtures = fixtures;
+        }
+        
+        @Override
+        public SpooledRows read(List<UUID> submissionIds, SubmissionStatus status, Integer month, Integer year,
+                                Set<ExportColumn> columns, boolean groupByPortal, ExportProgress progress,
+                                ExportStats stats) throws IOException {
+            stats.queried();
+            Path spillFile = fileStore.resolve("rows-" + UUID.randomUUID());
+            return SpooledRows.drain(fixtures.iterator(), properties.getFetch().getMaxMemoryRows(), spillFile, progress);
+        }
+    }
+    
+}
@@ -0,0 +1,131 @@
+package dopaminelite.payment_portal.benchmark;
+
+import dopaminelite.payment_portal.repository.IdBatchLoader;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares loading submissions by ID with one {@code IN} list against {@link IdBatchLoader} batches,
+ * on an in-memory H2 table of 50k rows.
+ *
+ * <p>Both variants return the rows in the caller's order and keep prepared statements per SQL
+ * string, like a driver statement cache. {@code singleInList} needs a statement for every distinct
+ * list length and binds every ID at once, which PostgreSQL rejects beyond 32767 parameters;
+ * {@code batched} uses at most six statement shapes whatever the list length.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class IdBatchLoaderBenchmark {
+    
+    private static final int TABLE_ROWS = 50_000;
+    
+    @Param({"10", "1000", "50000"})
+    public int ids;
+    
+    private Connection connection;
+    private List<UUID> requested;
+    private final Map<Integer, PreparedStatement> statements = new HashMap<>();
+    
+    public record Row(UUID id, UUID studentId) {
+    }
+    
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:id-batches;DB_CLOSE_DELAY=-1");
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("DROP TABLE IF EXISTS submission");
+            ddl.execute("CREATE TABLE submission (id UUID PRIMARY KEY, student_id UUID NOT NULL)");
+        }
+        
+        List<UUID> all = new ArrayList<>(TABLE_ROWS);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO submission VALUES (?, ?)")) {
+            for (int i = 0; i < TABLE_ROWS; i++) {
+                UUID id = UUID.randomUUID();
+                all.add(id);
+                insert.setObject(1, id);
+                insert.setObject(2, UUID.randomUUID());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        
+        Collections.shuffle(all, new Random(42));
+        requested = List.copyOf(all.subList(0, ids));
+    }
+    
+    @TearDown
+    public void tearDown() throws SQLException {
+        for (PreparedStatement statement : statements.values()) {
+            statement.close();
+        }
+        connection.close();
+    }
+    
+    @Benchmark
+    public List<Row> singleInList() throws SQLException {
+        Map<UUID, Row> byId = new HashMap<>(requested.size() * 2);
+        for (Row row : query(requested)) {
+            byId.put(row.id(), row);
+        }
+        List<Row> rows = new ArrayList<>(requested.size());
+        for (UUID id : requested) {
+            Row row = byId.get(id);
+            if (row != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+    
+    @Benchmark
+    public List<Row> batched() {
+        return IdBatchLoader.loadInOrder(requested, this::queryUnchecked, Row::id);
+    }
+    
+    private List<Row> queryUnchecked(List<UUID> batch) {
+        try {
+            return query(batch);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private List<Row> query(List<UUID> batch) throws SQLException {
+        PreparedStatement statement = statements.get(batch.size());
+        if (statement == null) {
+            String placeholders = String.join(",", Collections.nCopies(batch.size(), "?"));
+            statement = connection.prepareStatement(
+                    "SELECT id, student_id FROM submission WHERE id IN (" + placeholders + ")");
+            statements.put(batch.size(), statement);
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            statement.setObject(i + 1, batch.get(i));
+        }
+        List<Row> rows = new ArrayList<>(batch.size());
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                rows.add(new Row(resultSet.getObject(1, UUID.class), resultSet.getObject(2, UUID.class)));
+            }
+        }
+        return rows;
+    }
+    
+}
@@ -0,0 +1,68 @@
+package dopaminelite.payment_portal.benchmark;
+
+import dopaminelite.payment_portal.entity.PaymentSubmission;
+import dopaminelite.payment_portal.entity.UploadedFile;
+
+import java.time.format.DateTimeFormatter;
+import java.util.stream.Collectors;
+
+/**
+ * Copy of the original by-name column lookup, kept as a baseline for benchmarks.
+ * Every call lowercases the column name and dispatches through a string switch.
+ */
+final class LegacyColumns {
+    
+    private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
+    private LegacyColumns() {
+    }
+    
+    static String formatColumnName(String column) {
+        return switch (column.toLowerCase()) {
+            case "id" -> "ID";
+            case "studentid" -> "Student ID";
+            case "portalname", "portal" -> "Portal Name";
+            case "status" -> "Status";
+            case "submittedat" -> "Submitted At";
+            case "filecount" -> "File Count";
+            case "files" -> "Files";
+            case "rejectionreason" -> "Rejection Reason";
+            case "lastupdatedat" -> "Last Updated";
+            case "portalid" -> "Portal ID";
+            default -> column;
+        };
+    }
+    
+    static String getCellValue(PaymentSubmission submission, String column) {
+        return switch (column.toLowerCase()) {
+            case "id" -> submission.getId().toString();
+            case "studentid" -> submission.getStudentId().toString();
+            case "portalname" -> submission.getPortalNameAtSubmission();
+            case "portal" -> submission.getPortalNameAtSubmission();
+            case "status" -> submission.getStatus().name();
+            case "submittedat" -> submission.getSubmittedAt().format(DATETIME_FORMATTER);
+            case "filecount" -> String.valueOf(submission.getUploadedFiles().size());
+            case "files" -> submission.getUploadedFiles().stream()
+                    .map(UploadedFile::getFileName)
+                    .collect(Collectors.joining("; "));
+            case "rejectionreason" -> submission.getRejectionReason() != null ? submission.getRejectionReason() : "";
+            case "lastupdatedat" -> submission.getLastUpdatedAt().format(DATETIME_FORMATTER);
+            case "portalid" -> submission.getPortal().getId().toString();
+            default -> "";
+        };
+    }
+    
+    static String escapeCsv(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        
+        // Escape quotes and wrap in quotes if contains comma, quote, or newline
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        
+        return value;
+    }
+    
+}
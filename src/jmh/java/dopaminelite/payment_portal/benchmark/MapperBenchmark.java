@@ -0,0 +1,57 @@
+package dopaminelite.payment_portal.benchmark;
+
+import dopaminelite.payment_portal.entity.PaymentPortal;
+import dopaminelite.payment_portal.entity.PaymentSubmission;
+import dopaminelite.payment_portal.mapper.PaymentPortalMapper;
+import dopaminelite.payment_portal.mapper.PaymentSubmissionMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps one page of entities to response DTOs, as the list endpoints do for every request.
+ * The page size is the endpoints' default; scores are microseconds per page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+    
+    private static final int PAGE_SIZE = 20;
+    
+    private final PaymentSubmissionMapper submissionMapper = new PaymentSubmissionMapper();
+    private final PaymentPortalMapper portalMapper = new PaymentPortalMapper();
+    
+    private List<PaymentSubmission> submissions;
+    private List<PaymentPortal> portals;
+    
+    @Setup
+    public void setUp() {
+        submissions = SubmissionFixtures.submissions(PAGE_SIZE);
+        portals = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            portals.add(SubmissionFixtures.portal(1 + i % 12, 2024 + i / 12));
+        }
+    }
+    
+    @Benchmark
+    public void submissionPage(Blackhole blackhole) {
+        for (PaymentSubmission submission : submissions) {
+            blackhole.consume(submissionMapper.toResponse(submission));
+        }
+    }
+    
+    @Benchmark
+    public void portalPage(Blackhole blackhole) {
+        for (PaymentPortal portal : portals) {
+            blackhole.consume(portalMapper.toResponse(portal));
+        }
+    }
+    
+}
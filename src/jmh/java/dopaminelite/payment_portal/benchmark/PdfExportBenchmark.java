@@ -0,0 +1,132 @@
+package dopaminelite.payment_portal.benchmark;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfWriter;
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
+import dopaminelite.payment_portal.entity.PaymentSubmission;
+import dopaminelite.payment_portal.service.export.ColumnPlan;
+import dopaminelite.payment_portal.service.export.PdfDataSheetWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the chunked {@link PdfDataSheetWriter} with the original single-table renderer
+ * that buffered the whole document in a {@link ByteArrayOutputStream}.
+ *
+ * <p>Each fork runs with a deliberately small heap so the retained-memory difference shows up
+ * as GC pressure (or an OutOfMemoryError for the baseline at the largest row count). Run with
+ * {@code -prof gc} to see allocation per operation next to the timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms256m", "-Xmx256m"})
+public class PdfExportBenchmark {
+    
+    private static final List<String> COLUMNS = List.of(
+            "id", "studentId", "portalName", "status", "submittedAt", "fileCount", "rejectionReason"
+    );
+    
+    @Param({"1000", "10000", "50000"})
+    public int rows;
+    
+    private List<PaymentSubmission> submissions;
+    private List<SubmissionExportRow> exportRows;
+    private PdfDataSheetWriter writer;
+    
+    @Setup
+    public void setUp() {
+        submissions = SubmissionFixtures.submissions(rows);
+        exportRows = SubmissionFixtures.rows(rows);
+        writer = new PdfDataSheetWriter();
+    }
+    
+    @Benchmark
+    public void chunkedWriter(Blackhole blackhole) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        writer.write(exportRows.stream(), ColumnPlan.compile(COLUMNS), out);
+        blackhole.consume(out.count);
+    }
+    
+    @Benchmark
+    public void bufferedSingleTableBaseline(Blackhole blackhole) {
+        blackhole.consume(renderBufferedSingleTable(submissions, COLUMNS).length);
+    }
+    
+    /**
+     * The renderer as it was before chunked flushing: every cell of every row is added to one
+     * table, fonts and cell styles are allocated per export and per cell, and the result is
+     * copied out of an in-memory buffer.
+     */
+    private static byte[] renderBufferedSingleTable(List<PaymentSubmission> submissions, List<String> columns) {
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            Document document = new Document(PageSize.A4.rotate());
+            PdfWriter.getInstance(document, baos);
+            document.open();
+            
+            Font titleFont = new Font(Font.HELVETICA, 18, Font.BOLD);
+            Paragraph title = new Paragraph("Payment Submissions Report", titleFont);
+            title.setAlignment(Element.ALIGN_CENTER);
+            document.add(title);
+            
+            PdfPTable table = new PdfPTable(columns.size());
+            table.setWidthPercentage(100);
+            
+            Font headerFont = new Font(Font.HELVETICA, 10, Font.BOLD, java.awt.Color.WHITE);
+            for (String column : columns) {
+                PdfPCell headerCell = new PdfPCell(new Phrase(LegacyColumns.formatColumnName(column), headerFont));
+                headerCell.setBackgroundColor(new java.awt.Color(52, 73, 94));
+                headerCell.setPadding(8);
+                table.addCell(headerCell);
+            }
+            
+            Font cellFont = new Font(Font.HELVETICA, 9, Font.NORMAL);
+            for (PaymentSubmission submission : submissions) {
+                for (String column : columns) {
+                    PdfPCell cell = new PdfPCell(new Phrase(LegacyColumns.getCellValue(submission, column), cellFont));
+                    cell.setPadding(5);
+                    table.addCell(cell);
+                }
+            }
+            
+            document.add(table);
+            document.close();
+            return baos.toByteArray();
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to generate PDF", e);
+        }
+    }
+    
+    /**
+     * Discards output while counting bytes, so the writer is measured without buffering cost.
+     */
+    static final class CountingOutputStream extends OutputStream {
+        long count;
+        
+        @Override
+        public void write(int b) {
+            count++;
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+    
+}
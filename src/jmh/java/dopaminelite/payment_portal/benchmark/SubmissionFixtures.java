@@ -0,0 +1,116 @@
+package dopaminelite.payment_portal.benchmark;
+
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
+import dopaminelite.payment_portal.entity.PaymentPortal;
+import dopaminelite.payment_portal.entity.PaymentSubmission;
+import dopaminelite.payment_portal.entity.UploadedFile;
+import dopaminelite.payment_portal.entity.enums.PortalVisibility;
+import dopaminelite.payment_portal.entity.enums.SubmissionStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Synthetic, deterministic entity fixtures for benchmarks.
+ * Uses a fixed seed so every run renders exactly the same data.
+ */
+public final class SubmissionFixtures {
+    
+    private static final SubmissionStatus[] STATUSES = SubmissionStatus.values();
+    private static final String[] REJECTION_REASONS = {
+            "Receipt is blurry, please re-upload",
+            "Amount does not match the \"monthly fee\"",
+            "Wrong portal\nPlease submit to the correct month"
+    };
+    
+    private SubmissionFixtures() {
+    }
+    
+    /**
+     * Creates a published portal for the given month and year.
+     */
+    public static PaymentPortal portal(int month, int year) {
+        PaymentPortal portal = new PaymentPortal();
+        portal.setId(UUID.nameUUIDFromBytes(("portal-" + year + "-" + month).getBytes()));
+        portal.setName("portal-" + year + "-" + month);
+        portal.setDisplayName("Payments " + year + "/" + month);
+        portal.setMonth(month);
+        portal.setYear(year);
+        portal.setIsPublished(true);
+        portal.setVisibility(PortalVisibility.PUBLISHED);
+        portal.setCreatedByAdminId(UUID.nameUUIDFromBytes("admin".getBytes()));
+        portal.setCreatedAt(LocalDateTime.of(year, month, 1, 8, 0));
+        portal.setUpdatedAt(LocalDateTime.of(year, month, 1, 8, 0));
+        return portal;
+    }
+    
+    /**
+     * Creates {@code count} submissions spread over one portal, with one to three files each
+     * and a rejection reason on every rejected submission.
+     */
+    public static List<PaymentSubmission> submissions(int count) {
+        Random random = new Random(42);
+        PaymentPortal portal = portal(11, 2025);
+        LocalDateTime base = LocalDateTime.of(2025, 11, 1, 0, 0);
+        List<PaymentSubmission> submissions = new ArrayList<>(count);
+        
+        for (int i = 0; i < count; i++) {
+            PaymentSubmission submission = new PaymentSubmission();
+            submission.setId(new UUID(random.nextLong(), random.nextLong()));
+            submission.setStudentId(new UUID(random.nextLong(), random.nextLong()));
+            submission.setPortal(portal);
+            submission.setPortalNameAtSubmission(portal.getName());
+            submission.setStatus(STATUSES[i % STATUSES.length]);
+            if (submission.getStatus() == SubmissionStatus.REJECTED) {
+                submission.setRejectionReason(REJECTION_REASONS[i % REJECTION_REASONS.length]);
+            }
+            submission.setSubmittedAt(base.plusSeconds(i * 37L));
+            submission.setLastUpdatedAt(base.plusSeconds(i * 37L + 3600));
+            
+            int fileCount = 1 + random.nextInt(3);
+            for (int f = 0; f < fileCount; f++) {
+                UploadedFile file = new UploadedFile();
+                file.setId(new UUID(random.nextLong(), random.nextLong()));
+                file.setFileId(new UUID(random.nextLong(), random.nextLong()));
+                file.setFileName("receipt-" + i + "-" + f + ".pdf");
+                file.setFileType("application/pdf");
+                file.setSubmission(submission);
+                submission.getUploadedFiles().add(file);
+            }
+            submissions.add(submission);
+        }
+        
+        return submissions;
+    }
+    
+    /**
+     * Creates the export rows for {@link #submissions(int)}, with every column populated as the
+     * export query would return them.
+     */
+    public static List<SubmissionExportRow> rows(int count) {
+        return submissions(count).stream().map(SubmissionFixtures::toRow).toList();
+    }
+    
+    private static SubmissionExportRow toRow(PaymentSubmission submission) {
+        SubmissionExportRow row = new SubmissionExportRow();
+        row.setId(submission.getId());
+        row.setStudentId(submission.getStudentId());
+        row.setPortalId(submission.getPortal().getId());
+        row.setPortalName(submission.getPortalNameAtSubmission());
+        row.setStatus(submission.getStatus());
+        row.setRejectionReason(submission.getRejectionReason());
+        row.setSubmittedAt(submission.getSubmittedAt());
+        row.setLastUpdatedAt(submission.getLastUpdatedAt());
+        row.setFileCount((long) submission.getUploadedFiles().size());
+        row.setFileNames(submission.getUploadedFiles().stream()
+                .map(UploadedFile::getFileName)
+                .sorted()
+                .collect(Collectors.joining("; ")));
+        return row;
+    }
+    
+}
@@ -0,0 +1,56 @@
+package dopaminelite.payment_portal.controller;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code PaymentPortalController.extractUserIdFromJwt}, which runs on every request that
+ * carries an Authorization header. The method is package-private, so this benchmark lives in the
+ * controller package rather than with the others.
+ *
+ * <p>{@code token} selects the header: a subject that is a UUID, a subject that has to be hashed
+ * into one, and a header that is not a bearer token at all.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtExtractionBenchmark {
+    
+    @Param({"UUID_SUBJECT", "NAMED_SUBJECT", "NOT_BEARER"})
+    public String token;
+    
+    private PaymentPortalController controller;
+    private String header;
+    
+    @Setup
+    public void setUp() {
+        controller = new PaymentPortalController(null);
+        header = switch (token) {
+            case "UUID_SUBJECT" -> bearer("{\"sub\":\"" + UUID.nameUUIDFromBytes("student".getBytes()) + "\",\"exp\":1893456000}");
+            case "NAMED_SUBJECT" -> bearer("{\"sub\":\"student@example.com\",\"exp\":1893456000}");
+            case "NOT_BEARER" -> "Basic c3R1ZGVudDpzZWNyZXQ=";
+            default -> throw new IllegalArgumentException("Unknown token: " + token);
+        };
+    }
+    
+    @Benchmark
+    public Optional<UUID> extractUserId() {
+        return controller.extractUserIdFromJwt(header);
+    }
+    
+    private static String bearer(String payload) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return "Bearer " + encoder.encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8))
+                + "." + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8))
+                + ".c2lnbmF0dXJl";
+    }
+    
+}
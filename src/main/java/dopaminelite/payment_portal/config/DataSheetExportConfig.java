@@ -0,0 +1,15 @@
+package dopaminelite.payment_portal.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration class for data sheet exports.
+ * Binds the export properties and enables scheduling for background export housekeeping.
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(DataSheetExportProperties.class)
+public class DataSheetExportConfig {
+}
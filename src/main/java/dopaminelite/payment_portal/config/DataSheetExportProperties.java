@@ -0,0 +1,266 @@
+package dopaminelite.payment_portal.config;
+
+import dopaminelite.payment_portal.entity.enums.ExportFormat;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Configuration properties for data sheet exports, bound from the {@code data-sheet.export} prefix.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "data-sheet.export")
+public class DataSheetExportProperties {
+    
+    /**
+     * Local directory where rendered export files are spooled.
+     */
+    private Path spoolDirectory = Path.of(System.getProperty("java.io.tmpdir"), "payment-portal", "exports");
+    
+    /**
+     * Settings for asynchronous export jobs.
+     */
+    private final Jobs jobs = new Jobs();
+    
+    /**
+     * Settings for reading export rows ahead of rendering.
+     */
+    private final Fetch fetch = new Fetch();
+    
+    /**
+     * Settings for parallel rendering of large exports.
+     */
+    private final Parallel parallel = new Parallel();
+    
+    /**
+     * Settings for the cache of rendered exports.
+     */
+    private final Cache cache = new Cache();
+    
+    /**
+     * Settings for admission control of streamed exports.
+     */
+    private final Admission admission = new Admission();
+    
+    /**
+     * Settings for pre-rendered monthly data sheets.
+     */
+    private final Prerender prerender = new Prerender();
+    
+    /**
+     * Settings for exports split into a multi-part ZIP archive.
+     */
+    private final Split split = new Split();
+    
+    /**
+     * Settings for export metrics and logging.
+     */
+    private final Metrics metrics = new Metrics();
+    
+    @Getter
+    @Setter
+    public static class Jobs {
+        
+        /**
+         * Number of exports rendered concurrently.
+         */
+        private int workerThreads = 2;
+        
+        /**
+         * Maximum number of jobs waiting for a worker before new submissions are rejected.
+         */
+        private int queueCapacity = 20;
+        
+        /**
+         * How long a finished job and its file are kept before cleanup.
+         */
+        private Duration resultTtl = Duration.ofHours(1);
+        
+        /**
+         * How often expired jobs are purged.
+         */
+        private Duration cleanupInterval = Duration.ofMinutes(5);
+    
+    }
+    
+    @Getter
+    @Setter
+    public static class Fetch {
+        
+        /**
+         * Number of rows of one export kept in memory between fetching and rendering; further rows
+         * are spilled to a file in the spool directory.
+         */
+        private int maxMemoryRows = 10_000;
+    
+    }
+    
+    @Getter
+    @Setter
+    public static class Parallel {
+        
+        /**
+         * Whether large exports may be encoded on multiple threads.
+         */
+        private boolean enabled = true;
+        
+        /**
+         * Number of rows after which encoding moves from the request thread to the render pool.
+         * Exports smaller than this are always encoded sequentially.
+         */
+        private long rowThreshold = 50_000;
+        
+        /**
+         * Number of consecutive rows encoded together as one partition.
+         */
+        private int partitionSize = 5_000;
+        
+        /**
+         * Number of threads in the render pool, shared by all exports.
+         */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+    
+    }
+    
+    @Getter
+    @Setter
+    public static class Cache {
+        
+        /**
+         * Whether rendered exports are cached and reused.
+         */
+        private boolean enabled = true;
+        
+        /**
+         * How long a cached export is served before it is rendered again.
+         */
+        private Duration ttl = Duration.ofMinutes(30);
+        
+        /**
+         * Total size of cached exports kept in memory; least recently used entries spill to disk beyond this.
+         */
+        private long maxMemoryBytes = 64L * 1024 * 1024;
+        
+        /**
+         * Exports larger than this are never held in memory and are cached on disk only.
+         */
+        private long maxEntryMemoryBytes = 8L * 1024 * 1024;
+        
+        /**
+         * Total size of cached exports kept on disk; least recently used entries are dropped beyond this.
+         */
+        private long maxDiskBytes = 1024L * 1024 * 1024;
+        
+        /**
+         * How often expired entries are purged.
+         */
+        private Duration cleanupInterval = Duration.ofMinutes(5);
+    
+    }
+    
+    @Getter
+    @Setter
+    public static class Admission {
+        
+        /**
+         * Whether streamed exports wait for capacity before rendering.
+         */
+        private boolean enabled = true;
+        
+        /**
+         * Number of export slots per format. An export uses one slot per {@code rowsPerSlot} rows,
+         * so a single very large export can occupy every slot of its format. The defaults keep
+         * most of the connection pool free for interactive requests.
+         */
+        private Map<ExportFormat, Integer> concurrency = new EnumMap<>(Map.of(
+                ExportFormat.CSV, 3,
+                ExportFormat.NDJSON, 2,
+                ExportFormat.XLSX, 2,
+                ExportFormat.PDF, 1
+        ));
+        
+        /**
+         * Number of rows that count as one slot when estimating the cost of an export.
+         */
+        private long rowsPerSlot = 50_000;
+        
+        /**
+         * Maximum number of exports of one format waiting for slots; further exports are rejected immediately.
+         */
+        private int queueCapacity = 10;
+        
+        /**
+         * How long an export may wait for slots before it is rejected.
+         */
+        private Duration maxWait = Duration.ofSeconds(10);
+    
+    }
+    
+    @Getter
+    @Setter
+    public static class Prerender {
+        
+        /**
+         * Whether standard data sheets of closed months are pre-rendered and served from files.
+         */
+        private boolean enabled = true;
+        
+        /**
+         * When the nightly run renders every closed month again.
+         */
+        private String cron = "0 30 2 * * *";
+        
+        /**
+         * How many closed months before the current one are kept pre-rendered.
+         */
+        private int monthsBack = 12;
+        
+        /**
+         * How often data sheets invalidated by late submission changes are rendered again.
+         */
+        private Duration refreshInterval = Duration.ofMinutes(5);
+        
+        /**
+         * Formats that are pre-rendered.
+         */
+        private Set<ExportFormat> formats = EnumSet.of(ExportFormat.CSV, ExportFormat.PDF);
+    
+    }
+    
+    @Getter
+    @Setter
+    public static class Split {
+        
+        /**
+         * Default number of rows per part when an export is split by rows, per format. Spreadsheet
+         * formats stay well below what desktop tools open comfortably, and PDF parts stay printable.
+         */
+        private Map<ExportFormat, Integer> partRows = new EnumMap<>(Map.of(
+                ExportFormat.CSV, 250_000,
+                ExportFormat.NDJSON, 500_000,
+                ExportFormat.XLSX, 250_000,
+                ExportFormat.PDF, 10_000
+        ));
+    
+    }
+    
+    @Getter
+    @Setter
+    public static class Metrics {
+        
+        /**
+         * Exports taking at least this long are logged with their filters.
+         */
+        private Duration slowThreshold = Duration.ofSeconds(10);
+    
+    }
+    
+}
@@ -0,0 +1,13 @@
+package dopaminelite.payment_portal.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the paginated list endpoints.
+ * Binds the listing properties.
+ */
+@Configuration
+@EnableConfigurationProperties(ListingProperties.class)
+public class ListingConfig {
+}
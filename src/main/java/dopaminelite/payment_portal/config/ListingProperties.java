@@ -0,0 +1,38 @@
+package dopaminelite.payment_portal.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the paginated list endpoints, bound from the {@code listing} prefix.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "listing")
+public class ListingProperties {
+    
+    /**
+     * Settings for totals computed in {@code CACHED} count mode.
+     */
+    private final CachedCount cachedCount = new CachedCount();
+    
+    @Getter
+    @Setter
+    public static class CachedCount {
+        
+        /**
+         * How long a counted total is reused for the same list and filters.
+         */
+        private Duration ttl = Duration.ofMinutes(1);
+        
+        /**
+         * Maximum number of cached totals; expired ones are dropped first when it is reached.
+         */
+        private int maxEntries = 1_000;
+    
+    }
+    
+}
@@ -1,64 +1,434 @@
 package dopaminelite.payment_portal.controller;
 
+import dopaminelite.payment_portal.dto.export.DataSheetExportRequest;
+import dopaminelite.payment_portal.dto.export.ExportJobResponse;
 import dopaminelite.payment_portal.entity.enums.DataSheetType;
+import dopaminelite.payment_portal.entity.enums.ExportCompression;
 import dopaminelite.payment_portal.entity.enums.ExportFormat;
+import dopaminelite.payment_portal.entity.enums.ExportSplit;
+import dopaminelite.payment_portal.exception.ValidationException;
+import dopaminelite.payment_portal.mapper.ExportJobMapper;
 import dopaminelite.payment_portal.service.DataSheetService;
+import dopaminelite.payment_portal.service.ExportJobService;
+import dopaminelite.payment_portal.service.export.CachedExport;
+import dopaminelite.payment_portal.service.export.ColumnPlan;
+import dopaminelite.payment_portal.service.export.ExportAdmission;
+import dopaminelite.payment_portal.service.export.ExportCacheKey;
+import dopaminelite.payment_portal.service.export.ExportJob;
+import dopaminelite.payment_portal.service.export.ExportProgress;
+import dopaminelite.payment_portal.service.export.ExportResultCache;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.Enumeration;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * REST controller for exporting payment submission data sheets.
- * Provides endpoint for exporting submissions in various formats (CSV, XLSX, PDF).
+ * Provides endpoints for exporting submissions in various formats (CSV, XLSX, PDF, NDJSON),
+ * either streamed directly or rendered in the background as an export job.
+ * Exports can be gzip-compressed, either as a .gz file or negotiated through Accept-Encoding,
+ * or split into parts delivered as one ZIP archive.
  */
 @RestController
 @RequestMapping("/data-sheets")
 @RequiredArgsConstructor
 public class DataSheetController {
     
+    private static final String CACHE_STATUS_HEADER = "X-Export-Cache";
+    private static final String HELD_EXPORT_INTERCEPTOR = DataSheetController.class.getName() + ".heldExport";
+    
     private final DataSheetService dataSheetService;
+    private final ExportJobService exportJobService;
+    private final ExportJobMapper exportJobMapper;
+    private final ExportResultCache exportResultCache;
+    private final ExportAdmission exportAdmission;
+    private final CachedExportHandler cachedExportHandler = new CachedExportHandler();
     
     /**
      * Exports payment submissions as a downloadable data sheet.
+     * The file is streamed to the client as it is rendered rather than built in memory first.
+     * <p>
+     * An explicit {@code compression=GZIP} returns a .gz file. Without the parameter, text formats are
+     * sent with {@code Content-Encoding: gzip} when the client's Accept-Encoding allows it; XLSX and PDF
+     * are already compressed internally and are sent as-is. {@code compression=NONE} disables both.
+     * <p>
+     * Filter-based exports are served from the result cache when an identical export was rendered
+     * recently; the {@code X-Export-Cache} header reports HIT or MISS. Cached exports carry an ETag
+     * (the SHA-256 of their content) and Last-Modified, and are served through Spring's resource
+     * handling: conditional requests are answered with 304 or 412, and a {@code Range} is served as
+     * 206 Partial Content when {@code If-Range} is absent or still matches, so a download interrupted
+     * after its render finished resumes from the cached file without querying the database. A render
+     * stops when the client disconnects and releases its admission slots; nothing is cached from it.
+     * <p>
+     * Exports that have to be rendered are admitted per format according to their row count. When
+     * too many are running or queued the request fails with 429 and a Retry-After header. Cache hits
+     * and pre-rendered sheets are copied rather than rendered, so they are neither counted nor admitted.
+     * <p>
+     * With {@code split=ROWS} or {@code split=PORTAL} the export is delivered as a ZIP archive of
+     * complete files in the requested format, each holding at most {@code partRows} rows (defaulting
+     * per format) or one portal's rows. The archive is streamed as the parts are rendered and is
+     * neither cached nor gzip-compressed.
      *
      * @param type the type of submissions to export (APPROVED, REJECTED, PENDING, ALL)
-     * @param format the export format (CSV, XLSX, PDF)
+     * @param format the export format (CSV, XLSX, PDF, NDJSON)
      * @param month filter by month (1-12), optional
      * @param year filter by year, optional
      * @param columns specific columns to include in export, optional (defaults to all columns)
      * @param submissionIds specific submission IDs to export, optional (overrides other filters)
-     * @return downloadable file as byte array with appropriate content type and filename
+     * @param compression file compression (NONE, GZIP), optional (defaults to content negotiation)
+     * @param split how to split the export into parts (NONE, ROWS, PORTAL), optional (defaults to NONE)
+     * @param partRows maximum rows per part when splitting by rows, optional
+     * @param acceptEncoding the client's Accept-Encoding header, optional
+     * @param ifRange the client's If-Range header, optional
+     * @param servletRequest the current request, which a cache hit is served from directly
+     * @param servletResponse the current response, which a cache hit is written to directly
+     * @return downloadable file stream with appropriate content type and filename, or {@code null}
+     *         when a cache hit has already been written to the response
+     * @throws IOException if a cache hit cannot be written to the response or a pre-rendered sheet cannot be opened
+     * @throws ServletException if a cache hit cannot be served
+     * @throws ValidationException if any requested column is unknown or the split is invalid
+     * @throws ExportRejectedException if export capacity for the format is exhausted
      */
     @GetMapping("/export")
-    public ResponseEntity<byte[]> exportDataSheet(
+    public ResponseEntity<StreamingResponseBody> exportDataSheet(
             @RequestParam DataSheetType type,
             @RequestParam ExportFormat format,
             @RequestParam(required = false) Integer month,
             @RequestParam(required = false) Integer year,
             @RequestParam(required = false) List<String> columns,
-            @RequestParam(required = false) List<UUID> submissionIds
-    ) {
-        byte[] data = dataSheetService.exportDataSheet(type, format, month, year, columns, submissionIds);
+            @RequestParam(required = false) List<UUID> submissionIds,
+            @RequestParam(required = false) ExportCompression compression,
+            @RequestParam(required = false) ExportSplit split,
+            @RequestParam(required = false) Integer partRows,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            HttpServletRequest servletRequest,
+            HttpServletResponse servletResponse
+    ) throws IOException, ServletException {
+        if (split != null && split != ExportSplit.NONE) {
+            if (compression == ExportCompression.GZIP) {
+                throw ValidationException.invalidExportSplit("split exports are ZIP archives and cannot be gzip-compressed");
+            }
+            DataSheetExportRequest request = new DataSheetExportRequest(
+                    type, format, month, year, columns, submissionIds, ExportCompression.NONE
+            );
+            return splitDownload(request, ColumnPlan.compile(columns), split, partRows, servletRequest);
+        }
+        
+        // Negotiated compression is transparent to the client: same file, gzip transfer encoding
+        boolean negotiated = compression == null && isCompressible(format) && acceptsGzip(acceptEncoding);
+        ExportCompression effective = negotiated ? ExportCompression.GZIP
+                : (compression != null ? compression : ExportCompression.NONE);
+        
+        DataSheetExportRequest request = new DataSheetExportRequest(
+                type, format, month, year, columns, submissionIds, effective
+        );
+        // Compiled before the response is committed so unknown columns still get a 400
+        ColumnPlan columnPlan = ColumnPlan.compile(columns);
+        
+        HttpHeaders headers = downloadHeaders(request, negotiated);
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        
+        boolean cacheable = exportResultCache.isEnabled() && (submissionIds == null || submissionIds.isEmpty());
+        ExportCacheKey key = cacheable ? ExportCacheKey.of(request, columnPlan) : null;
+        Instant renderedAt = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        if (cacheable) {
+            Optional<CachedExport> cached = exportResultCache.get(key);
+            if (cached.isPresent()) {
+                // Replaying a cached file touches neither the database nor the renderers, so it is not admitted
+                headers.set(CACHE_STATUS_HEADER, "HIT");
+                cachedDownload(cached.get(), headers, ifRange, servletRequest, servletResponse);
+                return null;
+            }
+            // A render is always sent whole; once cached, later requests can ask for ranges of it
+            headers.set(CACHE_STATUS_HEADER, "MISS");
+            headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+            headers.setLastModified(renderedAt);
+        }
+        
+        // Only a render is counted and admitted; a pre-rendered sheet is copied without querying the database
+        StreamingResponseBody write;
+        Closeable held;
+        Optional<InputStream> prerendered = dataSheetService.openPrerendered(request);
+        if (prerendered.isPresent()) {
+            InputStream sheet = prerendered.get();
+            write = outputStream -> dataSheetService.writePrerendered(request, sheet, outputStream);
+            held = sheet;
+        } else {
+            // Waits for capacity on the request thread, so a rejection is still a plain 429 response
+            ExportAdmission.Permit permit = exportAdmission.admit(format, () -> dataSheetService.countRows(request));
+            write = outputStream ->
+                    dataSheetService.renderDataSheet(request, columnPlan, outputStream, ExportProgress.NONE);
+            held = permit::close;
+        }
+        
+        StreamingResponseBody body = cacheable
+                ? outputStream -> exportResultCache.render(key, renderedAt, outputStream, write::writeTo)
+                : write;
+        return releasingResponse(servletRequest, headers, held, body);
+    }
+    
+    /**
+     * Submits an export to be rendered in the background.
+     * Poll the returned job for progress and download the file once it is COMPLETED.
+     *
+     * @param request the export filters, columns and format
+     * @return the queued job with HTTP 202 status and its status URL in the Location header
+     * @throws ValidationException if any requested column is unknown
+     * @throws ExportRejectedException if the export job queue is full
+     */
+    @PostMapping("/export-jobs")
+    public ResponseEntity<ExportJobResponse> submitExportJob(@Valid @RequestBody DataSheetExportRequest request) {
+        ExportJob job = exportJobService.submit(request);
         
-        String filename = generateFilename(type, format, month, year);
-        String contentType = getContentType(format);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{jobId}")
+                .buildAndExpand(job.getId())
+                .toUri();
+        
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(location)
+                .body(exportJobMapper.toResponse(job));
+    }
+    
+    /**
+     * Retrieves the status and progress of an export job.
+     *
+     * @param jobId the unique identifier of the export job
+     * @return the job status, row progress and, once completed, the file size
+     * @throws ResourceNotFoundException if no job exists with the given ID or it has expired
+     */
+    @GetMapping("/export-jobs/{jobId}")
+    public ResponseEntity<ExportJobResponse> getExportJob(@PathVariable UUID jobId) {
+        return ResponseEntity.ok(exportJobMapper.toResponse(exportJobService.getJob(jobId)));
+    }
+    
+    /**
+     * Downloads the file produced by a completed export job.
+     *
+     * @param jobId the unique identifier of the export job
+     * @return the spooled export file with appropriate content type and filename
+     * @throws ResourceNotFoundException if no job exists with the given ID or it has expired
+     * @throws ExportNotReadyException if the job has not completed yet or has failed
+     */
+    @GetMapping("/export-jobs/{jobId}/file")
+    public ResponseEntity<Resource> downloadExportJob(@PathVariable UUID jobId) {
+        Resource file = new FileSystemResource(exportJobService.getResultFile(jobId));
+        DataSheetExportRequest request = exportJobService.getJob(jobId).getRequest();
         
+        return ResponseEntity.ok()
+                .headers(downloadHeaders(request, false))
+                .body(file);
+    }
+    
+    /**
+     * Streams an export split into parts as a ZIP archive, admitted like any other render.
+     */
+    private ResponseEntity<StreamingResponseBody> splitDownload(DataSheetExportRequest request, ColumnPlan columnPlan,
+                                                                ExportSplit split, Integer partRows,
+                                                                HttpServletRequest servletRequest) {
+        if (partRows != null && partRows < 1) {
+            throw ValidationException.invalidExportSplit("partRows must be at least 1");
+        }
+        String baseName = baseFilename(request.getType(), request.getMonth(), request.getYear());
         HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/zip"));
+        headers.setContentDispositionFormData("attachment", baseName + ".zip");
+        
+        ExportAdmission.Permit permit = exportAdmission.admit(request.getFormat(),
+                () -> dataSheetService.countRows(request));
+        return releasingResponse(servletRequest, headers, permit::close, outputStream ->
+                dataSheetService.writeDataSheetParts(request, columnPlan, split, partRows, baseName,
+                        outputStream, ExportProgress.NONE));
+    }
+    
+    /**
+     * Builds the response for a streamed export that holds an admission permit or an opened sheet
+     * until it has been written. The body releases it when it finishes. A body that never runs,
+     * because the client went away or the request timed out before the async task started, cannot,
+     * so whichever of the body and async completion comes first claims the resource: the body to
+     * write and then release it, completion to release it unwritten.
+     */
+    private ResponseEntity<StreamingResponseBody> releasingResponse(HttpServletRequest servletRequest,
+                                                                    HttpHeaders headers, Closeable held,
+                                                                    StreamingResponseBody write) {
+        AtomicBoolean claimed = new AtomicBoolean();
+        try {
+            WebAsyncUtils.getAsyncManager(servletRequest).registerCallableInterceptor(HELD_EXPORT_INTERCEPTOR,
+                    new CallableProcessingInterceptor() {
+                        @Override
+                        public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) throws Exception {
+                            if (claimed.compareAndSet(false, true)) {
+                                held.close();
+                            }
+                        }
+                    });
+            StreamingResponseBody body = outputStream -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return;
+                }
+                try (held) {
+                    write.writeTo(outputStream);
+                }
+            };
+            
+            return ResponseEntity.ok()
+                    .headers(headers)
+                    .body(body);
+        } catch (RuntimeException e) {
+            if (claimed.compareAndSet(false, true)) {
+                try {
+                    held.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Writes a cached export to the response through {@link CachedExportHandler}. Spring does not
+     * evaluate If-Range, so when the validator no longer matches the Range header is hidden and the
+     * whole file is sent.
+     */
+    private void cachedDownload(CachedExport cached, HttpHeaders headers, String ifRange,
+                                HttpServletRequest request, HttpServletResponse response)
+            throws IOException, ServletException {
+        try (cached) {
+            String etag = "\"" + cached.getContentHash() + "\"";
+            headers.setETag(etag);
+            // The handler sets the content type and, from the resource, Last-Modified and Content-Length
+            MediaType contentType = headers.getContentType();
+            headers.remove(HttpHeaders.CONTENT_TYPE);
+            headers.forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+            
+            HttpServletRequest served = ifRangeMatches(ifRange, etag, cached.getRenderedAt())
+                    ? request
+                    : new WithoutRangeRequest(request);
+            cachedExportHandler.serve(cached.asResource(), contentType, served, response);
+        }
+    }
+    
+    /**
+     * Returns whether an If-Range validator matches the cached export. An entity tag must match
+     * exactly and a date must equal the export's Last-Modified time; weak tags never match.
+     */
+    private boolean ifRangeMatches(String ifRange, String etag, Instant renderedAt) {
+        if (ifRange == null) {
+            return true;
+        }
+        String validator = ifRange.trim();
+        if (validator.startsWith("\"")) {
+            return validator.equals(etag);
+        }
+        if (validator.startsWith("W/")) {
+            return false;
+        }
+        try {
+            return ZonedDateTime.parse(validator, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().equals(renderedAt);
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Builds the download headers. A gzip-compressed export is either sent as the original file with
+     * {@code Content-Encoding: gzip} (negotiated) or as a .gz file (requested explicitly).
+     */
+    private HttpHeaders downloadHeaders(DataSheetExportRequest request, boolean negotiated) {
+        String filename = generateFilename(request.getType(), request.getFormat(), request.getMonth(), request.getYear());
+        String contentType = getContentType(request.getFormat());
+        
+        HttpHeaders headers = new HttpHeaders();
+        if (request.getCompression() == ExportCompression.GZIP && !negotiated) {
+            filename += ".gz";
+            contentType = "application/gzip";
+        } else if (negotiated) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
         headers.setContentType(MediaType.parseMediaType(contentType));
         headers.setContentDispositionFormData("attachment", filename);
-        headers.setContentLength(data.length);
-        
-        return ResponseEntity.ok()
-                .headers(headers)
-                .body(data);
+        return headers;
+    }
+    
+    /**
+     * Returns whether the client accepts gzip, honouring {@code q=0} exclusions and the wildcard.
+     */
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean gzip = null;
+        Boolean wildcard = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            boolean accepted = true;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    accepted = !param.substring(2).trim().matches("0(\\.0{0,3})?");
+                }
+            }
+            if (name.equalsIgnoreCase("gzip") || name.equalsIgnoreCase("x-gzip")) {
+                gzip = accepted;
+            } else if (name.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        // An explicit gzip entry takes precedence over the wildcard
+        return gzip != null ? gzip : Boolean.TRUE.equals(wildcard);
+    }
+    
+    /**
+     * Returns whether a format benefits from transport compression. XLSX is a ZIP archive and PDF
+     * streams are deflated by the writer, so gzip would cost CPU for almost no saving.
+     */
+    private boolean isCompressible(ExportFormat format) {
+        return switch (format) {
+            case CSV, NDJSON -> true;
+            case XLSX, PDF -> false;
+        };
     }
     
     private String generateFilename(DataSheetType type, ExportFormat format, Integer month, Integer year) {
+        return baseFilename(type, month, year) + "." + format.name().toLowerCase();
+    }
+    
+    private String baseFilename(DataSheetType type, Integer month, Integer year) {
         StringBuilder filename = new StringBuilder("payment-submissions-");
         filename.append(type.name().toLowerCase());
         
@@ -66,7 +436,6 @@ public class DataSheetController {
             filename.append("-").append(year).append("-").append(String.format("%02d", month));
         }
         
-        filename.append(".").append(format.name().toLowerCase());
         return filename.toString();
     }
     
@@ -75,7 +444,75 @@ public class DataSheetController {
             case CSV -> "text/csv";
             case XLSX -> "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
             case PDF -> "application/pdf";
+            case NDJSON -> "application/x-ndjson";
         };
     }
     
+    /**
+     * Spring's static resource handler, pointed at a single cached export per request instead of
+     * resource locations. It answers If-None-Match and If-Modified-Since, writes Last-Modified,
+     * Content-Length and Accept-Ranges, and serves ranges through
+     * {@link org.springframework.http.converter.ResourceRegionHttpMessageConverter}: 206 with one
+     * or more regions, or 416 with the export's size in Content-Range when none is satisfiable.
+     */
+    private static final class CachedExportHandler extends ResourceHttpRequestHandler {
+        
+        private static final String RESOURCE_ATTRIBUTE = CachedExportHandler.class.getName() + ".resource";
+        private static final String MEDIA_TYPE_ATTRIBUTE = CachedExportHandler.class.getName() + ".mediaType";
+        
+        private CachedExportHandler() {
+            try {
+                afterPropertiesSet();
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to initialise the cached export handler", e);
+            }
+        }
+        
+        private void serve(Resource resource, MediaType mediaType, HttpServletRequest request,
+                           HttpServletResponse response) throws IOException, ServletException {
+            request.setAttribute(RESOURCE_ATTRIBUTE, resource);
+            request.setAttribute(MEDIA_TYPE_ATTRIBUTE, mediaType);
+            handleRequest(request, response);
+        }
+        
+        @Override
+        protected Resource getResource(HttpServletRequest request) {
+            return (Resource) request.getAttribute(RESOURCE_ATTRIBUTE);
+        }
+        
+        @Override
+        protected MediaType getMediaType(HttpServletRequest request, Resource resource) {
+            return (MediaType) request.getAttribute(MEDIA_TYPE_ATTRIBUTE);
+        }
+        
+    }
+    
+    /**
+     * Hides the Range header, so a request whose If-Range no longer matches gets the whole file.
+     */
+    private static final class WithoutRangeRequest extends HttpServletRequestWrapper {
+        
+        private WithoutRangeRequest(HttpServletRequest request) {
+            super(request);
+        }
+        
+        @Override
+        public String getHeader(String name) {
+            return HttpHeaders.RANGE.equalsIgnoreCase(name) ? null : super.getHeader(name);
+        }
+        
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return HttpHeaders.RANGE.equalsIgnoreCase(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+        
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            return Collections.enumeration(Collections.list(super.getHeaderNames()).stream()
+                    .filter(name -> !HttpHeaders.RANGE.equalsIgnoreCase(name))
+                    .toList());
+        }
+        
+    }
+    
 }
@@ -7,6 +7,7 @@ import dopaminelite.payment_portal.dto.portal.BulkPortalVisibilityUpdateRequest;
 import dopaminelite.payment_portal.dto.portal.PaymentPortalCreateRequest;
 import dopaminelite.payment_portal.dto.portal.PaymentPortalResponse;
 import dopaminelite.payment_portal.dto.portal.PaymentPortalUpdateRequest;
+import dopaminelite.payment_portal.entity.enums.CountMode;
 import dopaminelite.payment_portal.service.PaymentPortalService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -26,9 +27,9 @@ import java.util.UUID;
 @RequestMapping("/portals")
 @RequiredArgsConstructor
 public class PaymentPortalController {
-
+    
     private final PaymentPortalService portalService;
-
+    
     /**
      * Lists all payment portals with optional filtering and pagination.
      *
@@ -37,6 +38,7 @@ public class PaymentPortalController {
      * @param isPublished filter by published status, optional
      * @param limit maximum number of results per page, defaults to 10
      * @param offset number of results to skip, defaults to 0
+     * @param count how to compute the total (EXACT, CACHED or NONE), defaults to EXACT
      * @return paginated list of payment portals
      */
     @GetMapping
@@ -45,7 +47,8 @@ public class PaymentPortalController {
             @RequestParam(required = false) Integer year,
             @RequestParam(required = false) Boolean isPublished,
             @RequestParam(defaultValue = "20") int limit,
-            @RequestParam(defaultValue = "0") int offset
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(required = false) CountMode count
     ) {
         // Validate limit range
         if (limit < 1 || limit > 100) {
@@ -53,12 +56,12 @@ public class PaymentPortalController {
         }
         
         PaginatedResponse<PaymentPortalResponse> response = portalService.listPortals(
-                month, year, isPublished, limit, offset
+                month, year, isPublished, limit, offset, count
         );
         
         return ResponseEntity.ok(response);
     }
-
+    
     /**
      * Creates a new payment portal.
      *
@@ -108,7 +111,7 @@ public class PaymentPortalController {
         PaymentPortalResponse response = portalService.updatePortal(portalId, request);
         return ResponseEntity.ok(response);
     }
-
+    
     /**
      * Updates the visibility of multiple payment portals in a single operation.
      *
@@ -124,7 +127,8 @@ public class PaymentPortalController {
         return ResponseEntity.ok().build();
     }
     
-    private java.util.Optional<UUID> extractUserIdFromJwt(String authorizationHeader) {
+    // Package-private so the JMH benchmark can call it directly
+    java.util.Optional<UUID> extractUserIdFromJwt(String authorizationHeader) {
         if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
             return java.util.Optional.empty();
         }
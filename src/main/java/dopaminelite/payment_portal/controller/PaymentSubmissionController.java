@@ -4,6 +4,7 @@ import dopaminelite.payment_portal.dto.common.PaginatedResponse;
 import dopaminelite.payment_portal.dto.submission.PaymentSubmissionCreateRequest;
 import dopaminelite.payment_portal.dto.submission.PaymentSubmissionResponse;
 import dopaminelite.payment_portal.dto.submission.PaymentSubmissionStatusUpdateRequest;
+import dopaminelite.payment_portal.entity.enums.CountMode;
 import dopaminelite.payment_portal.entity.enums.SubmissionStatus;
 import dopaminelite.payment_portal.service.PaymentSubmissionService;
 import jakarta.validation.Valid;
@@ -54,9 +55,13 @@ public class PaymentSubmissionController {
      * @param status filter by submission status (PENDING, APPROVED, REJECTED), optional
      * @param fromDate filter submissions from this date (inclusive), optional
      * @param toDate filter submissions until this date (inclusive), optional
-     * @param limit maximum number of results per page, defaults to 10
-     * @param offset number of results to skip, defaults to 0
-     * @return paginated list of payment submissions
+     * @param limit maximum number of results per page, defaults to 10, at most 100
+     * @param offset number of results to skip, defaults to 0; must be 0 when a cursor is given
+     * @param cursor the {@code nextCursor} of the previous page, optional
+     * @param count how to compute the total (EXACT, CACHED or NONE), optional;
+     *              defaults to EXACT for offset pages and NONE for cursor pages
+     * @return paginated list of payment submissions, with whether more follow and the cursor of the next page
+     * @throws ValidationException if the limit, offset or cursor is invalid
      */
     @GetMapping("/submissions")
     public ResponseEntity<PaginatedResponse<PaymentSubmissionResponse>> listSubmissions(
@@ -68,17 +73,19 @@ public class PaymentSubmissionController {
             @RequestParam(required = false) Integer month,
             @RequestParam(required = false) Integer year,
             @RequestParam(defaultValue = "10") int limit,
-            @RequestParam(defaultValue = "0") int offset
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) CountMode count
     ) {
-        log.info("[CONTROLLER] Received GET /submissions request - studentId: {}, portalId: {}, status: {}, fromDate: {}, toDate: {}, month: {}, year: {}, limit: {}, offset: {}",
-                studentId, portalId, status, fromDate, toDate, month, year, limit, offset);
+        log.info("[CONTROLLER] Received GET /submissions request - studentId: {}, portalId: {}, status: {}, fromDate: {}, toDate: {}, month: {}, year: {}, limit: {}, offset: {}, cursor: {}, count: {}",
+                studentId, portalId, status, fromDate, toDate, month, year, limit, offset, cursor, count);
         
         PaginatedResponse<PaymentSubmissionResponse> response = submissionService.listSubmissions(
-            studentId, portalId, status, fromDate, toDate, month, year, limit, offset
+            studentId, portalId, status, fromDate, toDate, month, year, limit, offset, cursor, count
         );
         
-        log.info("[CONTROLLER] Successfully retrieved submissions - total count: {}, returned items: {}",
-                response.getTotal(), response.getItems().size());
+        log.info("[CONTROLLER] Successfully retrieved submissions - total count: {}, returned items: {}, has more: {}",
+                response.getTotal(), response.getItems().size(), response.getHasMore());
         return ResponseEntity.ok(response);
     }
     
@@ -1,5 +1,6 @@
 package dopaminelite.payment_portal.dto.common;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -23,8 +24,33 @@ public class PaginatedResponse<T> {
     private List<T> items;
     
     /**
-     * Total count of items across all pages.
+     * Total count of items across all pages. Offset pages always carry it unless the caller asks for
+     * count mode {@code NONE}; cursor pages carry it only when a count mode is requested. It is null
+     * when no total was computed, and in {@code CACHED} count mode it may lag recent changes.
      */
     private Long total;
     
+    /**
+     * Opaque cursor of the next page for endpoints that support cursor pagination,
+     * omitted when there is no next page.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+    
+    /**
+     * Whether more items follow this page, for endpoints that can page without a total.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean hasMore;
+    
+    /**
+     * Creates a page without a cursor or a next-page flag.
+     *
+     * @param items the items of the page
+     * @param total the total count of items across all pages
+     */
+    public PaginatedResponse(List<T> items, Long total) {
+        this(items, total, null, null);
+    }
+    
 }
@@ -0,0 +1,64 @@
+package dopaminelite.payment_portal.dto.export;
+
+import dopaminelite.payment_portal.entity.enums.DataSheetType;
+import dopaminelite.payment_portal.entity.enums.ExportCompression;
+import dopaminelite.payment_portal.entity.enums.ExportFormat;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Request DTO describing a data sheet export: which submissions to include,
+ * which columns to render and in which format.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DataSheetExportRequest {
+    
+    /**
+     * Type of submissions to export (APPROVED, REJECTED, PENDING, ALL).
+     */
+    @NotNull(message = "Type is required")
+    private DataSheetType type;
+    
+    /**
+     * Export file format.
+     */
+    @NotNull(message = "Format is required")
+    private ExportFormat format;
+    
+    /**
+     * Filter by portal month (1-12), optional.
+     */
+    @Min(value = 1, message = "Month must be between 1 and 12")
+    @Max(value = 12, message = "Month must be between 1 and 12")
+    private Integer month;
+    
+    /**
+     * Filter by portal year, optional.
+     */
+    private Integer year;
+    
+    /**
+     * Columns to include, in order. Defaults to the standard column set when empty.
+     */
+    private List<String> columns;
+    
+    /**
+     * Specific submission IDs to export. Overrides the type, month and year filters when provided.
+     */
+    private List<UUID> submissionIds;
+    
+    /**
+     * Compression applied to the rendered file, optional (defaults to NONE).
+     */
+    private ExportCompression compression;
+    
+}
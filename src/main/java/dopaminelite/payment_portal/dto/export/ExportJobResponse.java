@@ -0,0 +1,75 @@
+package dopaminelite.payment_portal.dto.export;
+
+import dopaminelite.payment_portal.entity.enums.ExportFormat;
+import dopaminelite.payment_portal.entity.enums.ExportJobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Response DTO describing the state and progress of an asynchronous export job.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportJobResponse {
+    
+    /**
+     * Unique identifier of the job, used to poll status and download the result.
+     */
+    private UUID jobId;
+    
+    /**
+     * Current lifecycle status of the job.
+     */
+    private ExportJobStatus status;
+    
+    /**
+     * Format of the file being produced.
+     */
+    private ExportFormat format;
+    
+    /**
+     * Number of rows rendered so far.
+     */
+    private Long rowsWritten;
+    
+    /**
+     * Total number of rows the export will contain, once known.
+     */
+    private Long totalRows;
+    
+    /**
+     * Completion percentage (0-100), once the total is known.
+     */
+    private Integer progressPercent;
+    
+    /**
+     * Size of the finished file in bytes. Only set when the job is COMPLETED.
+     */
+    private Long fileSize;
+    
+    /**
+     * Failure description. Only set when the job is FAILED.
+     */
+    private String errorMessage;
+    
+    /**
+     * Timestamp when the job was submitted.
+     */
+    private LocalDateTime createdAt;
+    
+    /**
+     * Timestamp when the job finished, successfully or not.
+     */
+    private LocalDateTime completedAt;
+    
+    /**
+     * Timestamp after which the job and its file are removed.
+     */
+    private LocalDateTime expiresAt;
+    
+}
@@ -0,0 +1,38 @@
+package dopaminelite.payment_portal.dto.export;
+
+import dopaminelite.payment_portal.entity.enums.SubmissionStatus;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Flat, read-only view of a payment submission used to render data sheets.
+ * Only the fields for the columns selected in an export are populated; the others stay null.
+ * File details are aggregated by the database rather than loaded as entities.
+ */
+@Data
+@NoArgsConstructor
+public class SubmissionExportRow {
+    
+    private UUID id;
+    private UUID studentId;
+    private UUID portalId;
+    private String portalName;
+    private SubmissionStatus status;
+    private String rejectionReason;
+    private LocalDateTime submittedAt;
+    private LocalDateTime lastUpdatedAt;
+    
+    /**
+     * Number of files uploaded with the submission.
+     */
+    private Long fileCount;
+    
+    /**
+     * File names of the submission joined with "; ", or null if it has none.
+     */
+    private String fileNames;
+    
+}
@@ -0,0 +1,63 @@
+package dopaminelite.payment_portal.dto.submission;
+
+import dopaminelite.payment_portal.entity.PaymentSubmission;
+import dopaminelite.payment_portal.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in the submission list, which is ordered by submission time and then ID, both descending.
+ * A cursor points at the last submission of a page; the next page starts right after it.
+ *
+ * <p>Clients see the cursor only as an opaque string produced by {@link #encode()}.
+ *
+ * @param submittedAt the submission time of the last submission returned
+ * @param id the ID of the last submission returned
+ */
+public record SubmissionCursor(LocalDateTime submittedAt, UUID id) {
+    
+    private static final char SEPARATOR = '|';
+    
+    /**
+     * @param submission the last submission of a page
+     * @return the cursor of the following page
+     */
+    public static SubmissionCursor after(PaymentSubmission submission) {
+        return new SubmissionCursor(submission.getSubmittedAt(), submission.getId());
+    }
+    
+    /**
+     * @return the cursor as an opaque, URL-safe string
+     */
+    public String encode() {
+        String value = submittedAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Parses a cursor previously returned by {@link #encode()}.
+     *
+     * @param cursor the opaque cursor string
+     * @return the decoded cursor
+     * @throws ValidationException if the string is not a valid cursor
+     */
+    public static SubmissionCursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw ValidationException.invalidCursor();
+            }
+            return new SubmissionCursor(
+                    LocalDateTime.parse(value.substring(0, separator)),
+                    UUID.fromString(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw ValidationException.invalidCursor();
+        }
+    }
+    
+}
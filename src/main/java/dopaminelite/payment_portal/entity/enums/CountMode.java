@@ -0,0 +1,21 @@
+package dopaminelite.payment_portal.entity.enums;
+
+/**
+ * Enumeration defining how a list endpoint computes the total of a page.
+ */
+public enum CountMode {
+    /**
+     * Exact total, counted on every request.
+     */
+    EXACT,
+    
+    /**
+     * Exact total cached for a short period per list and filters, so it may lag recent changes.
+     */
+    CACHED,
+    
+    /**
+     * No total; the page only reports whether more items follow.
+     */
+    NONE
+}
@@ -0,0 +1,16 @@
+package dopaminelite.payment_portal.entity.enums;
+
+/**
+ * Enumeration defining how an exported data sheet file is compressed.
+ */
+public enum ExportCompression {
+    /**
+     * Uncompressed file.
+     */
+    NONE,
+    
+    /**
+     * Gzip-compressed file (.gz).
+     */
+    GZIP
+}
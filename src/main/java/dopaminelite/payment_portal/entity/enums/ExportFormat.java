@@ -17,5 +17,10 @@ public enum ExportFormat {
     /**
      * Portable Document Format (.pdf).
      */
-    PDF
+    PDF,
+    
+    /**
+     * Newline-delimited JSON, one object per submission (.ndjson).
+     */
+    NDJSON
 }
@@ -0,0 +1,26 @@
+package dopaminelite.payment_portal.entity.enums;
+
+/**
+ * Enumeration defining the lifecycle states of an asynchronous export job.
+ */
+public enum ExportJobStatus {
+    /**
+     * Job is waiting for a free export worker.
+     */
+    QUEUED,
+    
+    /**
+     * Job is fetching and rendering rows.
+     */
+    RUNNING,
+    
+    /**
+     * Job finished and its file is ready for download.
+     */
+    COMPLETED,
+    
+    /**
+     * Job stopped because of an error.
+     */
+    FAILED
+}
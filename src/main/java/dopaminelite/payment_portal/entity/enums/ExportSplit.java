@@ -0,0 +1,21 @@
+package dopaminelite.payment_portal.entity.enums;
+
+/**
+ * Enumeration defining how an export is split into parts delivered as one ZIP archive.
+ */
+public enum ExportSplit {
+    /**
+     * Single file, not split.
+     */
+    NONE,
+    
+    /**
+     * Consecutive parts of at most a fixed number of rows each.
+     */
+    ROWS,
+    
+    /**
+     * One part per portal.
+     */
+    PORTAL
+}
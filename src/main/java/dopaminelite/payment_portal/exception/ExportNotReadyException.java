@@ -0,0 +1,33 @@
+package dopaminelite.payment_portal.exception;
+
+import dopaminelite.payment_portal.entity.enums.ExportJobStatus;
+
+import java.util.UUID;
+
+/**
+ * Exception thrown when the result of an export job is requested before the job has completed.
+ * Typically results in a 409 Conflict HTTP status code.
+ */
+public class ExportNotReadyException extends RuntimeException {
+    
+    /**
+     * Constructs a new ExportNotReadyException with the specified message.
+     *
+     * @param message the detail message
+     */
+    public ExportNotReadyException(String message) {
+        super(message);
+    }
+    
+    /**
+     * Factory method for a job whose file is not available in its current state.
+     *
+     * @param jobId the export job ID
+     * @param status the current job status
+     * @return a new ExportNotReadyException with appropriate message
+     */
+    public static ExportNotReadyException forJob(UUID jobId, ExportJobStatus status) {
+        return new ExportNotReadyException("Export job " + jobId + " has no downloadable file (status: " + status + ")");
+    }
+    
+}
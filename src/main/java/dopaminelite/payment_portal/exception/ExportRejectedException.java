@@ -0,0 +1,64 @@
+package dopaminelite.payment_portal.exception;
+
+import dopaminelite.payment_portal.entity.enums.ExportFormat;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when an export cannot be accepted because export capacity is exhausted.
+ * Typically results in a 429 Too Many Requests HTTP status code.
+ */
+@Getter
+public class ExportRejectedException extends RuntimeException {
+    
+    /**
+     * How long the client should wait before retrying, or null if unknown.
+     */
+    private final Duration retryAfter;
+    
+    /**
+     * Constructs a new ExportRejectedException with the specified message.
+     *
+     * @param message the detail message
+     */
+    public ExportRejectedException(String message) {
+        this(message, null);
+    }
+    
+    /**
+     * Constructs a new ExportRejectedException with the specified message and retry hint.
+     *
+     * @param message the detail message
+     * @param retryAfter how long the client should wait before retrying, or null if unknown
+     */
+    public ExportRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+    
+    /**
+     * Factory method for when the export job queue is full.
+     *
+     * @param capacity the configured queue capacity
+     * @return a new ExportRejectedException with appropriate message
+     */
+    public static ExportRejectedException jobQueueFull(int capacity) {
+        return new ExportRejectedException("Export job queue is full (" + capacity + " jobs waiting). Please retry later");
+    }
+    
+    /**
+     * Factory method for when too many exports of a format are already running or waiting.
+     *
+     * @param format the requested export format
+     * @param retryAfter the estimated time until capacity frees up
+     * @return a new ExportRejectedException with appropriate message
+     */
+    public static ExportRejectedException capacityExhausted(ExportFormat format, Duration retryAfter) {
+        return new ExportRejectedException(
+                "Too many " + format + " exports in progress. Please retry in " + retryAfter.toSeconds() + " seconds",
+                retryAfter
+        );
+    }
+    
+}
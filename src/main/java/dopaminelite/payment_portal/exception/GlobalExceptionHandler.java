@@ -1,6 +1,7 @@
 package dopaminelite.payment_portal.exception;
 
 import dopaminelite.payment_portal.dto.common.ErrorResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -57,6 +58,35 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
     
+    /**
+     * Handles ExportNotReadyException when an export file is requested before it is available.
+     *
+     * @param ex the exception
+     * @return 409 CONFLICT response with error details
+     */
+    @ExceptionHandler(ExportNotReadyException.class)
+    public ResponseEntity<ErrorResponse> handleExportNotReady(ExportNotReadyException ex) {
+        ErrorResponse error = new ErrorResponse(HttpStatus.CONFLICT.value(), "EXPORT_NOT_READY", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+    
+    /**
+     * Handles ExportRejectedException when export capacity is exhausted.
+     * Adds a Retry-After header when the exception carries a retry estimate.
+     *
+     * @param ex the exception
+     * @return 429 TOO MANY REQUESTS response with error details
+     */
+    @ExceptionHandler(ExportRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleExportRejected(ExportRejectedException ex) {
+        ErrorResponse error = new ErrorResponse(HttpStatus.TOO_MANY_REQUESTS.value(), "EXPORT_REJECTED", ex.getMessage());
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS);
+        if (ex.getRetryAfter() != null) {
+            response.header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfter().toSeconds()));
+        }
+        return response.body(error);
+    }
+    
     /**
      * Handles MethodArgumentNotValidException for bean validation failures.
      * Collects all field-level validation errors into the response.
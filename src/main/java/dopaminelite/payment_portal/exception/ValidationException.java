@@ -1,5 +1,7 @@
 package dopaminelite.payment_portal.exception;
 
+import java.util.List;
+
 /**
  * Exception thrown when business validation rules are violated.
  * Typically results in a 400 Bad Request HTTP status code.
@@ -37,4 +39,43 @@ public class ValidationException extends RuntimeException {
         );
     }
     
+    /**
+     * Factory method for when an export requests columns that do not exist.
+     *
+     * @param columns the unknown column names
+     * @return a new ValidationException with appropriate message
+     */
+    public static ValidationException unknownExportColumns(List<String> columns) {
+        return new ValidationException("Unknown export columns: " + String.join(", ", columns));
+    }
+    
+    /**
+     * Factory method for when a split export asks for an invalid part size or for gzip compression.
+     *
+     * @param reason why the split cannot be applied
+     * @return a new ValidationException with appropriate message
+     */
+    public static ValidationException invalidExportSplit(String reason) {
+        return new ValidationException("Invalid export split: " + reason);
+    }
+    
+    /**
+     * Factory method for when a page is requested with an out-of-range limit or offset.
+     *
+     * @param reason which pagination parameter is invalid
+     * @return a new ValidationException with appropriate message
+     */
+    public static ValidationException invalidPagination(String reason) {
+        return new ValidationException("Invalid pagination: " + reason);
+    }
+    
+    /**
+     * Factory method for when a pagination cursor was not issued by the server or has been altered.
+     *
+     * @return a new ValidationException with appropriate message
+     */
+    public static ValidationException invalidCursor() {
+        return new ValidationException("Invalid pagination cursor");
+    }
+    
 }
@@ -0,0 +1,40 @@
+package dopaminelite.payment_portal.mapper;
+
+import dopaminelite.payment_portal.dto.export.ExportJobResponse;
+import dopaminelite.payment_portal.service.export.ExportJob;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mapper for converting export jobs to response DTOs.
+ */
+@Component
+public class ExportJobMapper {
+    
+    /**
+     * Converts an ExportJob to an ExportJobResponse DTO.
+     *
+     * @param job the job to convert, can be null
+     * @return the response DTO, or null if the input is null
+     */
+    public ExportJobResponse toResponse(ExportJob job) {
+        if (job == null) {
+            return null;
+        }
+        
+        ExportJobResponse response = new ExportJobResponse();
+        response.setJobId(job.getId());
+        response.setStatus(job.getStatus());
+        response.setFormat(job.getRequest().getFormat());
+        response.setRowsWritten(job.getRowsWritten());
+        response.setTotalRows(job.getTotalRows());
+        response.setProgressPercent(job.getProgressPercent());
+        response.setFileSize(job.getFileSize());
+        response.setErrorMessage(job.getErrorMessage());
+        response.setCreatedAt(job.getCreatedAt());
+        response.setCompletedAt(job.getCompletedAt());
+        response.setExpiresAt(job.getExpiresAt());
+        
+        return response;
+    }
+    
+}
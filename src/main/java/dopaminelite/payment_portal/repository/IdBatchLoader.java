@@ -0,0 +1,124 @@
+package dopaminelite.payment_portal.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Loads entities or rows for a list of IDs with bounded, reusable {@code IN} queries.
+ * <p>
+ * IDs are de-duplicated and split into batches of at most {@link #BATCH_SIZE}. The last batch is
+ * padded up to the next power of two by repeating its final ID, so however many IDs a caller passes
+ * the database only ever sees a handful of distinct statement shapes, and no statement comes near
+ * the driver's bind parameter limit. Results are returned in the caller's ID order; IDs with no
+ * matching record are skipped.
+ */
+public final class IdBatchLoader {
+    
+    /**
+     * Maximum number of IDs bound to a single {@code IN} list.
+     */
+    public static final int BATCH_SIZE = 512;
+    
+    /**
+     * Smallest padded batch, so short lists share one statement shape.
+     */
+    static final int MIN_BATCH_SIZE = 16;
+    
+    private IdBatchLoader() {
+    }
+    
+    /**
+     * Loads the records for the given IDs in the caller's order.
+     *
+     * @param ids the IDs to load, duplicates are loaded once
+     * @param loader runs one {@code IN} query for a padded batch of IDs
+     * @param idOf extracts the ID of a loaded record
+     * @return the loaded records in the order of {@code ids}
+     */
+    public static <ID, T> List<T> loadInOrder(
+            Collection<ID> ids,
+            Function<List<ID>, ? extends Collection<T>> loader,
+            Function<T, ID> idOf
+    ) {
+        List<T> results = new ArrayList<>(ids.size());
+        streamInOrder(ids, loader, idOf).forEach(results::add);
+        return results;
+    }
+    
+    /**
+     * Streams the records for the given IDs in the caller's order. Each batch is queried only when
+     * the stream reaches it, so at most one batch of records is held in memory.
+     *
+     * @param ids the IDs to load, duplicates are loaded once
+     * @param loader runs one {@code IN} query for a padded batch of IDs
+     * @param idOf extracts the ID of a loaded record
+     * @return the loaded records in the order of {@code ids}
+     */
+    public static <ID, T> Stream<T> streamInOrder(
+            Collection<ID> ids,
+            Function<List<ID>, ? extends Collection<T>> loader,
+            Function<T, ID> idOf
+    ) {
+        return batches(ids).stream()
+                .flatMap(batch -> inBatchOrder(batch, loader.apply(pad(batch)), idOf));
+    }
+    
+    /**
+     * Splits the distinct IDs, in first-seen order, into batches of at most {@link #BATCH_SIZE}.
+     */
+    static <ID> List<List<ID>> batches(Collection<ID> ids) {
+        List<ID> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<List<ID>> batches = new ArrayList<>((distinct.size() + BATCH_SIZE - 1) / BATCH_SIZE);
+        for (int from = 0; from < distinct.size(); from += BATCH_SIZE) {
+            batches.add(distinct.subList(from, Math.min(from + BATCH_SIZE, distinct.size())));
+        }
+        return batches;
+    }
+    
+    /**
+     * Pads a batch to its {@link #paddedSize} by repeating the last ID. Repeated values in an
+     * {@code IN} list do not change the result.
+     */
+    static <ID> List<ID> pad(List<ID> batch) {
+        int size = paddedSize(batch.size());
+        if (size == batch.size()) {
+            return batch;
+        }
+        List<ID> padded = new ArrayList<>(size);
+        padded.addAll(batch);
+        ID last = batch.get(batch.size() - 1);
+        while (padded.size() < size) {
+            padded.add(last);
+        }
+        return padded;
+    }
+    
+    /**
+     * Returns the smallest power of two that holds {@code size} IDs, between {@link #MIN_BATCH_SIZE}
+     * and {@link #BATCH_SIZE}.
+     */
+    static int paddedSize(int size) {
+        if (size <= MIN_BATCH_SIZE) {
+            return MIN_BATCH_SIZE;
+        }
+        return Math.min(BATCH_SIZE, Integer.highestOneBit(size - 1) << 1);
+    }
+    
+    private static <ID, T> Stream<T> inBatchOrder(List<ID> batch, Collection<T> loaded, Function<T, ID> idOf) {
+        Map<ID, T> byId = new HashMap<>(loaded.size() * 2);
+        for (T record : loaded) {
+            byId.put(idOf.apply(record), record);
+        }
+        return batch.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull);
+    }
+    
+}
@@ -0,0 +1,94 @@
+package dopaminelite.payment_portal.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * A {@link Pageable} that starts at an exact row offset. {@code PageRequest} can only start at
+ * multiples of the page size, so an offset that is not one would be rounded down to the page start.
+ */
+public final class OffsetPageRequest implements Pageable {
+    
+    private final long offset;
+    private final int limit;
+    private final Sort sort;
+    
+    /**
+     * @param offset the number of rows to skip, not negative
+     * @param limit the maximum number of rows, at least one
+     * @param sort the sort order, {@link Sort#unsorted()} when the query orders its results
+     */
+    public OffsetPageRequest(long offset, int limit, Sort sort) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative: " + offset);
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        this.offset = offset;
+        this.limit = limit;
+        this.sort = sort;
+    }
+    
+    @Override
+    public int getPageNumber() {
+        return (int) (offset / limit);
+    }
+    
+    @Override
+    public int getPageSize() {
+        return limit;
+    }
+    
+    @Override
+    public long getOffset() {
+        return offset;
+    }
+    
+    @Override
+    public Sort getSort() {
+        return sort;
+    }
+    
+    @Override
+    public Pageable next() {
+        return new OffsetPageRequest(offset + limit, limit, sort);
+    }
+    
+    @Override
+    public Pageable previousOrFirst() {
+        return hasPrevious() ? new OffsetPageRequest(Math.max(0, offset - limit), limit, sort) : first();
+    }
+    
+    @Override
+    public Pageable first() {
+        return new OffsetPageRequest(0, limit, sort);
+    }
+    
+    @Override
+    public Pageable withPage(int pageNumber) {
+        return new OffsetPageRequest((long) pageNumber * limit, limit, sort);
+    }
+    
+    @Override
+    public boolean hasPrevious() {
+        return offset > 0;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof OffsetPageRequest other
+                && offset == other.offset && limit == other.limit && sort.equals(other.sort);
+    }
+    
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Long.hashCode(offset) + limit) + sort.hashCode();
+    }
+    
+    @Override
+    public String toString() {
+        return "OffsetPageRequest[offset=" + offset + ", limit=" + limit + ", sort=" + sort + "]";
+    }
+    
+}
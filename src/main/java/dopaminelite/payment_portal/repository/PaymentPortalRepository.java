@@ -3,10 +3,14 @@ package dopaminelite.payment_portal.repository;
 import dopaminelite.payment_portal.entity.PaymentPortal;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -43,4 +47,43 @@ public interface PaymentPortalRepository extends JpaRepository<PaymentPortal, UU
      */
     Page<PaymentPortal> findByMonthAndYear(Integer month, Integer year, Pageable pageable);
     
+    /**
+     * Finds one page of portals without counting the total.
+     *
+     * @param pageable pagination information
+     * @return the page's portals and whether more follow
+     */
+    Slice<PaymentPortal> findAllBy(Pageable pageable);
+    
+    /**
+     * Finds one page of portals for a specific month and year without counting the total.
+     *
+     * @param month the month (1-12)
+     * @param year the year
+     * @param pageable pagination information
+     * @return the page's portals and whether more follow
+     */
+    Slice<PaymentPortal> findSliceByMonthAndYear(Integer month, Integer year, Pageable pageable);
+    
+    /**
+     * Counts the portals for a specific month and year.
+     *
+     * @param month the month (1-12)
+     * @param year the year
+     * @return the number of matching portals
+     */
+    long countByMonthAndYear(Integer month, Integer year);
+    
+    /**
+     * Finds the distinct months that have portals within a range, encoded as {@code year * 100 + month}.
+     *
+     * @param from the first month to include, as yyyymm
+     * @param to the last month to include, as yyyymm
+     * @return the months with at least one portal, in ascending order
+     */
+    @Query("SELECT DISTINCT p.year * 100 + p.month AS period FROM PaymentPortal p " +
+           "WHERE p.year * 100 + p.month BETWEEN :from AND :to " +
+           "ORDER BY period")
+    List<Integer> findPortalMonthsBetween(@Param("from") int from, @Param("to") int to);
+    
 }
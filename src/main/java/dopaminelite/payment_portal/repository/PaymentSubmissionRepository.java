@@ -4,13 +4,19 @@ import dopaminelite.payment_portal.entity.PaymentSubmission;
 import dopaminelite.payment_portal.entity.enums.SubmissionStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -19,7 +25,8 @@ import java.util.UUID;
  * Provides CRUD operations and custom queries for payment submission management.
  */
 @Repository
-public interface PaymentSubmissionRepository extends JpaRepository<PaymentSubmission, UUID>, JpaSpecificationExecutor<PaymentSubmission> {
+public interface PaymentSubmissionRepository extends JpaRepository<PaymentSubmission, UUID>, JpaSpecificationExecutor<PaymentSubmission>,
+        SubmissionExportRepository, SubmissionIdRepository {
     
     /**
      * Finds all submissions for a specific student with pagination.
@@ -49,39 +56,175 @@ public interface PaymentSubmissionRepository extends JpaRepository<PaymentSubmis
     Page<PaymentSubmission> findByStatus(SubmissionStatus status, Pageable pageable);
     
     /**
-     * Finds submissions with flexible filtering criteria using JPQL.
-     * All parameters are optional (can be null) for flexible querying.
+     * Finds submissions with flexible filtering criteria, newest first (see {@link SubmissionSpecifications#LIST_ORDER}).
+     * All parameters are optional (can be null); only the supplied ones are added to the query, and the portal is
+     * joined only when filtering by month or year. The page is loaded in two phases, its IDs and then the
+     * submissions with their files, so mapping it runs no further queries.
      *
      * @param studentId filter by student ID, null for no filtering
      * @param portalId filter by portal ID, null for no filtering
      * @param status filter by submission status, null for no filtering
+     * @param fromDate filter submissions from this date (inclusive), null for no filtering
+     * @param toDate filter submissions until this date (inclusive), null for no filtering
      * @param month filter by portal's month (1-12), null for no filtering
      * @param year filter by portal's year, null for no filtering
-     * @param pageable pagination information
-     * @return a page of submissions matching the criteria
+     * @param pageable the offset and size of the page; its sort is replaced by the list order
+     * @return a page of submissions matching the criteria, with their files
+     */
+    default Page<PaymentSubmission> findByFilters(
+            UUID studentId,
+            UUID portalId,
+            SubmissionStatus status,
+            LocalDate fromDate,
+            LocalDate toDate,
+            Integer month,
+            Integer year,
+            Pageable pageable
+    ) {
+        Specification<PaymentSubmission> filters =
+                SubmissionSpecifications.matching(studentId, portalId, status, fromDate, toDate, month, year);
+        List<UUID> ids = findIds(filters, SubmissionSpecifications.LIST_ORDER, pageable.getOffset(), pageable.getPageSize());
+        return PageableExecutionUtils.getPage(findWithFilesByIdIn(ids), pageable, () -> count(filters));
+    }
+    
+    /**
+     * Finds one page of submissions like {@link #findByFilters}, without the count query.
+     *
+     * @param studentId filter by student ID, null for no filtering
+     * @param portalId filter by portal ID, null for no filtering
+     * @param status filter by submission status, null for no filtering
+     * @param fromDate filter submissions from this date (inclusive), null for no filtering
+     * @param toDate filter submissions until this date (inclusive), null for no filtering
+     * @param month filter by portal's month (1-12), null for no filtering
+     * @param year filter by portal's year, null for no filtering
+     * @param pageable the offset and size of the page; its sort is replaced by the list order
+     * @return the page's submissions with their files and whether more follow
+     */
+    default Slice<PaymentSubmission> findSliceByFilters(
+            UUID studentId,
+            UUID portalId,
+            SubmissionStatus status,
+            LocalDate fromDate,
+            LocalDate toDate,
+            Integer month,
+            Integer year,
+            Pageable pageable
+    ) {
+        // One extra ID tells whether another page follows
+        List<UUID> ids = findIds(
+                SubmissionSpecifications.matching(studentId, portalId, status, fromDate, toDate, month, year),
+                SubmissionSpecifications.LIST_ORDER, pageable.getOffset(), pageable.getPageSize() + 1
+        );
+        boolean hasNext = ids.size() > pageable.getPageSize();
+        if (hasNext) {
+            ids = ids.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(findWithFilesByIdIn(ids), pageable, hasNext);
+    }
+    
+    /**
+     * Counts the submissions that {@link #findByFilters} pages through.
+     *
+     * @param studentId filter by student ID, null for no filtering
+     * @param portalId filter by portal ID, null for no filtering
+     * @param status filter by submission status, null for no filtering
+     * @param fromDate filter submissions from this date (inclusive), null for no filtering
+     * @param toDate filter submissions until this date (inclusive), null for no filtering
+     * @param month filter by portal's month (1-12), null for no filtering
+     * @param year filter by portal's year, null for no filtering
+     * @return the number of matching submissions
+     */
+    default long countByListFilters(
+            UUID studentId,
+            UUID portalId,
+            SubmissionStatus status,
+            LocalDate fromDate,
+            LocalDate toDate,
+            Integer month,
+            Integer year
+    ) {
+        return count(SubmissionSpecifications.matching(studentId, portalId, status, fromDate, toDate, month, year));
+    }
+    
+    /**
+     * Finds the submissions that follow a position in the {@link #findByFilters} order, without a count query.
+     * The position is compared on (submittedAt, id) so the query walks the
+     * {@code idx_payment_submissions_submitted_at_id} index from the cursor instead of skipping rows,
+     * and every page costs the same however deep it is.
+     *
+     * @param studentId filter by student ID, null for no filtering
+     * @param portalId filter by portal ID, null for no filtering
+     * @param status filter by submission status, null for no filtering
+     * @param fromDate filter submissions from this date (inclusive), null for no filtering
+     * @param toDate filter submissions until this date (inclusive), null for no filtering
+     * @param month filter by portal's month (1-12), null for no filtering
+     * @param year filter by portal's year, null for no filtering
+     * @param afterSubmittedAt the submission time of the last submission already returned
+     * @param afterId the ID of the last submission already returned
+     * @param pageable the number of submissions to return; the page number must be 0
+     * @return the following submissions with their files, newest first
      */
-    @Query("SELECT p FROM PaymentSubmission p WHERE " +
-           "(:studentId IS NULL OR p.studentId = :studentId) AND " +
-           "(:portalId IS NULL OR p.portal.id = :portalId) AND " +
-           "(:status IS NULL OR p.status = :status) AND " +
-           "(:month IS NULL OR p.portal.month = :month) AND " +
-           "(:year IS NULL OR p.portal.year = :year) " +
-           "ORDER BY p.submittedAt DESC")
-    Page<PaymentSubmission> findByFilters(
-            @Param("studentId") UUID studentId,
-            @Param("portalId") UUID portalId,
-            @Param("status") SubmissionStatus status,
-            @Param("month") Integer month,
-            @Param("year") Integer year,
+    default List<PaymentSubmission> findByFiltersAfter(
+            UUID studentId,
+            UUID portalId,
+            SubmissionStatus status,
+            LocalDate fromDate,
+            LocalDate toDate,
+            Integer month,
+            Integer year,
+            LocalDateTime afterSubmittedAt,
+            UUID afterId,
             Pageable pageable
-    );
+    ) {
+        Specification<PaymentSubmission> filters = SubmissionSpecifications
+                .matching(studentId, portalId, status, fromDate, toDate, month, year)
+                .and(SubmissionSpecifications.after(afterSubmittedAt, afterId));
+        return findWithFilesByIdIn(findIds(filters, SubmissionSpecifications.LIST_ORDER, 0, pageable.getPageSize()));
+    }
+    
+    /**
+     * Counts submissions matching the data sheet export filters. Like the list queries, only the supplied
+     * filters are added (see {@link SubmissionSpecifications}), and the portal is joined only for month or year.
+     *
+     * @param status filter by submission status, null for no filtering
+     * @param month filter by portal's month (1-12), null for no filtering
+     * @param year filter by portal's year, null for no filtering
+     * @return the number of matching submissions
+     */
+    default long countByFilters(SubmissionStatus status, Integer month, Integer year) {
+        return count(SubmissionSpecifications.matching(null, null, status, null, null, month, year));
+    }
     
     /**
      * Finds submissions by a list of submission IDs.
+     * The IDs are queried in {@link IdBatchLoader} batches, so the list may be arbitrarily long.
      *
      * @param submissionIds list of submission UUIDs
-     * @return list of submissions with matching IDs
+     * @return list of submissions with matching IDs, in the order of {@code submissionIds}
+     */
+    default List<PaymentSubmission> findByIdIn(List<UUID> submissionIds) {
+        return IdBatchLoader.loadInOrder(submissionIds, this::findAllById, PaymentSubmission::getId);
+    }
+    
+    /**
+     * Finds submissions by ID together with their uploaded files, one query per {@link IdBatchLoader} batch.
+     * A list page never exceeds one batch, so it is loaded with a single statement whatever its size.
+     *
+     * @param submissionIds list of submission UUIDs
+     * @return list of submissions with matching IDs and their files initialized, in the order of {@code submissionIds}
+     */
+    default List<PaymentSubmission> findWithFilesByIdIn(List<UUID> submissionIds) {
+        return IdBatchLoader.loadInOrder(submissionIds, this::findAllWithFilesById, PaymentSubmission::getId);
+    }
+    
+    /**
+     * Loads one batch of submissions with their uploaded files fetch-joined.
+     * Use {@link #findWithFilesByIdIn}, which batches and orders the IDs.
+     *
+     * @param submissionIds the IDs of one batch
+     * @return the matching submissions, each once, in no particular order
      */
-    List<PaymentSubmission> findByIdIn(List<UUID> submissionIds);
+    @Query("SELECT p FROM PaymentSubmission p LEFT JOIN FETCH p.uploadedFiles WHERE p.id IN :ids")
+    List<PaymentSubmission> findAllWithFilesById(@Param("ids") Collection<UUID> submissionIds);
     
 }
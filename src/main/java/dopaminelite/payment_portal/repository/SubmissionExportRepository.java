@@ -0,0 +1,48 @@
+package dopaminelite.payment_portal.repository;
+
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
+import dopaminelite.payment_portal.entity.enums.SubmissionStatus;
+import dopaminelite.payment_portal.service.export.ExportColumn;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Read queries for data sheet exports.
+ * Rows are projected straight from the database, so no entities are hydrated and lazy
+ * associations are never touched while rendering.
+ */
+public interface SubmissionExportRepository {
+    
+    /**
+     * Streams export rows through a forward-only database cursor, newest first.
+     * Only the fields needed by the given columns are selected. File counts and names are
+     * aggregated in the same statement. The caller must consume the stream inside a
+     * transaction and close it when done.
+     * <p>
+     * Rows selected by ID are loaded in {@link IdBatchLoader} batches and returned in the order
+     * of {@code submissionIds} instead.
+     * <p>
+     * When {@code groupByPortal} is set, filtered rows are ordered by portal first, so the rows of
+     * each portal are contiguous. Rows selected by ID keep the caller's order.
+     *
+     * @param submissionIds specific submissions to export, null or empty to use the other filters
+     * @param status filter by submission status, null for no filtering
+     * @param month filter by portal's month (1-12), null for no filtering
+     * @param year filter by portal's year, null for no filtering
+     * @param columns the columns that will be rendered
+     * @param groupByPortal whether filtered rows are grouped by portal
+     * @return a stream of rows matching the criteria
+     */
+    Stream<SubmissionExportRow> streamExportRows(
+            List<UUID> submissionIds,
+            SubmissionStatus status,
+            Integer month,
+            Integer year,
+            Set<ExportColumn> columns,
+            boolean groupByPortal
+    );
+    
+}
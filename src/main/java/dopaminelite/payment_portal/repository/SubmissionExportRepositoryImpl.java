@@ -0,0 +1,138 @@
+package dopaminelite.payment_portal.repository;
+
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
+import dopaminelite.payment_portal.entity.enums.SubmissionStatus;
+import dopaminelite.payment_portal.service.export.ExportColumn;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * JPQL implementation of {@link SubmissionExportRepository}.
+ * The select list and the WHERE clause are assembled per export, so unused columns are not
+ * read and absent filters do not add predicates or a join to the portal table.
+ */
+class SubmissionExportRepositoryImpl implements SubmissionExportRepository {
+    
+    private static final int FETCH_SIZE = 500;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public Stream<SubmissionExportRow> streamExportRows(
+            List<UUID> submissionIds,
+            SubmissionStatus status,
+            Integer month,
+            Integer year,
+            Set<ExportColumn> columns,
+            boolean groupByPortal
+    ) {
+        StringBuilder jpql = new StringBuilder("SELECT p.id AS id");
+        for (ExportColumn column : columns) {
+            String expression = selectExpression(column);
+            if (expression != null) {
+                jpql.append(", ").append(expression).append(" AS ").append(column.name());
+            }
+        }
+        jpql.append(" FROM PaymentSubmission p");
+        
+        boolean byIds = submissionIds != null && !submissionIds.isEmpty();
+        if (byIds) {
+            // Selected rows come back in the order the caller listed them, one padded batch at a time
+            String byIdsJpql = jpql.append(" WHERE p.id IN :ids").toString();
+            return IdBatchLoader.streamInOrder(submissionIds,
+                    batch -> createQuery(byIdsJpql)
+                            .setParameter("ids", batch)
+                            .getResultStream()
+                            .map(tuple -> toRow(tuple, columns))
+                            .toList(),
+                    SubmissionExportRow::getId);
+        }
+        
+        List<String> predicates = new ArrayList<>();
+        if (status != null) {
+            predicates.add("p.status = :status");
+        }
+        if (month != null) {
+            predicates.add("p.portal.month = :month");
+        }
+        if (year != null) {
+            predicates.add("p.portal.year = :year");
+        }
+        if (!predicates.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", predicates));
+        }
+        // The portal's id is the submission's foreign key, so grouping adds no join
+        jpql.append(groupByPortal ? " ORDER BY p.portal.id, p.submittedAt DESC" : " ORDER BY p.submittedAt DESC");
+        
+        TypedQuery<Tuple> query = createQuery(jpql.toString());
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        if (month != null) {
+            query.setParameter("month", month);
+        }
+        if (year != null) {
+            query.setParameter("year", year);
+        }
+        
+        return query.getResultStream().map(tuple -> toRow(tuple, columns));
+    }
+    
+    private TypedQuery<Tuple> createQuery(String jpql) {
+        return entityManager.createQuery(jpql, Tuple.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+    }
+    
+    /**
+     * Returns the JPQL select expression for a column, or null if it is covered by the id that is
+     * always selected. File details are correlated subqueries so each submission stays one result row.
+     */
+    private String selectExpression(ExportColumn column) {
+        return switch (column) {
+            case ID -> null;
+            case STUDENT_ID -> "p.studentId";
+            case PORTAL_ID -> "p.portal.id";
+            case PORTAL_NAME -> "p.portalNameAtSubmission";
+            case STATUS -> "p.status";
+            case REJECTION_REASON -> "p.rejectionReason";
+            case SUBMITTED_AT -> "p.submittedAt";
+            case LAST_UPDATED_AT -> "p.lastUpdatedAt";
+            case FILE_COUNT -> "(SELECT COUNT(f) FROM UploadedFile f WHERE f.submission = p)";
+            case FILES -> "(SELECT LISTAGG(f.fileName, '; ') WITHIN GROUP (ORDER BY f.fileName) "
+                    + "FROM UploadedFile f WHERE f.submission = p)";
+        };
+    }
+    
+    private SubmissionExportRow toRow(Tuple tuple, Set<ExportColumn> columns) {
+        SubmissionExportRow row = new SubmissionExportRow();
+        row.setId(tuple.get("id", UUID.class));
+        for (ExportColumn column : columns) {
+            switch (column) {
+                case ID -> { }
+                case STUDENT_ID -> row.setStudentId(tuple.get(column.name(), UUID.class));
+                case PORTAL_ID -> row.setPortalId(tuple.get(column.name(), UUID.class));
+                case PORTAL_NAME -> row.setPortalName(tuple.get(column.name(), String.class));
+                case STATUS -> row.setStatus(tuple.get(column.name(), SubmissionStatus.class));
+                case REJECTION_REASON -> row.setRejectionReason(tuple.get(column.name(), String.class));
+                case SUBMITTED_AT -> row.setSubmittedAt(tuple.get(column.name(), LocalDateTime.class));
+                case LAST_UPDATED_AT -> row.setLastUpdatedAt(tuple.get(column.name(), LocalDateTime.class));
+                case FILE_COUNT -> row.setFileCount(tuple.get(column.name(), Long.class));
+                case FILES -> row.setFileNames(tuple.get(column.name(), String.class));
+            }
+        }
+        return row;
+    }
+    
+}
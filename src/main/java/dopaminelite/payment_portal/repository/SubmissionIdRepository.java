@@ -0,0 +1,30 @@
+package dopaminelite.payment_portal.repository;
+
+import dopaminelite.payment_portal.entity.PaymentSubmission;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * First phase of a submission list page: the IDs of the page's rows, in list order.
+ * {@code JpaSpecificationExecutor} cannot select a single column, and its fluent API can limit but
+ * not skip rows. The rows themselves are then loaded with their files by
+ * {@link PaymentSubmissionRepository#findWithFilesByIdIn}, since fetch-joining a collection in the
+ * paged query would make Hibernate page in memory.
+ */
+public interface SubmissionIdRepository {
+    
+    /**
+     * Finds the IDs of one page of submissions without counting the total.
+     *
+     * @param specification the filters, null for all submissions
+     * @param sort the order of the page
+     * @param offset the number of rows to skip
+     * @param limit the maximum number of IDs to return
+     * @return the IDs in the given order
+     */
+    List<UUID> findIds(Specification<PaymentSubmission> specification, Sort sort, long offset, int limit);
+    
+}
@@ -0,0 +1,44 @@
+package dopaminelite.payment_portal.repository;
+
+import dopaminelite.payment_portal.entity.PaymentSubmission;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Criteria implementation of {@link SubmissionIdRepository}.
+ */
+class SubmissionIdRepositoryImpl implements SubmissionIdRepository {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public List<UUID> findIds(Specification<PaymentSubmission> specification, Sort sort, long offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UUID> query = cb.createQuery(UUID.class);
+        Root<PaymentSubmission> root = query.from(PaymentSubmission.class);
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        query.select(root.get("id")).orderBy(QueryUtils.toOrders(sort, root, cb));
+        
+        return entityManager.createQuery(query)
+                .setFirstResult((int) offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+    
+}
@@ -0,0 +1,133 @@
+package dopaminelite.payment_portal.repository;
+
+import dopaminelite.payment_portal.entity.PaymentPortal;
+import dopaminelite.payment_portal.entity.PaymentSubmission;
+import dopaminelite.payment_portal.entity.enums.SubmissionStatus;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Criteria for the submission list, built from the filters a request actually supplies.
+ *
+ * <p>Each filter becomes its own predicate only when it is given, so the generated SQL contains no
+ * {@code (? IS NULL OR ...)} terms and the database plans every filter shape separately, with the
+ * index that fits it. Values are always bound as parameters, so each shape produces one SQL string
+ * and its plan is reused: Hibernate caches the translation (see {@code hibernate.criteria.plan_cache_enabled})
+ * and the JDBC driver the prepared statement. The portal is joined only to filter by month or year;
+ * a portal ID is compared on the submission's own foreign key.
+ *
+ * <p>A date range is a bare range on {@code submitted_at}, the leading column of
+ * {@code idx_payment_submissions_submitted_at_id}. The range and the list order are both served by
+ * that index, so a recent window such as the last seven days reads only its own index entries, and
+ * its count needs nothing but the index.
+ */
+public final class SubmissionSpecifications {
+    
+    /**
+     * Order of the submission list: newest first, ties broken by ID so every row has a fixed position.
+     */
+    public static final Sort LIST_ORDER = Sort.by(Sort.Direction.DESC, "submittedAt", "id");
+    
+    private SubmissionSpecifications() {
+    }
+    
+    /**
+     * Combines the supplied filters. A null filter is left out of the query entirely.
+     *
+     * @param studentId filter by student ID, null for no filtering
+     * @param portalId filter by portal ID, null for no filtering
+     * @param status filter by submission status, null for no filtering
+     * @param fromDate filter submissions from this date (inclusive), null for no filtering
+     * @param toDate filter submissions until this date (inclusive), null for no filtering
+     * @param month filter by portal's month (1-12), null for no filtering
+     * @param year filter by portal's year, null for no filtering
+     * @return a specification with one predicate per supplied filter
+     */
+    public static Specification<PaymentSubmission> matching(UUID studentId, UUID portalId, SubmissionStatus status,
+                                                            LocalDate fromDate, LocalDate toDate,
+                                                            Integer month, Integer year) {
+        List<Specification<PaymentSubmission>> filters = new ArrayList<>();
+        if (studentId != null) {
+            filters.add(hasStudentId(studentId));
+        }
+        if (portalId != null) {
+            filters.add(inPortal(portalId));
+        }
+        if (status != null) {
+            filters.add(hasStatus(status));
+        }
+        if (fromDate != null) {
+            filters.add(submittedFrom(fromDate));
+        }
+        if (toDate != null) {
+            filters.add(submittedUntil(toDate));
+        }
+        if (month != null || year != null) {
+            filters.add(inPortalPeriod(month, year));
+        }
+        return Specification.allOf(filters);
+    }
+    
+    /**
+     * Restricts the list to the submissions after a position in {@link #LIST_ORDER}. The redundant
+     * {@code submittedAt <= :submittedAt} term gives the planner an index range bound, which the
+     * OR alone does not.
+     *
+     * @param submittedAt the submission time of the last submission already returned
+     * @param id the ID of the last submission already returned
+     * @return a specification for the submissions that follow the position
+     */
+    public static Specification<PaymentSubmission> after(LocalDateTime submittedAt, UUID id) {
+        return (root, query, cb) -> cb.and(
+                cb.lessThanOrEqualTo(root.get("submittedAt"), submittedAt),
+                cb.or(
+                        cb.lessThan(root.get("submittedAt"), submittedAt),
+                        cb.lessThan(root.<UUID>get("id"), id)));
+    }
+    
+    static Specification<PaymentSubmission> hasStudentId(UUID studentId) {
+        return (root, query, cb) -> cb.equal(root.get("studentId"), studentId);
+    }
+    
+    static Specification<PaymentSubmission> inPortal(UUID portalId) {
+        // The portal's ID is the submission's foreign key, so no join is needed
+        return (root, query, cb) -> cb.equal(root.get("portal").get("id"), portalId);
+    }
+    
+    static Specification<PaymentSubmission> hasStatus(SubmissionStatus status) {
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+    
+    static Specification<PaymentSubmission> submittedFrom(LocalDate fromDate) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("submittedAt"), fromDate.atStartOfDay());
+    }
+    
+    static Specification<PaymentSubmission> submittedUntil(LocalDate toDate) {
+        // Half-open at the start of the next day, so the whole of toDate is included at any precision
+        return (root, query, cb) -> cb.lessThan(root.get("submittedAt"), toDate.plusDays(1).atStartOfDay());
+    }
+    
+    static Specification<PaymentSubmission> inPortalPeriod(Integer month, Integer year) {
+        return (root, query, cb) -> {
+            // One join shared by both predicates
+            Join<PaymentSubmission, PaymentPortal> portal = root.join("portal");
+            List<Predicate> predicates = new ArrayList<>(2);
+            if (month != null) {
+                predicates.add(cb.equal(portal.get("month"), month));
+            }
+            if (year != null) {
+                predicates.add(cb.equal(portal.get("year"), year));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+    
+}
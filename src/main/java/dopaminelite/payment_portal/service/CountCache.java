@@ -0,0 +1,73 @@
+package dopaminelite.payment_portal.service;
+
+import dopaminelite.payment_portal.config.ListingProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Totals for the {@code CACHED} count mode of the list endpoints.
+ *
+ * <p>This is a cache of exact counts, not an estimate: a total is counted exactly the first time a
+ * list is requested with a set of filters and then reused until it expires, so paging through a list,
+ * or many clients polling the same view, costs one count per period instead of one per request.
+ * Changes made in the meantime are not reflected until the entry expires.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CountCache {
+    
+    private final ListingProperties properties;
+    
+    private final Map<List<Object>, Entry> counts = new ConcurrentHashMap<>();
+    
+    private record Entry(long value, long expiresAtNanos) {
+    }
+    
+    /**
+     * Returns the cached total for a key, counting it if it is missing or expired.
+     *
+     * @param key the list and its filters; filters may be null
+     * @param exactCount counts the total exactly
+     * @return the total, at most one cache period old
+     */
+    public long count(List<Object> key, LongSupplier exactCount) {
+        long now = System.nanoTime();
+        Entry cached = counts.get(key);
+        if (cached != null && now - cached.expiresAtNanos() < 0) {
+            return cached.value();
+        }
+        
+        long value = exactCount.getAsLong();
+        Duration ttl = properties.getCachedCount().getTtl();
+        if (counts.size() >= properties.getCachedCount().getMaxEntries()) {
+            evict(now);
+        }
+        counts.put(key, new Entry(value, now + ttl.toNanos()));
+        log.debug("[SERVICE] Counted {} for cached total of {}", value, key);
+        return value;
+    }
+    
+    /**
+     * Drops every cached total.
+     */
+    public void clear() {
+        counts.clear();
+    }
+    
+    private void evict(long now) {
+        counts.values().removeIf(cached -> now - cached.expiresAtNanos() >= 0);
+        if (counts.size() >= properties.getCachedCount().getMaxEntries()) {
+            // All current, so the set of filters in use is wider than the cache; start over
+            counts.clear();
+        }
+    }
+    
+}
@@ -1,245 +1,360 @@
 package dopaminelite.payment_portal.service;
 
-import com.lowagie.text.*;
-import com.lowagie.text.pdf.PdfPCell;
-import com.lowagie.text.pdf.PdfPTable;
-import com.lowagie.text.pdf.PdfWriter;
-import dopaminelite.payment_portal.entity.PaymentSubmission;
-import dopaminelite.payment_portal.entity.UploadedFile;
+import dopaminelite.payment_portal.config.DataSheetExportProperties;
+import dopaminelite.payment_portal.dto.export.DataSheetExportRequest;
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
 import dopaminelite.payment_portal.entity.enums.DataSheetType;
+import dopaminelite.payment_portal.entity.enums.ExportCompression;
 import dopaminelite.payment_portal.entity.enums.ExportFormat;
+import dopaminelite.payment_portal.entity.enums.ExportSplit;
 import dopaminelite.payment_portal.entity.enums.SubmissionStatus;
+import dopaminelite.payment_portal.exception.ValidationException;
 import dopaminelite.payment_portal.repository.PaymentSubmissionRepository;
+import dopaminelite.payment_portal.service.export.ColumnPlan;
+import dopaminelite.payment_portal.service.export.CountingOutputStream;
+import dopaminelite.payment_portal.service.export.CsvDataSheetWriter;
+import dopaminelite.payment_portal.service.export.ExportColumn;
+import dopaminelite.payment_portal.service.export.ExportMetrics;
+import dopaminelite.payment_portal.service.export.ExportParts;
+import dopaminelite.payment_portal.service.export.ExportProgress;
+import dopaminelite.payment_portal.service.export.ExportRowReader;
+import dopaminelite.payment_portal.service.export.ExportStats;
+import dopaminelite.payment_portal.service.export.NdjsonDataSheetWriter;
+import dopaminelite.payment_portal.service.export.PdfDataSheetWriter;
+import dopaminelite.payment_portal.service.export.PrerenderedDataSheetStore;
+import dopaminelite.payment_portal.service.export.SpooledRows;
+import dopaminelite.payment_portal.service.export.XlsxDataSheetWriter;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.io.ByteArrayOutputStream;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.List;
-import java.util.UUID;
-import java.util.stream.Collectors;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 /**
  * Service for exporting payment submission data sheets in various formats.
- * Supports CSV, XLSX, and PDF export with flexible filtering and column selection.
+ * Supports CSV, XLSX, PDF and NDJSON export with flexible filtering and column selection.
+ * Rows are read from a database cursor as flat projections, without loading submission entities or
+ * their files. The rows are read ahead of rendering, so each export holds a database connection only
+ * while fetching and releases it before the CPU-heavy rendering starts. Large CSV and NDJSON
+ * exports are encoded in parallel once they pass the configured row threshold. Standard data sheets
+ * of closed months are copied from their pre-rendered files when available. Large exports can be
+ * split into parts that are streamed as one ZIP archive.
  */
 @Service
 @RequiredArgsConstructor
-@Transactional(readOnly = true)
 public class DataSheetService {
     
+    /**
+     * Deflater input buffer size; large enough that the compressor is not called per row.
+     */
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    
     private final PaymentSubmissionRepository submissionRepository;
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-    private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private final CsvDataSheetWriter csvWriter;
+    private final XlsxDataSheetWriter xlsxWriter;
+    private final PdfDataSheetWriter pdfWriter;
+    private final NdjsonDataSheetWriter ndjsonWriter;
+    private final PrerenderedDataSheetStore prerenderedStore;
+    private final ExportRowReader rowReader;
+    private final DataSheetExportProperties properties;
+    private final ExportMetrics exportMetrics;
     
     /**
      * Exports payment submissions as a data sheet in the specified format.
+     * Buffers the whole file in memory; prefer {@link #writeDataSheet} for large exports.
      *
-     * @param type the type of submissions to export (APPROVED, REJECTED, PENDING, ALL)
-     * @param format the export format (CSV, XLSX, PDF)
-     * @param month filter by month (1-12), null for no filtering
-     * @param year filter by year, null for no filtering
-     * @param columns specific columns to include, null or empty for default columns
-     * @param submissionIds specific submission IDs to export, overrides other filters if provided
+     * @param request the export filters, columns and format
      * @return the exported data as a byte array
+     * @throws ValidationException if any requested column is unknown
      */
-    public byte[] exportDataSheet(
-            DataSheetType type,
-            ExportFormat format,
-            Integer month,
-            Integer year,
-            List<String> columns,
-            List<UUID> submissionIds
-    ) {
-        List<PaymentSubmission> submissions = fetchSubmissions(type, month, year, submissionIds);
-        
-        return switch (format) {
-            case CSV -> generateCsv(submissions, columns);
-            case XLSX -> generateXlsx(submissions, columns);
-            case PDF -> generatePdf(submissions, columns);
-        };
+    public byte[] exportDataSheet(DataSheetExportRequest request) {
+        ColumnPlan columns = ColumnPlan.compile(request.getColumns());
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try {
+            writeDataSheet(request, columns, baos, ExportProgress.NONE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to export data sheet", e);
+        }
+        return baos.toByteArray();
     }
     
-    private List<PaymentSubmission> fetchSubmissions(
-            DataSheetType type,
-            Integer month,
-            Integer year,
-            List<UUID> submissionIds
-    ) {
-        // If specific submission IDs provided, fetch those
-        if (submissionIds != null && !submissionIds.isEmpty()) {
-            return submissionRepository.findAllById(submissionIds);
+    /**
+     * Streams payment submissions as a data sheet in the requested format to an output stream.
+     * If a pre-rendered data sheet answers the request it is copied without querying the database;
+     * otherwise the export is rendered as described in {@link #renderDataSheet}.
+     * The output stream is flushed but not closed.
+     *
+     * @param request the export filters, format and compression
+     * @param columns the columns to render, compiled from the request with {@link ColumnPlan#compile}
+     * @param out the destination stream
+     * @param progress listener notified as rows are read, not called for pre-rendered data sheets
+     * @throws IOException if writing to the stream fails
+     */
+    public void writeDataSheet(DataSheetExportRequest request, ColumnPlan columns, OutputStream out,
+                               ExportProgress progress) throws IOException {
+        Optional<InputStream> prerendered = openPrerendered(request);
+        if (prerendered.isEmpty()) {
+            renderDataSheet(request, columns, out, progress);
+            return;
         }
-        
-        // Otherwise filter by type and optionally month/year
-        SubmissionStatus status = mapTypeToStatus(type);
-
-        return submissionRepository.findByFilters(null, null, status, month, year, Pageable.unpaged())
-                .getContent();
+        writePrerendered(request, prerendered.get(), out);
     }
     
-    private SubmissionStatus mapTypeToStatus(DataSheetType type) {
-        return switch (type) {
-            case APPROVED -> SubmissionStatus.APPROVED;
-            case REJECTED -> SubmissionStatus.REJECTED;
-            case PENDING -> SubmissionStatus.PENDING;
-            case ALL -> null;
-        };
+    /**
+     * Opens the pre-rendered data sheet that answers the request, if there is one.
+     * Callers that need to know whether an export will be rendered before writing it, such as
+     * admission control, open the sheet first and write it with {@link #writePrerendered}.
+     *
+     * @param request the export filters and format
+     * @return the opened sheet, which the caller must close, or empty if the request must be rendered
+     * @throws IOException if the sheet cannot be opened
+     */
+    public Optional<InputStream> openPrerendered(DataSheetExportRequest request) throws IOException {
+        return prerenderedStore.open(request);
     }
     
-    private byte[] generateCsv(List<PaymentSubmission> submissions, List<String> columns) {
-        List<String> selectedColumns = (columns != null && !columns.isEmpty()) 
-                ? columns 
-                : getDefaultColumns();
-        
-        StringBuilder csv = new StringBuilder();
-        
-        // Header
-        csv.append(String.join(",", selectedColumns)).append("\n");
-        
-        // Data rows
-        for (PaymentSubmission submission : submissions) {
-            csv.append(selectedColumns.stream()
-                    .map(col -> getCellValue(submission, col))
-                    .map(this::escapeCsv)
-                    .collect(Collectors.joining(",")))
-                    .append("\n");
+    /**
+     * Copies a pre-rendered data sheet to an output stream, gzip-compressing it if the request asks for it.
+     * The sheet is closed; the output stream is flushed but not closed.
+     *
+     * @param request the export the sheet was opened for
+     * @param sheet the sheet returned by {@link #openPrerendered}
+     * @param out the destination stream
+     * @throws IOException if reading the sheet or writing to the stream fails
+     */
+    public void writePrerendered(DataSheetExportRequest request, InputStream sheet, OutputStream out)
+            throws IOException {
+        try (sheet) {
+            OutputStream target = request.getCompression() == ExportCompression.GZIP
+                    ? new GZIPOutputStream(out, GZIP_BUFFER_SIZE)
+                    : out;
+            sheet.transferTo(target);
+            if (target instanceof GZIPOutputStream gzip) {
+                gzip.finish();
+            }
+            out.flush();
+        }
+    }
+    
+    /**
+     * Renders payment submissions as a data sheet in the requested format to an output stream.
+     * Submissions are fetched through a database cursor ahead of rendering, spilling to disk beyond the
+     * configured number of rows, so memory use stays flat and the connection is released before rendering.
+     * When the request asks for gzip compression the writer's output is compressed as it is produced.
+     * Timings and sizes of each phase are published through {@link ExportMetrics}, and the duration
+     * and outcome of every export, including ones that fail or whose client goes away.
+     * The output stream is flushed but not closed.
+     *
+     * @param request the export filters, format and compression
+     * @param columns the columns to render, compiled from the request with {@link ColumnPlan#compile}
+     * @param out the destination stream
+     * @param progress listener notified as rows are read
+     * @throws IOException if writing to the stream fails
+     */
+    public void renderDataSheet(DataSheetExportRequest request, ColumnPlan columns, OutputStream out,
+                                ExportProgress progress) throws IOException {
+        ExportStats stats = new ExportStats();
+        CountingOutputStream counted = new CountingOutputStream(out);
+        try {
+            if (request.getCompression() != ExportCompression.GZIP) {
+                writeFormat(request, columns, counted, progress, stats);
+            } else {
+                GZIPOutputStream gzip = new GZIPOutputStream(counted, GZIP_BUFFER_SIZE);
+                writeFormat(request, columns, gzip, progress, stats);
+                // Writes the trailer without closing the caller's stream
+                gzip.finish();
+                counted.flush();
+            }
+            stats.finished(counted.getCount());
+        } finally {
+            recordMetrics(request, stats, counted);
         }
-        
-        return csv.toString().getBytes();
     }
     
-    private byte[] generateXlsx(List<PaymentSubmission> submissions, List<String> columns) {
-        // Placeholder implementation - would use Apache POI
-        // For now, return CSV format as fallback
-        return generateCsv(submissions, columns);
+    /**
+     * Counts the submissions an export would contain, without rendering anything.
+     *
+     * @param request the export filters
+     * @return the number of rows the export will contain
+     */
+    public long countRows(DataSheetExportRequest request) {
+        if (request.getSubmissionIds() != null && !request.getSubmissionIds().isEmpty()) {
+            return request.getSubmissionIds().size();
+        }
+        return submissionRepository.countByFilters(
+                mapTypeToStatus(request.getType()), request.getMonth(), request.getYear()
+        );
     }
     
-    private byte[] generatePdf(List<PaymentSubmission> submissions, List<String> columns) {
-        List<String> selectedColumns = (columns != null && !columns.isEmpty()) 
-                ? columns 
-                : getDefaultColumns();
+    /**
+     * Streams payment submissions as a ZIP archive of data sheet parts, each a complete file in the
+     * requested format. All parts are read in one fetch and written straight into the archive as they
+     * are rendered, so no rendered part is held in memory or spooled to disk.
+     * <p>
+     * Parts split by rows hold at most {@code partRows} rows each, defaulting to the format's configured
+     * part size. Parts split by portal hold one portal's rows; exports selected by submission ID keep
+     * their order, so a portal whose submissions are interleaved with others gets several parts.
+     * The output stream is flushed but not closed.
+     *
+     * @param request the export filters and format; compression does not apply to the parts
+     * @param columns the columns to render, compiled from the request with {@link ColumnPlan#compile}
+     * @param split how to split the export, ROWS or PORTAL
+     * @param partRows the maximum number of rows per part when splitting by rows, null for the default
+     * @param baseName the file name shared by the parts, without extension
+     * @param out the destination stream
+     * @param progress listener notified as rows are read
+     * @throws ValidationException if the part size is not positive
+     * @throws IOException if writing to the stream fails
+     */
+    public void writeDataSheetParts(DataSheetExportRequest request, ColumnPlan columns, ExportSplit split,
+                                    Integer partRows, String baseName, OutputStream out,
+                                    ExportProgress progress) throws IOException {
+        long rowsPerPart = resolvePartRows(request.getFormat(), partRows);
+        boolean byPortal = split == ExportSplit.PORTAL;
+        Set<ExportColumn> selected = EnumSet.noneOf(ExportColumn.class);
+        selected.addAll(columns.columnSet());
+        if (byPortal) {
+            // Needed to find the part boundaries and name the parts even when the columns are not rendered
+            selected.add(ExportColumn.PORTAL_ID);
+            selected.add(ExportColumn.PORTAL_NAME);
+        }
         
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            Document document = new Document(PageSize.A4.rotate());
-            PdfWriter.getInstance(document, baos);
-            document.open();
-            
-            // Add title
-            Font titleFont = new Font(Font.HELVETICA, 18, Font.BOLD);
-            Paragraph title = new Paragraph("Payment Submissions Report", titleFont);
-            title.setAlignment(Element.ALIGN_CENTER);
-            title.setSpacingAfter(20);
-            document.add(title);
-            
-            // Add timestamp
-            Font infoFont = new Font(Font.HELVETICA, 10, Font.NORMAL, java.awt.Color.GRAY);
-            Paragraph timestamp = new Paragraph("Generated: " + LocalDate.now().format(DATE_FORMATTER), infoFont);
-            timestamp.setAlignment(Element.ALIGN_RIGHT);
-            timestamp.setSpacingAfter(10);
-            document.add(timestamp);
-            
-            // Create table
-            PdfPTable table = new PdfPTable(selectedColumns.size());
-            table.setWidthPercentage(100);
-            table.setSpacingBefore(10);
-            
-            // Add header row
-            Font headerFont = new Font(Font.HELVETICA, 10, Font.BOLD, java.awt.Color.WHITE);
-            for (String column : selectedColumns) {
-                PdfPCell headerCell = new PdfPCell(new Phrase(formatColumnName(column), headerFont));
-                headerCell.setBackgroundColor(new java.awt.Color(52, 73, 94));
-                headerCell.setPadding(8);
-                headerCell.setHorizontalAlignment(Element.ALIGN_CENTER);
-                table.addCell(headerCell);
-            }
-            
-            // Add data rows
-            Font cellFont = new Font(Font.HELVETICA, 9, Font.NORMAL);
-            for (PaymentSubmission submission : submissions) {
-                for (String column : selectedColumns) {
-                    PdfPCell cell = new PdfPCell(new Phrase(getCellValue(submission, column), cellFont));
-                    cell.setPadding(5);
-                    table.addCell(cell);
+        String extension = "." + request.getFormat().name().toLowerCase();
+        ExportStats stats = new ExportStats();
+        CountingOutputStream counted = new CountingOutputStream(out);
+        ZipOutputStream zip = new ZipOutputStream(counted, StandardCharsets.UTF_8);
+        // XLSX and PDF parts are deflated by their writers already; compressing them again only costs CPU
+        zip.setLevel(isCompressed(request.getFormat()) ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+        try {
+            try (SpooledRows fetched = fetchRows(request, selected, byPortal, progress, stats);
+                 Stream<SubmissionExportRow> rows = reportRendered(fetched.stream(), progress)) {
+                ExportParts parts = new ExportParts(rows.iterator(), split, rowsPerPart);
+                while (parts.hasNext()) {
+                    ExportParts.Part part = parts.next();
+                    String name = String.format("%s-part-%03d", baseName, part.getNumber());
+                    if (byPortal) {
+                        name += "-" + portalFileName(part);
+                    }
+                    zip.putNextEntry(new ZipEntry(name + extension));
+                    writeFormat(request.getFormat(), part.rows(), columns, zip);
+                    zip.closeEntry();
                 }
+                // Writes the central directory without closing the caller's stream
+                zip.finish();
+                counted.flush();
             }
-            
-            document.add(table);
-            
-            // Add footer
-            Paragraph footer = new Paragraph("Total Records: " + submissions.size(), infoFont);
-            footer.setSpacingBefore(10);
-            document.add(footer);
-            
-            document.close();
-            return baos.toByteArray();
-            
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to generate PDF", e);
+            stats.finished(counted.getCount());
+        } finally {
+            recordMetrics(request, stats, counted);
         }
     }
     
-    private String formatColumnName(String column) {
-        return switch (column.toLowerCase()) {
-            case "id" -> "ID";
-            case "studentid" -> "Student ID";
-            case "portalname", "portal" -> "Portal Name";
-            case "status" -> "Status";
-            case "submittedat" -> "Submitted At";
-            case "filecount" -> "File Count";
-            case "files" -> "Files";
-            case "rejectionreason" -> "Rejection Reason";
-            case "lastupdatedat" -> "Last Updated";
-            case "portalid" -> "Portal ID";
-            default -> column;
-        };
+    /**
+     * Publishes an export's metrics however it ended. An export that did not finish is aborted if
+     * writing to its destination failed, which is how a client going away shows up, and failed otherwise.
+     */
+    private void recordMetrics(DataSheetExportRequest request, ExportStats stats, CountingOutputStream counted) {
+        if (stats.getOutcome() == null) {
+            stats.failed(counted.getCount(), counted.isFailed());
+        }
+        exportMetrics.record(request, stats);
     }
     
-    private List<String> getDefaultColumns() {
-        return List.of(
-                "id",
-                "studentId",
-                "portalName",
-                "status",
-                "submittedAt",
-                "fileCount",
-                "rejectionReason"
-        );
+    private void writeFormat(DataSheetExportRequest request, ColumnPlan columns, OutputStream out,
+                             ExportProgress progress, ExportStats stats) throws IOException {
+        try (SpooledRows fetched = fetchRows(request, columns.columnSet(), false, progress, stats);
+             Stream<SubmissionExportRow> rows = reportRendered(fetched.stream(), progress)) {
+            writeFormat(request.getFormat(), rows, columns, out);
+        }
     }
     
-    private String getCellValue(PaymentSubmission submission, String column) {
-        return switch (column.toLowerCase()) {
-            case "id" -> submission.getId().toString();
-            case "studentid" -> submission.getStudentId().toString();
-            case "portalname" -> submission.getPortalNameAtSubmission();
-            case "portal" -> submission.getPortalNameAtSubmission();
-            case "status" -> submission.getStatus().name();
-            case "submittedat" -> submission.getSubmittedAt().format(DATETIME_FORMATTER);
-            case "filecount" -> String.valueOf(submission.getUploadedFiles().size());
-            case "files" -> submission.getUploadedFiles().stream()
-                    .map(UploadedFile::getFileName)
-                    .collect(Collectors.joining("; "));
-            case "rejectionreason" -> submission.getRejectionReason() != null ? submission.getRejectionReason() : "";
-            case "lastupdatedat" -> submission.getLastUpdatedAt().format(DATETIME_FORMATTER);
-            case "portalid" -> submission.getPortal().getId().toString();
-            default -> "";
-        };
+    /**
+     * Reports each row to the progress listener as the writer takes it. The writers consume the
+     * stream on the calling thread, even when they encode partitions in parallel.
+     */
+    private Stream<SubmissionExportRow> reportRendered(Stream<SubmissionExportRow> rows, ExportProgress progress) {
+        if (progress == ExportProgress.NONE) {
+            return rows;
+        }
+        long[] rendered = {0};
+        return rows.peek(row -> progress.onRowsRendered(++rendered[0]));
     }
     
-    private String escapeCsv(String value) {
-        if (value == null || value.isEmpty()) {
-            return "";
+    private void writeFormat(ExportFormat format, Stream<SubmissionExportRow> rows, ColumnPlan columns,
+                             OutputStream out) throws IOException {
+        switch (format) {
+            case CSV -> csvWriter.write(rows, columns, out);
+            case XLSX -> xlsxWriter.write(rows, columns, out);
+            case PDF -> pdfWriter.write(rows, columns, out);
+            case NDJSON -> ndjsonWriter.write(rows, columns, out);
         }
-        
-        // Escape quotes and wrap in quotes if contains comma, quote, or newline
-        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
-            return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+    
+    private long resolvePartRows(ExportFormat format, Integer partRows) {
+        if (partRows == null) {
+            return properties.getSplit().getPartRows().getOrDefault(format, Integer.MAX_VALUE);
         }
-        
-        return value;
+        if (partRows < 1) {
+            throw ValidationException.invalidExportSplit("partRows must be at least 1");
+        }
+        return partRows;
+    }
+    
+    private boolean isCompressed(ExportFormat format) {
+        return format == ExportFormat.XLSX || format == ExportFormat.PDF;
+    }
+    
+    /**
+     * Names a portal's part after the portal name read with its rows, reduced to characters that are
+     * safe in any archive tool.
+     */
+    private String portalFileName(ExportParts.Part part) {
+        if (part.getPortalId() == null) {
+            return "no-portal";
+        }
+        String name = part.getPortalName() != null ? part.getPortalName() : part.getPortalId().toString();
+        return name.replaceAll("[^A-Za-z0-9._-]+", "-");
+    }
+    
+    /**
+     * Reads all rows of an export in its own read-only transaction, which releases the connection on return.
+     */
+    private SpooledRows fetchRows(DataSheetExportRequest request, Set<ExportColumn> columns,
+                                  boolean groupByPortal, ExportProgress progress, ExportStats stats) throws IOException {
+        // Specific submission IDs take precedence over the type and month/year filters
+        SpooledRows rows = rowReader.read(
+                request.getSubmissionIds(),
+                mapTypeToStatus(request.getType()),
+                request.getMonth(),
+                request.getYear(),
+                columns,
+                groupByPortal,
+                progress,
+                stats
+        );
+        stats.fetched(rows);
+        return rows;
+    }
+    
+    private SubmissionStatus mapTypeToStatus(DataSheetType type) {
+        return switch (type) {
+            case APPROVED -> SubmissionStatus.APPROVED;
+            case REJECTED -> SubmissionStatus.REJECTED;
+            case PENDING -> SubmissionStatus.PENDING;
+            case ALL -> null;
+        };
     }
     
 }
@@ -0,0 +1,203 @@
+package dopaminelite.payment_portal.service;
+
+import dopaminelite.payment_portal.config.DataSheetExportProperties;
+import dopaminelite.payment_portal.dto.export.DataSheetExportRequest;
+import dopaminelite.payment_portal.entity.enums.ExportCompression;
+import dopaminelite.payment_portal.entity.enums.ExportJobStatus;
+import dopaminelite.payment_portal.exception.ExportNotReadyException;
+import dopaminelite.payment_portal.exception.ExportRejectedException;
+import dopaminelite.payment_portal.exception.ResourceNotFoundException;
+import dopaminelite.payment_portal.service.export.ColumnPlan;
+import dopaminelite.payment_portal.service.export.ExportAdmission;
+import dopaminelite.payment_portal.service.export.ExportFileStore;
+import dopaminelite.payment_portal.service.export.ExportJob;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service for running data sheet exports as asynchronous jobs.
+ * Jobs are rendered on a bounded worker pool into the local export file store,
+ * once the job holds export slots for its format and size, then kept for a configurable time so clients can poll their progress and download the result.
+ */
+@Slf4j
+@Service
+public class ExportJobService {
+    
+    private static final String FILE_PREFIX = "job-";
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+    
+    private final DataSheetService dataSheetService;
+    private final ExportFileStore fileStore;
+    private final ExportAdmission exportAdmission;
+    private final DataSheetExportProperties.Jobs settings;
+    private final Path spoolDirectory;
+    private final ThreadPoolExecutor executor;
+    private final Map<UUID, ExportJob> jobs = new ConcurrentHashMap<>();
+    
+    public ExportJobService(DataSheetService dataSheetService, ExportFileStore fileStore,
+                            ExportAdmission exportAdmission, DataSheetExportProperties properties) {
+        this.dataSheetService = dataSheetService;
+        this.fileStore = fileStore;
+        this.exportAdmission = exportAdmission;
+        this.settings = properties.getJobs();
+        this.spoolDirectory = properties.getSpoolDirectory();
+        
+        // Not a Spring bean on purpose: a user-defined Executor bean would replace the MVC async executor
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                settings.getWorkerThreads(),
+                settings.getWorkerThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(settings.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "data-sheet-export-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+    
+    /**
+     * Queues a new export job.
+     *
+     * @param request the export filters, columns and format
+     * @return the queued job
+     * @throws ValidationException if any requested column is unknown
+     * @throws ExportRejectedException if the job queue is full
+     */
+    public ExportJob submit(DataSheetExportRequest request) {
+        // Reject bad column lists now rather than as a failed job later
+        ExportJob job = new ExportJob(UUID.randomUUID(), request, ColumnPlan.compile(request.getColumns()));
+        jobs.put(job.getId(), job);
+        
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw ExportRejectedException.jobQueueFull(settings.getQueueCapacity());
+        }
+        
+        log.info("[EXPORT] Queued export job {} - type: {}, format: {}, month: {}, year: {}",
+                job.getId(), request.getType(), request.getFormat(), request.getMonth(), request.getYear());
+        return job;
+    }
+    
+    /**
+     * Retrieves an export job by its ID.
+     *
+     * @param jobId the job ID
+     * @return the job
+     * @throws ResourceNotFoundException if no job exists with the given ID or it has expired
+     */
+    public ExportJob getJob(UUID jobId) {
+        ExportJob job = jobs.get(jobId);
+        if (job == null || job.isExpired(LocalDateTime.now())) {
+            throw new ResourceNotFoundException("Export job not found with id: " + jobId);
+        }
+        return job;
+    }
+    
+    /**
+     * Returns the finished file of an export job.
+     *
+     * @param jobId the job ID
+     * @return the path of the spooled export file
+     * @throws ResourceNotFoundException if no job exists with the given ID or it has expired
+     * @throws ExportNotReadyException if the job has not completed successfully
+     */
+    public Path getResultFile(UUID jobId) {
+        ExportJob job = getJob(jobId);
+        if (job.getStatus() != ExportJobStatus.COMPLETED) {
+            throw ExportNotReadyException.forJob(jobId, job.getStatus());
+        }
+        return job.getFile();
+    }
+    
+    /**
+     * Removes expired jobs and deletes their files.
+     */
+    @Scheduled(fixedDelayString = "${data-sheet.export.jobs.cleanup-interval:PT5M}")
+    public void purgeExpiredJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        jobs.values().removeIf(job -> {
+            if (!job.isExpired(now)) {
+                return false;
+            }
+            if (job.getFile() != null) {
+                fileStore.delete(job.getFile());
+            }
+            log.debug("[EXPORT] Purged expired export job {}", job.getId());
+            return true;
+        });
+    }
+    
+    /**
+     * Jobs are only tracked in memory, so result files from a previous run can no longer be
+     * downloaded or purged and are removed on startup.
+     */
+    @PostConstruct
+    void removeLeftoverFiles() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spoolDirectory, FILE_PREFIX + "*")) {
+            files.forEach(fileStore::delete);
+        } catch (IOException e) {
+            log.warn("[EXPORT] Could not clean up export job files", e);
+        }
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    private void run(ExportJob job) {
+        DataSheetExportRequest request = job.getRequest();
+        String fileName = FILE_PREFIX + job.getId() + "." + request.getFormat().name().toLowerCase()
+                + (request.getCompression() == ExportCompression.GZIP ? ".gz" : "");
+        Path partial = fileStore.partial(fileName);
+        long startTime = System.currentTimeMillis();
+        
+        try {
+            long totalRows = dataSheetService.countRows(request);
+            // Jobs share the interactive export slots, so the job stays queued until it is admitted
+            try (ExportAdmission.Permit permit = exportAdmission.await(request.getFormat(), totalRows);
+                 OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial), OUTPUT_BUFFER_SIZE)) {
+                job.markRunning(totalRows);
+                dataSheetService.writeDataSheet(request, job.getColumns(), out, job);
+            }
+            
+            Path file = fileStore.publish(fileName);
+            job.markCompleted(file, Files.size(file), LocalDateTime.now().plus(settings.getResultTtl()));
+            log.info("[EXPORT] Export job {} completed in {}ms - rows: {}, bytes: {}",
+                    job.getId(), System.currentTimeMillis() - startTime, job.getRowsWritten(), job.getFileSize());
+        
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            fileStore.delete(partial);
+            job.markFailed("Export failed: " + e.getClass().getSimpleName(), LocalDateTime.now().plus(settings.getResultTtl()));
+            log.error("[EXPORT] Export job {} failed after {}ms", job.getId(), System.currentTimeMillis() - startTime, e);
+        }
+    }
+    
+}
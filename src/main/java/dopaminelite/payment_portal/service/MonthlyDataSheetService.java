@@ -0,0 +1,133 @@
+package dopaminelite.payment_portal.service;
+
+import dopaminelite.payment_portal.config.DataSheetExportProperties;
+import dopaminelite.payment_portal.repository.PaymentPortalRepository;
+import dopaminelite.payment_portal.service.export.ColumnPlan;
+import dopaminelite.payment_portal.service.export.ExportFileStore;
+import dopaminelite.payment_portal.service.export.ExportProgress;
+import dopaminelite.payment_portal.service.export.PrerenderedDataSheetStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Service for pre-rendering the standard data sheets of closed months.
+ * A nightly run renders every type in every configured format for each closed month that has
+ * portals, within the configured window, skipping sheets that are still current, and drops the
+ * sheets of months that have left it. Sheets
+ * withdrawn after a late submission change are rendered again on the next refresh, month by month
+ * and only for the types that changed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MonthlyDataSheetService {
+    
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+    private static final ColumnPlan DEFAULT_COLUMNS = ColumnPlan.compile(null);
+    
+    private final DataSheetService dataSheetService;
+    private final PaymentPortalRepository portalRepository;
+    private final PrerenderedDataSheetStore store;
+    private final ExportFileStore fileStore;
+    private final DataSheetExportProperties properties;
+    
+    /**
+     * Renders the standard data sheets of every closed month in the window that are missing or out
+     * of date, after withdrawing the sheets of months that have left the window. Sheets of months
+     * without changes since their last render are kept, except PDFs, which state the day they were
+     * rendered and so are replaced each night.
+     *
+     * @return the number of sheets published
+     */
+    @Scheduled(cron = "${data-sheet.export.prerender.cron:0 30 2 * * *}")
+    public int renderClosedMonths() {
+        if (!properties.getPrerender().isEnabled()) {
+            return 0;
+        }
+        int dropped = store.withdrawOutsideWindow();
+        if (dropped > 0) {
+            log.info("[EXPORT] Dropped {} pre-rendered data sheets of months outside the window", dropped);
+        }
+        YearMonth last = store.lastMonth();
+        YearMonth first = store.firstMonth();
+        
+        LocalDate today = LocalDate.now();
+        int published = 0;
+        int kept = 0;
+        for (Integer period : portalRepository.findPortalMonthsBetween(toPeriod(first), toPeriod(last))) {
+            YearMonth month = YearMonth.of(period / 100, period % 100);
+            List<PrerenderedDataSheetStore.Key> sheets = store.keysFor(month);
+            List<PrerenderedDataSheetStore.Key> outdated = sheets.stream()
+                    .filter(key -> !store.isCurrent(key, today))
+                    .toList();
+            kept += sheets.size() - outdated.size();
+            published += render(outdated);
+        }
+        log.info("[EXPORT] Pre-rendered {} monthly data sheets for {} to {}, kept {} unchanged",
+                published, first, last, kept);
+        return published;
+    }
+    
+    /**
+     * Renders the sheets withdrawn since the last refresh because a submission of their month changed.
+     *
+     * @return the number of sheets published
+     */
+    @Scheduled(fixedDelayString = "${data-sheet.export.prerender.refresh-interval:PT5M}")
+    public int renderStale() {
+        if (!properties.getPrerender().isEnabled()) {
+            return 0;
+        }
+        List<PrerenderedDataSheetStore.Key> keys = store.drainStale();
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        int published = render(keys);
+        log.info("[EXPORT] Re-rendered {} of {} changed monthly data sheets", published, keys.size());
+        return published;
+    }
+    
+    private int render(List<PrerenderedDataSheetStore.Key> keys) {
+        int published = 0;
+        for (PrerenderedDataSheetStore.Key key : keys) {
+            try {
+                if (render(key)) {
+                    published++;
+                }
+            } catch (Exception e) {
+                log.warn("[EXPORT] Could not pre-render data sheet {}, retrying on the next refresh", key, e);
+                store.markStale(key);
+            }
+        }
+        return published;
+    }
+    
+    private boolean render(PrerenderedDataSheetStore.Key key) throws IOException {
+        long generation = store.generation(key.month());
+        LocalDate renderedOn = LocalDate.now();
+        String name = store.newFileName(key);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(fileStore.partial(name)), OUTPUT_BUFFER_SIZE)) {
+            dataSheetService.renderDataSheet(key.toRequest(), DEFAULT_COLUMNS, out, ExportProgress.NONE);
+        } catch (IOException | RuntimeException e) {
+            fileStore.delete(fileStore.partial(name));
+            throw e;
+        }
+        // A change during the render has already queued the sheet again
+        return store.publish(key, name, generation, renderedOn);
+    }
+    
+    private int toPeriod(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+    
+}
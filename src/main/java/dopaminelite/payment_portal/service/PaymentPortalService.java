@@ -6,20 +6,26 @@ import dopaminelite.payment_portal.dto.portal.PaymentPortalCreateRequest;
 import dopaminelite.payment_portal.dto.portal.PaymentPortalResponse;
 import dopaminelite.payment_portal.dto.portal.PaymentPortalUpdateRequest;
 import dopaminelite.payment_portal.entity.PaymentPortal;
+import dopaminelite.payment_portal.entity.enums.CountMode;
 import dopaminelite.payment_portal.entity.enums.PortalVisibility;
 import dopaminelite.payment_portal.exception.DuplicateResourceException;
 import dopaminelite.payment_portal.exception.ResourceNotFoundException;
 import dopaminelite.payment_portal.mapper.PaymentPortalMapper;
+import dopaminelite.payment_portal.repository.IdBatchLoader;
 import dopaminelite.payment_portal.repository.PaymentPortalRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -30,10 +36,11 @@ import java.util.UUID;
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class PaymentPortalService {
-
+    
     private final PaymentPortalRepository portalRepository;
     private final PaymentPortalMapper portalMapper;
-
+    private final CountCache countCache;
+    
     /**
      * Retrieves a paginated list of payment portals with optional filtering.
      *
@@ -42,22 +49,37 @@ public class PaymentPortalService {
      * @param isPublished filter by published status, null for no filtering
      * @param limit maximum number of results per page
      * @param offset number of results to skip
-     * @return paginated response containing portal list and total count
+     * @param count how to compute the total, null for an exact count; see {@link CountMode}
+     * @return paginated response containing portal list, total count and whether more follow
      */
     public PaginatedResponse<PaymentPortalResponse> listPortals(
             Integer month,
             Integer year,
             Boolean isPublished,
             int limit,
-            int offset
+            int offset,
+            CountMode count
     ) {
         Pageable pageable = PageRequest.of(offset / limit, limit, Sort.by(Sort.Direction.DESC, "createdAt"));
-        Page<PaymentPortal> portalPage;
+        boolean byPeriod = month != null && year != null;
+        Slice<PaymentPortal> portalPage;
+        Long total;
         
-        if (month != null && year != null) {
-            portalPage = portalRepository.findByMonthAndYear(month, year, pageable);
+        if (count == null || count == CountMode.EXACT) {
+            Page<PaymentPortal> countedPage = byPeriod
+                    ? portalRepository.findByMonthAndYear(month, year, pageable)
+                    : portalRepository.findAll(pageable);
+            portalPage = countedPage;
+            total = countedPage.getTotalElements();
         } else {
-            portalPage = portalRepository.findAll(pageable);
+            // Reads one extra row instead of counting
+            portalPage = byPeriod
+                    ? portalRepository.findSliceByMonthAndYear(month, year, pageable)
+                    : portalRepository.findAllBy(pageable);
+            total = count == CountMode.CACHED
+                    ? countCache.count(Arrays.asList("portals", byPeriod ? month : null, byPeriod ? year : null),
+                            () -> byPeriod ? portalRepository.countByMonthAndYear(month, year) : portalRepository.count())
+                    : null;
         }
         
         List<PaymentPortalResponse> items = portalPage.getContent()
@@ -68,9 +90,7 @@ public class PaymentPortalService {
                 .map(portalMapper::toResponse)
                 .toList();
         
-        long total = portalPage.getTotalElements();
-        
-        return new PaginatedResponse<>(items, total);
+        return new PaginatedResponse<>(items, total, null, portalPage.hasNext());
     }
     
     /**
@@ -153,18 +173,20 @@ public class PaymentPortalService {
         PaymentPortal updatedPortal = portalRepository.save(portal);
         return portalMapper.toResponse(updatedPortal);
     }
-
+    
     /**
      * Updates the visibility of multiple portals in a single transaction.
+     * Portals are loaded in {@link IdBatchLoader} batches; repeated IDs are updated once.
      *
      * @param request the bulk update request containing portal IDs and new visibility
      * @throws ResourceNotFoundException if any portal ID does not exist
      */
     @Transactional
     public void bulkUpdateVisibility(BulkPortalVisibilityUpdateRequest request) {
-        List<PaymentPortal> portals = portalRepository.findAllById(request.getPortalIds());
+        Set<UUID> portalIds = new LinkedHashSet<>(request.getPortalIds());
+        List<PaymentPortal> portals = IdBatchLoader.loadInOrder(portalIds, portalRepository::findAllById, PaymentPortal::getId);
         
-        if (portals.size() != request.getPortalIds().size()) {
+        if (portals.size() != portalIds.size()) {
             throw new ResourceNotFoundException("One or more portal IDs not found");
         }
         
@@ -4,27 +4,34 @@ import dopaminelite.payment_portal.dto.common.PaginatedResponse;
 import dopaminelite.payment_portal.dto.submission.PaymentSubmissionCreateRequest;
 import dopaminelite.payment_portal.dto.submission.PaymentSubmissionResponse;
 import dopaminelite.payment_portal.dto.submission.PaymentSubmissionStatusUpdateRequest;
+import dopaminelite.payment_portal.dto.submission.SubmissionCursor;
 import dopaminelite.payment_portal.dto.submission.UploadedFileRefDto;
 import dopaminelite.payment_portal.entity.PaymentPortal;
 import dopaminelite.payment_portal.entity.PaymentSubmission;
 import dopaminelite.payment_portal.entity.UploadedFile;
+import dopaminelite.payment_portal.entity.enums.CountMode;
 import dopaminelite.payment_portal.entity.enums.SubmissionStatus;
 import dopaminelite.payment_portal.exception.ResourceNotFoundException;
 import dopaminelite.payment_portal.exception.ValidationException;
 import dopaminelite.payment_portal.mapper.PaymentSubmissionMapper;
+import dopaminelite.payment_portal.repository.OffsetPageRequest;
 import dopaminelite.payment_portal.repository.PaymentPortalRepository;
 import dopaminelite.payment_portal.repository.PaymentSubmissionRepository;
 import dopaminelite.payment_portal.repository.PaymentSubmissionRepositoryLoggingUtil;
+import dopaminelite.payment_portal.service.export.SubmissionChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -39,13 +46,21 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class PaymentSubmissionService {
     
+    /**
+     * The largest page a client can request from {@link #listSubmissions}.
+     */
+    public static final int MAX_PAGE_LIMIT = 100;
+    
     private final PaymentSubmissionRepository submissionRepository;
     private final PaymentPortalRepository portalRepository;
     private final PaymentSubmissionMapper submissionMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CountCache countCache;
     
     /**
      * Creates a new payment submission for a specific portal.
      * Validates that the portal exists and that the portal name confirmation matches.
+     * Publishes a {@link SubmissionChangedEvent} so cached exports of the portal's month are refreshed.
      *
      * @param portalId the ID of the portal to submit to
      * @param request the submission request containing student ID, portal name confirmation, and files
@@ -76,6 +91,9 @@ public class PaymentSubmissionService {
         submission.setUploadedFiles(files);
         
         PaymentSubmission savedSubmission = submissionRepository.save(submission);
+        eventPublisher.publishEvent(new SubmissionChangedEvent(
+                savedSubmission.getId(), portal.getMonth(), portal.getYear(), null, savedSubmission.getStatus()
+        ));
         return submissionMapper.toResponse(savedSubmission);
     }
     
@@ -89,16 +107,28 @@ public class PaymentSubmissionService {
     }
     
     /**
-     * Retrieves a paginated list of payment submissions with optional filtering.
+     * Retrieves a paginated list of payment submissions with optional filtering, newest first.
+     *
+     * <p>Without a cursor the page starts at {@code offset}. Every page that has a successor also
+     * carries a {@code nextCursor}; passing it back returns the following page by seeking to the
+     * cursor position, without skipping rows, so deep pages cost the same as the first one.
+     *
+     * <p>The count mode decides how the total is computed: exactly, from a briefly cached
+     * exact count ({@link CountCache}), or not at all. Without a total the page is read with one
+     * extra row instead of a count query, and {@code hasMore} alone tells whether more follow.
+     * Offset pages count exactly by default, cursor pages not at all.
      *
      * @param studentId filter by student ID, null for no filtering
      * @param portalId filter by portal ID, null for no filtering
      * @param status filter by submission status, null for no filtering
      * @param fromDate filter submissions from this date (inclusive), null for no filtering
      * @param toDate filter submissions until this date (inclusive), null for no filtering
-     * @param limit maximum number of results per page
-     * @param offset number of results to skip
-     * @return paginated response containing submission list and total count
+     * @param limit maximum number of results per page, between 1 and {@value #MAX_PAGE_LIMIT}
+     * @param offset number of results to skip, must be 0 when a cursor is given
+     * @param cursor the {@code nextCursor} of the previous page, null to page by offset
+     * @param count how to compute the total, null for the default of the paging mode
+     * @return paginated response containing submission list, total count, next cursor and whether more follow
+     * @throws ValidationException if the filters, limit, offset or cursor are invalid, or fromDate is after toDate
      */
     public PaginatedResponse<PaymentSubmissionResponse> listSubmissions(
             UUID studentId,
@@ -109,10 +139,12 @@ public class PaymentSubmissionService {
             Integer month,
             Integer year,
             int limit,
-            int offset
+            int offset,
+            String cursor,
+            CountMode count
     ) {
-        log.debug("[SERVICE] listSubmissions called with - studentId: {}, portalId: {}, status: {}, fromDate: {}, toDate: {}, month: {}, year: {}, limit: {}, offset: {}",
-                studentId, portalId, status, fromDate, toDate, month, year, limit, offset);
+        log.debug("[SERVICE] listSubmissions called with - studentId: {}, portalId: {}, status: {}, fromDate: {}, toDate: {}, month: {}, year: {}, limit: {}, offset: {}, cursor: {}, count: {}",
+                studentId, portalId, status, fromDate, toDate, month, year, limit, offset, cursor, count);
         
         // Validate month/year inputs
         if (month != null && (month < 1 || month > 12)) {
@@ -123,28 +155,114 @@ public class PaymentSubmissionService {
             log.warn("[SERVICE] Month provided without year");
             throw new ValidationException("Year must be provided when month is specified");
         }
-
-        // JPQL query has ORDER BY, so we don't need Sort in Pageable
-        Pageable pageable = PageRequest.of(offset / limit, limit);
-        log.debug("[SERVICE] Pageable created - page: {}, size: {}", offset / limit, limit);
-
-        log.info("[SERVICE] Calling repository.findByFilters - studentId: {}, portalId: {}, status: {}, month: {}, year: {}",
-                studentId, portalId, status, month, year);
-
+        if (fromDate != null && toDate != null && fromDate.isAfter(toDate)) {
+            log.warn("[SERVICE] fromDate {} is after toDate {}", fromDate, toDate);
+            throw new ValidationException("fromDate must not be after toDate");
+        }
+        validatePagination(limit, offset, cursor);
+        
+        if (cursor != null) {
+            return listSubmissionsAfter(studentId, portalId, status, fromDate, toDate, month, year, limit,
+                    SubmissionCursor.decode(cursor), count != null ? count : CountMode.NONE);
+        }
+        
+        // The repository applies the list order, so we don't need Sort in Pageable
+        Pageable pageable = new OffsetPageRequest(offset, limit, Sort.unsorted());
+        log.debug("[SERVICE] Pageable created - offset: {}, size: {}", offset, limit);
+        
+        if (count != null && count != CountMode.EXACT) {
+            log.info("[SERVICE] Calling repository.findSliceByFilters - studentId: {}, portalId: {}, status: {}, fromDate: {}, toDate: {}, month: {}, year: {}",
+                    studentId, portalId, status, fromDate, toDate, month, year);
+            Slice<PaymentSubmission> slice = submissionRepository.findSliceByFilters(
+                    studentId, portalId, status, fromDate, toDate, month, year, pageable
+            );
+            log.info("[SERVICE] Repository query executed - current page size: {}, has next: {}",
+                    slice.getContent().size(), slice.hasNext());
+            Long total = countTotal(count, studentId, portalId, status, fromDate, toDate, month, year);
+            return toPage(slice.getContent(), total, slice.hasNext());
+        }
+        
+        log.info("[SERVICE] Calling repository.findByFilters - studentId: {}, portalId: {}, status: {}, fromDate: {}, toDate: {}, month: {}, year: {}",
+                studentId, portalId, status, fromDate, toDate, month, year);
+        
         Page<PaymentSubmission> submissionPage = submissionRepository.findByFilters(
-                studentId, portalId, status, month, year, pageable
+                studentId, portalId, status, fromDate, toDate, month, year, pageable
         );
         
         log.info("[SERVICE] Repository query executed - total elements: {}, current page size: {}, total pages: {}",
                 submissionPage.getTotalElements(), submissionPage.getContent().size(), submissionPage.getTotalPages());
         
-        List<PaymentSubmissionResponse> items = submissionPage.getContent()
+        List<PaymentSubmission> submissions = submissionPage.getContent();
+        boolean hasNext = offset + submissions.size() < submissionPage.getTotalElements();
+        return toPage(submissions, submissionPage.getTotalElements(), hasNext);
+    }
+    
+    private PaginatedResponse<PaymentSubmissionResponse> listSubmissionsAfter(
+            UUID studentId,
+            UUID portalId,
+            SubmissionStatus status,
+            LocalDate fromDate,
+            LocalDate toDate,
+            Integer month,
+            Integer year,
+            int limit,
+            SubmissionCursor after,
+            CountMode count
+    ) {
+        log.info("[SERVICE] Calling repository.findByFiltersAfter - studentId: {}, portalId: {}, status: {}, fromDate: {}, toDate: {}, month: {}, year: {}, after: {}",
+                studentId, portalId, status, fromDate, toDate, month, year, after);
+        
+        // One extra row tells whether a next page exists without counting
+        List<PaymentSubmission> submissions = submissionRepository.findByFiltersAfter(
+                studentId, portalId, status, fromDate, toDate, month, year, after.submittedAt(), after.id(),
+                PageRequest.of(0, limit + 1)
+        );
+        boolean hasNext = submissions.size() > limit;
+        if (hasNext) {
+            submissions = submissions.subList(0, limit);
+        }
+        
+        log.info("[SERVICE] Repository query executed - current page size: {}, has next: {}", submissions.size(), hasNext);
+        Long total = countTotal(count, studentId, portalId, status, fromDate, toDate, month, year);
+        return toPage(submissions, total, hasNext);
+    }
+    
+    private Long countTotal(CountMode count, UUID studentId, UUID portalId, SubmissionStatus status,
+                            LocalDate fromDate, LocalDate toDate, Integer month, Integer year) {
+        return switch (count) {
+            case EXACT -> submissionRepository.countByListFilters(studentId, portalId, status, fromDate, toDate, month, year);
+            case CACHED -> countCache.count(
+                    Arrays.asList("submissions", studentId, portalId, status, fromDate, toDate, month, year),
+                    () -> submissionRepository.countByListFilters(studentId, portalId, status, fromDate, toDate, month, year));
+            case NONE -> null;
+        };
+    }
+    
+    private void validatePagination(int limit, int offset, String cursor) {
+        if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+            log.warn("[SERVICE] Invalid limit value: {}", limit);
+            throw ValidationException.invalidPagination("limit must be between 1 and " + MAX_PAGE_LIMIT);
+        }
+        if (offset < 0) {
+            log.warn("[SERVICE] Invalid offset value: {}", offset);
+            throw ValidationException.invalidPagination("offset must not be negative");
+        }
+        if (cursor != null && offset != 0) {
+            log.warn("[SERVICE] Offset {} provided with a cursor", offset);
+            throw ValidationException.invalidPagination("offset cannot be combined with a cursor");
+        }
+    }
+    
+    private PaginatedResponse<PaymentSubmissionResponse> toPage(List<PaymentSubmission> submissions, Long total,
+                                                                boolean hasNext) {
+        List<PaymentSubmissionResponse> items = submissions
                 .stream()
                 .map(submissionMapper::toResponse)
                 .toList();
+        String nextCursor = hasNext ? SubmissionCursor.after(submissions.get(submissions.size() - 1)).encode() : null;
         
         log.info("[SERVICE] Mapped submissions to response DTOs - count: {}", items.size());
-        return new PaginatedResponse<>(items, submissionPage.getTotalElements());
+        return new PaginatedResponse<>(items, total, nextCursor, hasNext);
     }
     
     /**
@@ -164,6 +282,7 @@ public class PaymentSubmissionService {
     /**
      * Updates the status of a payment submission.
      * Validates that rejection reason is provided when status is REJECTED.
+     * Publishes a {@link SubmissionChangedEvent} so cached exports of the portal's month are refreshed.
      *
      * @param submissionId the submission ID to update
      * @param request the status update request containing new status and optional rejection reason
@@ -183,10 +302,18 @@ public class PaymentSubmissionService {
             }
         }
         
+        SubmissionStatus previousStatus = submission.getStatus();
         submission.setStatus(request.getStatus());
         submission.setRejectionReason(request.getRejectionReason());
         
         PaymentSubmission updatedSubmission = submissionRepository.save(submission);
+        eventPublisher.publishEvent(new SubmissionChangedEvent(
+                updatedSubmission.getId(),
+                submission.getPortal().getMonth(),
+                submission.getPortal().getYear(),
+                previousStatus,
+                updatedSubmission.getStatus()
+        ));
         return submissionMapper.toResponse(updatedSubmission);
     }
     
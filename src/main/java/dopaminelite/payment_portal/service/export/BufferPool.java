@@ -0,0 +1,46 @@
+package dopaminelite.payment_portal.service.export;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded pool of equally sized byte arrays reused as encoding buffers across exports.
+ * When the pool is empty a new buffer is allocated; buffers returned to a full pool are dropped.
+ * Safe for concurrent use.
+ */
+public final class BufferPool {
+    
+    private final int bufferSize;
+    private final BlockingQueue<byte[]> buffers;
+    
+    /**
+     * @param bufferSize the size of each buffer in bytes
+     * @param maxRetained the maximum number of idle buffers kept for reuse
+     */
+    public BufferPool(int bufferSize, int maxRetained) {
+        this.bufferSize = bufferSize;
+        this.buffers = new ArrayBlockingQueue<>(maxRetained);
+    }
+    
+    /**
+     * Takes a buffer from the pool, or allocates one if none is idle.
+     *
+     * @return a buffer of {@code bufferSize} bytes with undefined contents
+     */
+    public byte[] acquire() {
+        byte[] buffer = buffers.poll();
+        return buffer != null ? buffer : new byte[bufferSize];
+    }
+    
+    /**
+     * Returns a buffer to the pool. The caller must not use it afterwards.
+     *
+     * @param buffer a buffer previously obtained from {@link #acquire()}
+     */
+    public void release(byte[] buffer) {
+        if (buffer.length == bufferSize) {
+            buffers.offer(buffer);
+        }
+    }
+    
+}
@@ -0,0 +1,161 @@
+package dopaminelite.payment_portal.service.export;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.time.Instant;
+
+/**
+ * A cached export opened for one download.
+ * Disk-backed exports hold an open file channel, so they stay readable even if the cache evicts
+ * the file in the meantime; a download must {@link #close} it once the response is written.
+ */
+public final class CachedExport implements Closeable {
+    
+    private final byte[] data;
+    private final FileChannel channel;
+    private final long size;
+    private final String contentHash;
+    private final Instant renderedAt;
+    
+    private CachedExport(byte[] data, FileChannel channel, long size, String contentHash, Instant renderedAt) {
+        this.data = data;
+        this.channel = channel;
+        this.size = size;
+        this.contentHash = contentHash;
+        this.renderedAt = renderedAt;
+    }
+    
+    static CachedExport inMemory(byte[] data, String contentHash, Instant renderedAt) {
+        return new CachedExport(data, null, data.length, contentHash, renderedAt);
+    }
+    
+    static CachedExport onDisk(FileChannel channel, long size, String contentHash, Instant renderedAt) {
+        return new CachedExport(null, channel, size, contentHash, renderedAt);
+    }
+    
+    /**
+     * @return the size of the export in bytes
+     */
+    public long size() {
+        return size;
+    }
+    
+    /**
+     * @return the hex-encoded SHA-256 hash of the export's bytes
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+    
+    /**
+     * @return when the render that produced this export started
+     */
+    public Instant getRenderedAt() {
+        return renderedAt;
+    }
+    
+    /**
+     * Returns the export as a resource for Spring's resource handling. Every input stream it opens
+     * is independent: disk-backed exports are read with positional reads on the shared channel,
+     * and skipping ahead to a range's offset reads nothing before it. The resource is only valid
+     * until this export is closed.
+     *
+     * @return a resource over the export's bytes
+     */
+    public Resource asResource() {
+        return new ExportResource();
+    }
+    
+    /**
+     * Releases the export.
+     */
+    @Override
+    public void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Read-only channel, nothing is lost
+            }
+        }
+    }
+    
+    private final class ExportResource extends AbstractResource {
+        
+        @Override
+        public InputStream getInputStream() {
+            return data != null ? new ByteArrayInputStream(data) : new ChannelInputStream();
+        }
+        
+        @Override
+        public boolean exists() {
+            return true;
+        }
+        
+        @Override
+        public long contentLength() {
+            return size;
+        }
+        
+        @Override
+        public long lastModified() {
+            return renderedAt.toEpochMilli();
+        }
+        
+        @Override
+        public String getDescription() {
+            return "cached export [" + contentHash + "]";
+        }
+        
+    }
+    
+    // Reads from its own position, so several streams can share the channel
+    private final class ChannelInputStream extends InputStream {
+        
+        private long position;
+        
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+        
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (position >= size) {
+                return -1;
+            }
+            int wanted = (int) Math.min(length, size - position);
+            if (wanted == 0) {
+                return 0;
+            }
+            int read = channel.read(ByteBuffer.wrap(buffer, offset, wanted), position);
+            if (read < 0) {
+                throw new IOException("Cached export ended at byte " + position + " of " + size);
+            }
+            position += read;
+            return read;
+        }
+        
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, size - position));
+            position += skipped;
+            return skipped;
+        }
+        
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, size - position);
+        }
+        
+    }
+    
+}
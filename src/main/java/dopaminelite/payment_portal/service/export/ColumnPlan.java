@@ -0,0 +1,140 @@
+package dopaminelite.payment_portal.service.export;
+
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
+import dopaminelite.payment_portal.exception.ValidationException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The columns of one export, resolved once before any row is rendered.
+ * Writers iterate the plan by index, so rendering a cell is a direct accessor call on the
+ * resolved {@link ExportColumn} instead of a lookup by name. Instances are immutable and can be
+ * shared between threads.
+ */
+public final class ColumnPlan {
+    
+    private static final List<String> DEFAULT_COLUMNS = List.of(
+            "id",
+            "studentId",
+            "portalName",
+            "status",
+            "submittedAt",
+            "fileCount",
+            "rejectionReason"
+    );
+    
+    private final String[] names;
+    private final ExportColumn[] columns;
+    
+    private ColumnPlan(String[] names, ExportColumn[] columns) {
+        this.names = names;
+        this.columns = columns;
+    }
+    
+    /**
+     * Resolves the requested column names into a plan.
+     * The default columns are used when none are requested.
+     *
+     * @param requested the requested column names, can be null or empty
+     * @return the compiled plan
+     * @throws ValidationException if any column name is unknown
+     */
+    public static ColumnPlan compile(List<String> requested) {
+        List<String> selected = (requested != null && !requested.isEmpty()) ? requested : DEFAULT_COLUMNS;
+        
+        String[] names = new String[selected.size()];
+        ExportColumn[] columns = new ExportColumn[selected.size()];
+        List<String> unknown = new ArrayList<>();
+        for (int i = 0; i < selected.size(); i++) {
+            names[i] = selected.get(i);
+            columns[i] = ExportColumn.fromName(names[i]).orElse(null);
+            if (columns[i] == null) {
+                unknown.add(names[i]);
+            }
+        }
+        
+        if (!unknown.isEmpty()) {
+            throw ValidationException.unknownExportColumns(unknown);
+        }
+        return new ColumnPlan(names, columns);
+    }
+    
+    /**
+     * @return the number of columns
+     */
+    public int size() {
+        return columns.length;
+    }
+    
+    /**
+     * @return the distinct columns in the plan, for deciding what to read from the database
+     */
+    public Set<ExportColumn> columnSet() {
+        return EnumSet.copyOf(Arrays.asList(columns));
+    }
+    
+    /**
+     * @return the column names exactly as they were requested, in order
+     */
+    public List<String> names() {
+        return List.of(names);
+    }
+    
+    /**
+     * @return the canonical field names of the columns, in order
+     */
+    public List<String> fieldNames() {
+        return Arrays.stream(columns).map(ExportColumn::getFieldName).toList();
+    }
+    
+    /**
+     * @param index the column position
+     * @return the resolved column at the position
+     */
+    public ExportColumn column(int index) {
+        return columns[index];
+    }
+    
+    /**
+     * @param index the column position
+     * @return the column name exactly as it was requested
+     */
+    public String name(int index) {
+        return names[index];
+    }
+    
+    /**
+     * @param index the column position
+     * @return the human-readable header label of the column
+     */
+    public String headerLabel(int index) {
+        return columns[index].getHeaderLabel();
+    }
+    
+    /**
+     * Renders one cell of a row as text.
+     *
+     * @param row the export row
+     * @param index the column position
+     * @return the rendered value, empty string if the row has none
+     */
+    public String text(SubmissionExportRow row, int index) {
+        return columns[index].text(row);
+    }
+    
+    /**
+     * Reads one typed cell of a row.
+     *
+     * @param row the export row
+     * @param index the column position
+     * @return the value, or null if the row has none
+     */
+    public Object value(SubmissionExportRow row, int index) {
+        return columns[index].value(row);
+    }
+    
+}
@@ -0,0 +1,67 @@
+package dopaminelite.payment_portal.service.export;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream that counts the bytes passed through to the underlying stream and remembers
+ * whether writing to it failed.
+ */
+public final class CountingOutputStream extends FilterOutputStream {
+    
+    private long count;
+    private boolean failed;
+    
+    public CountingOutputStream(OutputStream out) {
+        super(out);
+    }
+    
+    /**
+     * @return the number of bytes written so far
+     */
+    public long getCount() {
+        return count;
+    }
+    
+    /**
+     * @return whether a write or flush of the underlying stream has thrown
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+    
+    @Override
+    public void write(int b) throws IOException {
+        try {
+            out.write(b);
+        } catch (IOException e) {
+            failed = true;
+            throw e;
+        }
+        count++;
+    }
+    
+    // FilterOutputStream would write arrays one byte at a time
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        try {
+            out.write(b, off, len);
+        } catch (IOException e) {
+            failed = true;
+            throw e;
+        }
+        count += len;
+    }
+    
+    @Override
+    public void flush() throws IOException {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            failed = true;
+            throw e;
+        }
+    }
+    
+}
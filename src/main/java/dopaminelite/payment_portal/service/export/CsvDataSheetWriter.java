@@ -0,0 +1,90 @@
+package dopaminelite.payment_portal.service.export;
+
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Writes payment submissions as UTF-8 CSV directly to an output stream.
+ * Rows are encoded one at a time by a {@link CsvEncoder} into a pooled buffer, so memory use does
+ * not grow with the number of rows and encoding a row allocates nothing.
+ * Every line depends only on its own row, so large exports are encoded in parallel partitions
+ * by the {@link PartitionedRenderer}.
+ */
+@Component
+@RequiredArgsConstructor
+public class CsvDataSheetWriter {
+    
+    private static final int BUFFER_SIZE = 16 * 1024;
+    
+    private final BufferPool bufferPool = new BufferPool(BUFFER_SIZE, 16);
+    private final PartitionedRenderer renderer;
+    
+    /**
+     * Writes the header and one line per submission.
+     * The output stream is flushed but not closed.
+     *
+     * @param rows the submission rows to write
+     * @param columns the compiled columns to include, in order
+     * @param out the destination stream
+     * @throws IOException if writing to the stream fails
+     */
+    public void write(Stream<SubmissionExportRow> rows, ColumnPlan columns, OutputStream out) throws IOException {
+        byte[] buffer = bufferPool.acquire();
+        try {
+            CsvEncoder encoder = new CsvEncoder(out, buffer);
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    encoder.writeAscii(',');
+                }
+                encoder.writeText(columns.name(i));
+            }
+            encoder.writeAscii('\n');
+            encoder.flush();
+        } finally {
+            bufferPool.release(buffer);
+        }
+        
+        renderer.render(rows.iterator(), (partition, sink) -> writeRows(partition, columns, sink), out);
+    }
+    
+    private void writeRows(List<SubmissionExportRow> rows, ColumnPlan columns, OutputStream out) throws IOException {
+        byte[] buffer = bufferPool.acquire();
+        try {
+            CsvEncoder encoder = new CsvEncoder(out, buffer);
+            for (SubmissionExportRow row : rows) {
+                writeRow(encoder, row, columns);
+            }
+            encoder.flush();
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+    
+    private void writeRow(CsvEncoder encoder, SubmissionExportRow row, ColumnPlan columns) throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                encoder.writeAscii(',');
+            }
+            Object value = columns.value(row, i);
+            if (value == null) {
+                continue;
+            }
+            switch (columns.column(i).getType()) {
+                case TEXT -> encoder.writeText((String) value);
+                case IDENTIFIER -> encoder.writeUuid((UUID) value);
+                case NUMBER -> encoder.writeLong(((Number) value).longValue());
+                case DATETIME -> encoder.writeDateTime((LocalDateTime) value);
+            }
+        }
+        encoder.writeAscii('\n');
+    }
+    
+}
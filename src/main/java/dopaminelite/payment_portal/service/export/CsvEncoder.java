@@ -0,0 +1,233 @@
+package dopaminelite.payment_portal.service.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Encodes CSV fields as UTF-8 straight into a byte buffer, without intermediate Strings.
+ * Text is scanned once to decide whether it needs quoting and then encoded; timestamps, UUIDs
+ * and numbers are written digit by digit. The buffer is drained to the output stream whenever
+ * it fills up and on {@link #flush()}.
+ *
+ * <p>Not thread-safe; use one encoder per output stream.
+ */
+public final class CsvEncoder {
+    
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int position;
+    
+    /**
+     * @param out the destination stream
+     * @param buffer the buffer to encode into, at least 64 bytes
+     */
+    public CsvEncoder(OutputStream out, byte[] buffer) {
+        this.out = out;
+        this.buffer = buffer;
+    }
+    
+    /**
+     * Writes a single ASCII character such as a field separator or line feed.
+     *
+     * @param c the character
+     * @throws IOException if draining the buffer fails
+     */
+    public void writeAscii(char c) throws IOException {
+        if (position == buffer.length) {
+            drain();
+        }
+        buffer[position++] = (byte) c;
+    }
+    
+    /**
+     * Writes a text field, quoting it and doubling embedded quotes if it contains a comma,
+     * quote or line feed. Null and empty values are written as an empty field.
+     *
+     * @param value the field value, can be null
+     * @throws IOException if draining the buffer fails
+     */
+    public void writeText(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        
+        int length = value.length();
+        boolean quote = false;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n') {
+                quote = true;
+                break;
+            }
+        }
+        
+        if (quote) {
+            writeAscii('"');
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (quote && c == '"') {
+                    writeAscii('"');
+                }
+                writeAscii(c);
+            } else {
+                i = writeNonAscii(value, i);
+            }
+        }
+        if (quote) {
+            writeAscii('"');
+        }
+    }
+    
+    /**
+     * Writes a timestamp as {@code yyyy-MM-dd HH:mm:ss}.
+     *
+     * @param value the timestamp, can be null
+     * @throws IOException if draining the buffer fails
+     */
+    public void writeDateTime(LocalDateTime value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            // Outside the fixed-width range; let the formatter handle signs and extra digits
+            writeText(ExportColumn.DATETIME_FORMATTER.format(value));
+            return;
+        }
+        
+        ensureCapacity(19);
+        writeDigits(year, 4);
+        buffer[position++] = '-';
+        writeDigits(value.getMonthValue(), 2);
+        buffer[position++] = '-';
+        writeDigits(value.getDayOfMonth(), 2);
+        buffer[position++] = ' ';
+        writeDigits(value.getHour(), 2);
+        buffer[position++] = ':';
+        writeDigits(value.getMinute(), 2);
+        buffer[position++] = ':';
+        writeDigits(value.getSecond(), 2);
+    }
+    
+    /**
+     * Writes a UUID in its canonical lower-case form.
+     *
+     * @param value the UUID, can be null
+     * @throws IOException if draining the buffer fails
+     */
+    public void writeUuid(UUID value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        ensureCapacity(36);
+        long msb = value.getMostSignificantBits();
+        long lsb = value.getLeastSignificantBits();
+        writeHex(msb >>> 32, 8);
+        buffer[position++] = '-';
+        writeHex(msb >>> 16, 4);
+        buffer[position++] = '-';
+        writeHex(msb, 4);
+        buffer[position++] = '-';
+        writeHex(lsb >>> 48, 4);
+        buffer[position++] = '-';
+        writeHex(lsb, 12);
+    }
+    
+    /**
+     * Writes a whole number in decimal.
+     *
+     * @param value the number
+     * @throws IOException if draining the buffer fails
+     */
+    public void writeLong(long value) throws IOException {
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                writeText(Long.toString(value));
+                return;
+            }
+            writeAscii('-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        ensureCapacity(digits);
+        position += digits;
+        for (int i = position - 1; i >= position - digits; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+    
+    /**
+     * Writes any buffered bytes to the output stream and flushes it.
+     *
+     * @throws IOException if writing to the stream fails
+     */
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+    
+    private int writeNonAscii(String value, int index) throws IOException {
+        char c = value.charAt(index);
+        ensureCapacity(4);
+        if (c < 0x800) {
+            buffer[position++] = (byte) (0xC0 | (c >> 6));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && index + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(index + 1));
+            buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            return index + 1;
+        } else if (Character.isSurrogate(c)) {
+            // Unpaired surrogate, encoded as '?' like String.getBytes does
+            buffer[position++] = '?';
+        } else {
+            buffer[position++] = (byte) (0xE0 | (c >> 12));
+            buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        }
+        return index;
+    }
+    
+    private void writeDigits(int value, int width) {
+        for (int i = position + width - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += width;
+    }
+    
+    private void writeHex(long value, int width) {
+        for (int i = position + width - 1; i >= position; i--) {
+            buffer[i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+        position += width;
+    }
+    
+    private void ensureCapacity(int bytes) throws IOException {
+        if (buffer.length - position < bytes) {
+            drain();
+        }
+    }
+    
+    private void drain() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+    
+}
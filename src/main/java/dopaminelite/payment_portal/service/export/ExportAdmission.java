@@ -0,0 +1,267 @@
+package dopaminelite.payment_portal.service.export;
+
+import dopaminelite.payment_portal.config.DataSheetExportProperties;
+import dopaminelite.payment_portal.entity.enums.ExportFormat;
+import dopaminelite.payment_portal.exception.ExportRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission control for streamed exports.
+ *
+ * <p>Each format has a fixed number of slots. Before rendering, an export is costed from its row
+ * count at one slot per {@code rows-per-slot} rows, capped at the format's capacity, and must hold
+ * that many slots until it finishes. Exports that cannot start immediately wait in a bounded,
+ * first-come first-served queue; when the queue is full or the wait exceeds {@code max-wait} the
+ * export is rejected with an {@link ExportRejectedException} carrying a Retry-After estimate based on
+ * how long recent exports of the format held their slots.
+ *
+ * <p>Background export jobs draw on the same slots through {@link #await}, which blocks without
+ * the queue bound or wait limit: the job worker pool already bounds how many can wait.
+ *
+ * <p>Queue depth, slots in use, wait times and rejections are published as
+ * {@code export.admission.*} metrics, tagged by format.
+ */
+@Slf4j
+@Component
+public class ExportAdmission {
+    
+    private static final Duration MIN_RETRY_AFTER = Duration.ofSeconds(1);
+    
+    /**
+     * Weight of the latest export in the moving average of slot hold times.
+     */
+    private static final double HOLD_TIME_SMOOTHING = 0.2;
+    
+    private final DataSheetExportProperties.Admission settings;
+    private final Map<ExportFormat, Lane> lanes = new EnumMap<>(ExportFormat.class);
+    
+    public ExportAdmission(DataSheetExportProperties properties, MeterRegistry registry) {
+        this.settings = properties.getAdmission();
+        for (ExportFormat format : ExportFormat.values()) {
+            int capacity = Math.max(1, settings.getConcurrency().getOrDefault(format, 1));
+            lanes.put(format, new Lane(format, capacity, registry));
+        }
+    }
+    
+    /**
+     * Waits until the export can start and returns the permit it must hold while rendering.
+     * The row count is only computed when admission control is enabled.
+     *
+     * @param format the export format
+     * @param estimatedRows supplies the number of rows the export will contain
+     * @return the permit to close once rendering has finished
+     * @throws ExportRejectedException if the wait queue is full or the export waited too long
+     */
+    public Permit admit(ExportFormat format, LongSupplier estimatedRows) {
+        if (!settings.isEnabled()) {
+            return Permit.NONE;
+        }
+        Lane lane = lanes.get(format);
+        return lane.acquire(lane.cost(estimatedRows.getAsLong()));
+    }
+    
+    /**
+     * Blocks until a background export can start and returns the permit it must hold while rendering.
+     * Unlike {@link #admit}, the export is never rejected; it waits in the same fair queue for as long as needed.
+     *
+     * @param format the export format
+     * @param estimatedRows the number of rows the export will contain
+     * @return the permit to close once rendering has finished
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public Permit await(ExportFormat format, long estimatedRows) throws InterruptedException {
+        if (!settings.isEnabled()) {
+            return Permit.NONE;
+        }
+        Lane lane = lanes.get(format);
+        return lane.acquireWithoutLimit(lane.cost(estimatedRows));
+    }
+    
+    /**
+     * Slots held by an admitted export. Closing the permit returns them; closing it again does nothing.
+     */
+    public static class Permit implements AutoCloseable {
+        
+        /**
+         * Permit handed out while admission control is disabled.
+         */
+        static final Permit NONE = new Permit(null, 0);
+        
+        private final Lane lane;
+        private final int slots;
+        private final long admittedAt = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+        
+        private Permit(Lane lane, int slots) {
+            this.lane = lane;
+            this.slots = slots;
+        }
+        
+        /**
+         * Returns the number of slots this export holds.
+         *
+         * @return the slot count, 0 when admission control is disabled
+         */
+        public int getSlots() {
+            return slots;
+        }
+        
+        @Override
+        public void close() {
+            if (lane != null && released.compareAndSet(false, true)) {
+                lane.release(slots, System.nanoTime() - admittedAt);
+            }
+        }
+    
+    }
+    
+    private final class Lane {
+        
+        private final ExportFormat format;
+        private final int capacity;
+        private final Semaphore slots;
+        private final AtomicInteger waiting = new AtomicInteger();
+        
+        // Moving average of how long an admitted export held its slots
+        private volatile double averageHoldNanos;
+        
+        private final Timer admittedWait;
+        private final Timer rejectedWait;
+        private final Counter queueFull;
+        private final Counter timedOut;
+        
+        Lane(ExportFormat format, int capacity, MeterRegistry registry) {
+            this.format = format;
+            this.capacity = capacity;
+            // Fair, so a large export waiting for every slot is not starved by a stream of small ones
+            this.slots = new Semaphore(capacity, true);
+            
+            String tag = format.name();
+            Gauge.builder("export.admission.queue.depth", waiting, AtomicInteger::get)
+                    .description("Exports waiting for slots")
+                    .tag("format", tag)
+                    .register(registry);
+            Gauge.builder("export.admission.slots.used", slots, s -> capacity - s.availablePermits())
+                    .description("Export slots held by running exports")
+                    .tag("format", tag)
+                    .register(registry);
+            this.admittedWait = Timer.builder("export.admission.wait")
+                    .description("Time an export waited for slots")
+                    .tags("format", tag, "outcome", "admitted")
+                    .register(registry);
+            this.rejectedWait = Timer.builder("export.admission.wait")
+                    .description("Time an export waited for slots")
+                    .tags("format", tag, "outcome", "rejected")
+                    .register(registry);
+            this.queueFull = Counter.builder("export.admission.rejections")
+                    .description("Exports rejected for lack of capacity")
+                    .tags("format", tag, "reason", "queue_full")
+                    .register(registry);
+            this.timedOut = Counter.builder("export.admission.rejections")
+                    .description("Exports rejected for lack of capacity")
+                    .tags("format", tag, "reason", "timeout")
+                    .register(registry);
+        }
+        
+        int cost(long rows) {
+            long cost = (rows + settings.getRowsPerSlot() - 1) / settings.getRowsPerSlot();
+            return (int) Math.max(1, Math.min(capacity, cost));
+        }
+        
+        Permit acquire(int cost) {
+            long start = System.nanoTime();
+            try {
+                // Honours fairness: fails if other exports are already queued
+                if (slots.tryAcquire(cost, 0, TimeUnit.NANOSECONDS)) {
+                    admittedWait.record(0, TimeUnit.NANOSECONDS);
+                    return new Permit(this, cost);
+                }
+                
+                if (waiting.incrementAndGet() > settings.getQueueCapacity()) {
+                    waiting.decrementAndGet();
+                    queueFull.increment();
+                    throw reject(cost);
+                }
+                try {
+                    if (!slots.tryAcquire(cost, settings.getMaxWait().toNanos(), TimeUnit.NANOSECONDS)) {
+                        timedOut.increment();
+                        rejectedWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        throw reject(cost);
+                    }
+                } finally {
+                    waiting.decrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw reject(cost);
+            }
+            
+            admittedWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return new Permit(this, cost);
+        }
+        
+        Permit acquireWithoutLimit(int cost) throws InterruptedException {
+            long start = System.nanoTime();
+            if (!slots.tryAcquire(cost, 0, TimeUnit.NANOSECONDS)) {
+                waiting.incrementAndGet();
+                try {
+                    slots.acquire(cost);
+                } finally {
+                    waiting.decrementAndGet();
+                }
+            }
+            admittedWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return new Permit(this, cost);
+        }
+        
+        void release(int cost, long heldNanos) {
+            slots.release(cost);
+            double average = averageHoldNanos;
+            averageHoldNanos = average == 0 ? heldNanos
+                    : average + HOLD_TIME_SMOOTHING * (heldNanos - average);
+        }
+        
+        private ExportRejectedException reject(int cost) {
+            Duration retryAfter = estimateRetryAfter(cost);
+            log.warn("[EXPORT] Rejected {} export needing {} of {} slots, {} waiting, retry after {}s",
+                    format, cost, capacity, waiting.get(), retryAfter.toSeconds());
+            return ExportRejectedException.capacityExhausted(format, retryAfter);
+        }
+        
+        /**
+         * Estimates when the queue ahead and this export's own slots will have drained, assuming
+         * exports keep holding their slots for the recent average. Falls back to the maximum wait
+         * before any export of the format has finished.
+         */
+        private Duration estimateRetryAfter(int cost) {
+            double average = averageHoldNanos;
+            if (average == 0) {
+                return max(settings.getMaxWait(), MIN_RETRY_AFTER);
+            }
+            double slotsAhead = waiting.get() + cost;
+            long nanos = (long) (average * Math.ceil(slotsAhead / capacity));
+            Duration estimate = Duration.ofSeconds((long) Math.ceil(nanos / 1e9));
+            return max(estimate, MIN_RETRY_AFTER);
+        }
+        
+        private Duration max(Duration a, Duration b) {
+            return a.compareTo(b) >= 0 ? a : b;
+        }
+    
+    }
+    
+}
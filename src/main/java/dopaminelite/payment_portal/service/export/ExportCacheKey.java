@@ -0,0 +1,65 @@
+package dopaminelite.payment_portal.service.export;
+
+import dopaminelite.payment_portal.dto.export.DataSheetExportRequest;
+import dopaminelite.payment_portal.entity.enums.DataSheetType;
+import dopaminelite.payment_portal.entity.enums.ExportCompression;
+import dopaminelite.payment_portal.entity.enums.ExportFormat;
+
+import java.util.List;
+
+/**
+ * Identity of a cacheable export: everything that determines its bytes.
+ * Columns are normalized so equivalent requests share an entry: the default column set is spelled
+ * out, and outside CSV (whose header echoes the requested names) aliases and letter case are
+ * reduced to the canonical column names.
+ *
+ * @param type the submission type filter
+ * @param format the export format
+ * @param month the portal month filter, null for all months
+ * @param year the portal year filter, null for all years
+ * @param columns the normalized column list
+ * @param compression the file compression
+ */
+public record ExportCacheKey(
+        DataSheetType type,
+        ExportFormat format,
+        Integer month,
+        Integer year,
+        List<String> columns,
+        ExportCompression compression
+) {
+    
+    /**
+     * Builds the key for a filter-based export request.
+     *
+     * @param request the export request, without submission IDs
+     * @param plan the compiled columns of the request
+     * @return the cache key
+     */
+    public static ExportCacheKey of(DataSheetExportRequest request, ColumnPlan plan) {
+        List<String> columns = request.getFormat() == ExportFormat.CSV ? plan.names() : plan.fieldNames();
+        ExportCompression compression = request.getCompression() != null ? request.getCompression() : ExportCompression.NONE;
+        return new ExportCacheKey(request.getType(), request.getFormat(), request.getMonth(), request.getYear(),
+                columns, compression);
+    }
+    
+    /**
+     * Returns whether a submission change could alter the contents of this export.
+     *
+     * @param event the change
+     * @return true if the submission falls in this export's slice before or after the change
+     */
+    public boolean covers(SubmissionChangedEvent event) {
+        boolean typeMatches = type == DataSheetType.ALL
+                || type.name().equals(nameOf(event.previousStatus()))
+                || type.name().equals(nameOf(event.newStatus()));
+        return typeMatches
+                && (month == null || month.equals(event.portalMonth()))
+                && (year == null || year.equals(event.portalYear()));
+    }
+    
+    private static String nameOf(Enum<?> value) {
+        return value != null ? value.name() : null;
+    }
+    
+}
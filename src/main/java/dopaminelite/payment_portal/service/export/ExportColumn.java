@@ -0,0 +1,125 @@
+package dopaminelite.payment_portal.service.export;
+
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Columns that can be included in a data sheet export.
+ * Each column knows its header label, its cell type and how to read its value from an export row.
+ * Column names are matched case-insensitively.
+ */
+@Getter
+public enum ExportColumn {
+    
+    ID("ID", ColumnType.IDENTIFIER, SubmissionExportRow::getId, "id"),
+    STUDENT_ID("Student ID", ColumnType.IDENTIFIER, SubmissionExportRow::getStudentId, "studentId"),
+    PORTAL_NAME("Portal Name", ColumnType.TEXT, SubmissionExportRow::getPortalName, "portalName", "portal"),
+    STATUS("Status", ColumnType.TEXT, r -> r.getStatus().name(), "status"),
+    SUBMITTED_AT("Submitted At", ColumnType.DATETIME, SubmissionExportRow::getSubmittedAt, "submittedAt"),
+    FILE_COUNT("File Count", ColumnType.NUMBER, SubmissionExportRow::getFileCount, "fileCount"),
+    FILES("Files", ColumnType.TEXT, SubmissionExportRow::getFileNames, "files"),
+    REJECTION_REASON("Rejection Reason", ColumnType.TEXT, SubmissionExportRow::getRejectionReason, "rejectionReason"),
+    LAST_UPDATED_AT("Last Updated", ColumnType.DATETIME, SubmissionExportRow::getLastUpdatedAt, "lastUpdatedAt"),
+    PORTAL_ID("Portal ID", ColumnType.IDENTIFIER, SubmissionExportRow::getPortalId, "portalId");
+    
+    /**
+     * Value types a column can produce, so writers with native cell types can keep them.
+     */
+    public enum ColumnType {
+        /** Values are {@link String}. */
+        TEXT,
+        /** Values are {@link java.util.UUID}, rendered as text. */
+        IDENTIFIER,
+        /** Values are {@link Number}. */
+        NUMBER,
+        /** Values are {@link LocalDateTime}. */
+        DATETIME
+    }
+    
+    static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
+    private static final Map<String, ExportColumn> BY_NAME = indexByName();
+    
+    private final String headerLabel;
+    private final ColumnType type;
+    private final List<String> names;
+    
+    @Getter(AccessLevel.NONE)
+    private final Function<SubmissionExportRow, ?> accessor;
+    
+    ExportColumn(String headerLabel, ColumnType type, Function<SubmissionExportRow, ?> accessor, String... names) {
+        this.headerLabel = headerLabel;
+        this.type = type;
+        this.accessor = accessor;
+        this.names = List.of(names);
+    }
+    
+    /**
+     * Looks up a column by one of its request names, ignoring case.
+     *
+     * @param name the column name as given in the request
+     * @return the column, or empty if the name is unknown
+     */
+    public static Optional<ExportColumn> fromName(String name) {
+        return Optional.ofNullable(name == null ? null : BY_NAME.get(name.toLowerCase(Locale.ROOT)));
+    }
+    
+    /**
+     * Returns the canonical name of this column, used as its field name in structured formats.
+     *
+     * @return the first of the column's request names
+     */
+    public String getFieldName() {
+        return names.get(0);
+    }
+    
+    /**
+     * Reads the typed value of this column from an export row.
+     * The runtime type matches {@link #getType()}.
+     *
+     * @param row the export row
+     * @return the value, or null if the row has none
+     */
+    public Object value(SubmissionExportRow row) {
+        return accessor.apply(row);
+    }
+    
+    /**
+     * Renders the value of this column from an export row as text.
+     *
+     * @param row the export row
+     * @return the rendered value, empty string if the row has none
+     */
+    public String text(SubmissionExportRow row) {
+        Object value = accessor.apply(row);
+        if (value == null) {
+            return "";
+        }
+        return switch (type) {
+            case TEXT -> (String) value;
+            case IDENTIFIER, NUMBER -> value.toString();
+            case DATETIME -> DATETIME_FORMATTER.format((LocalDateTime) value);
+        };
+    }
+    
+    private static Map<String, ExportColumn> indexByName() {
+        Map<String, ExportColumn> byName = new HashMap<>();
+        for (ExportColumn column : values()) {
+            for (String name : column.names) {
+                byName.put(name.toLowerCase(Locale.ROOT), column);
+            }
+        }
+        return Map.copyOf(byName);
+    }
+    
+}
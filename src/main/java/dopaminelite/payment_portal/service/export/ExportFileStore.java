@@ -0,0 +1,82 @@
+package dopaminelite.payment_portal.service.export;
+
+import dopaminelite.payment_portal.config.DataSheetExportProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Local file store for rendered export files.
+ * Files are first written under a temporary name and published with an atomic move,
+ * so readers never see a partially written file.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExportFileStore {
+    
+    private static final String PARTIAL_SUFFIX = ".part";
+    
+    private final DataSheetExportProperties properties;
+    
+    @PostConstruct
+    void init() {
+        try {
+            Files.createDirectories(properties.getSpoolDirectory());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create export spool directory " + properties.getSpoolDirectory(), e);
+        }
+    }
+    
+    /**
+     * Returns the path of a file in the spool directory.
+     *
+     * @param name the file name
+     * @return the resolved path
+     */
+    public Path resolve(String name) {
+        return properties.getSpoolDirectory().resolve(name);
+    }
+    
+    /**
+     * Returns the temporary path a file is written to before it is published.
+     *
+     * @param name the final file name
+     * @return the resolved temporary path
+     */
+    public Path partial(String name) {
+        return resolve(name + PARTIAL_SUFFIX);
+    }
+    
+    /**
+     * Publishes a fully written temporary file under its final name.
+     *
+     * @param name the final file name
+     * @return the path of the published file
+     * @throws IOException if the file cannot be moved
+     */
+    public Path publish(String name) throws IOException {
+        return Files.move(partial(name), resolve(name), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    /**
+     * Deletes a file if it exists, logging instead of failing.
+     *
+     * @param path the file to delete
+     */
+    public void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("[EXPORT] Could not delete spooled file {}", path, e);
+        }
+    }
+    
+}
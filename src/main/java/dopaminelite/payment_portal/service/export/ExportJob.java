@@ -0,0 +1,107 @@
+package dopaminelite.payment_portal.service.export;
+
+import dopaminelite.payment_portal.dto.export.DataSheetExportRequest;
+import dopaminelite.payment_portal.entity.enums.ExportJobStatus;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * In-memory state of an asynchronous export job.
+ * Written by the export worker, which reports its progress to the job, and read concurrently by
+ * status requests.
+ */
+@Getter
+public class ExportJob implements ExportProgress {
+    
+    /**
+     * Share of the progress percentage given to reading rows; rendering them makes up the rest.
+     * Rows are read ahead of rendering, so each phase moves the percentage on its own.
+     */
+    static final int FETCH_PERCENT = 50;
+    
+    private final UUID id;
+    private final DataSheetExportRequest request;
+    private final ColumnPlan columns;
+    private final LocalDateTime createdAt;
+    
+    private volatile ExportJobStatus status = ExportJobStatus.QUEUED;
+    private volatile long rowsRead;
+    private volatile long rowsWritten;
+    private volatile Long totalRows;
+    private volatile Path file;
+    private volatile Long fileSize;
+    private volatile String errorMessage;
+    private volatile LocalDateTime completedAt;
+    private volatile LocalDateTime expiresAt;
+    
+    public ExportJob(UUID id, DataSheetExportRequest request, ColumnPlan columns) {
+        this.id = id;
+        this.request = request;
+        this.columns = columns;
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    public void markRunning(long totalRows) {
+        this.totalRows = totalRows;
+        this.status = ExportJobStatus.RUNNING;
+    }
+    
+    @Override
+    public void onRowsRead(long rowsRead) {
+        this.rowsRead = rowsRead;
+    }
+    
+    @Override
+    public void onRowsRendered(long rowsRendered) {
+        this.rowsWritten = rowsRendered;
+    }
+    
+    public void markCompleted(Path file, long fileSize, LocalDateTime expiresAt) {
+        this.file = file;
+        this.fileSize = fileSize;
+        this.completedAt = LocalDateTime.now();
+        this.expiresAt = expiresAt;
+        this.status = ExportJobStatus.COMPLETED;
+    }
+    
+    public void markFailed(String errorMessage, LocalDateTime expiresAt) {
+        this.errorMessage = errorMessage;
+        this.completedAt = LocalDateTime.now();
+        this.expiresAt = expiresAt;
+        this.status = ExportJobStatus.FAILED;
+    }
+    
+    /**
+     * Returns the completion percentage, or null while the total row count is unknown.
+     * Reading the rows covers the first {@value #FETCH_PERCENT} percent and rendering them the rest.
+     * Stays below 100 until the file has been published.
+     */
+    public Integer getProgressPercent() {
+        Long total = totalRows;
+        if (status == ExportJobStatus.COMPLETED) {
+            return 100;
+        }
+        if (total == null) {
+            return null;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long done = rowsRead * FETCH_PERCENT + rowsWritten * (100 - FETCH_PERCENT);
+        return (int) Math.min(99, done / total);
+    }
+    
+    /**
+     * Returns true if the job has finished and its retention period has passed.
+     *
+     * @param now the current time
+     */
+    public boolean isExpired(LocalDateTime now) {
+        LocalDateTime expiry = expiresAt;
+        return expiry != null && expiry.isBefore(now);
+    }
+    
+}
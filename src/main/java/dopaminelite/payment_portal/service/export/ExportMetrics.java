@@ -0,0 +1,115 @@
+package dopaminelite.payment_portal.service.export;
+
+import dopaminelite.payment_portal.config.DataSheetExportProperties;
+import dopaminelite.payment_portal.dto.export.DataSheetExportRequest;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the {@link ExportStats} of each rendered export as {@code export.*} meters, tagged by
+ * format and type, and logs exports slower than the configured threshold with their filters.
+ *
+ * <p>{@code export.duration} is recorded for every export, whether it succeeded or not, with an
+ * {@code outcome} tag of {@code success}, {@code aborted} or {@code failure}. The other meters
+ * describe completed exports only:
+ *
+ * <ul>
+ *   <li>{@code export.query}, {@code export.hydration}: the fetch phase, until the first row and for the rest</li>
+ *   <li>{@code export.connection.hold}: query and hydration together, the time a connection was held</li>
+ *   <li>{@code export.render}: rendering after the connection was released, including writes to the client</li>
+ *   <li>{@code export.bytes.written}: bytes written to the destination, after compression</li>
+ *   <li>{@code export.throughput}: rows per second over the whole export</li>
+ *   <li>{@code export.spool.memory}: estimated in-memory size of the row spool; not the export's whole
+ *       footprint, as encoder buffers, parallel partitions and gzip or ZIP state are not counted</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExportMetrics {
+    
+    private final MeterRegistry registry;
+    private final DataSheetExportProperties properties;
+    
+    /**
+     * Records an export that has ended, successfully or not.
+     *
+     * @param request the export request, for tags and the slow-export log line
+     * @param stats the export's timings and sizes, with its outcome set
+     */
+    public void record(DataSheetExportRequest request, ExportStats stats) {
+        Tags tags = Tags.of("format", request.getFormat().name(), "type", request.getType().name());
+        
+        timer("export.duration", "Time from the start of an export until it ended, by outcome",
+                tags.and("outcome", stats.getOutcome().tag()))
+                .record(stats.getTotalNanos(), TimeUnit.NANOSECONDS);
+        if (stats.getOutcome() != ExportStats.Outcome.SUCCESS) {
+            log.debug("[EXPORT] {} export ended with outcome {} after {} ms and {} bytes",
+                    request.getFormat(), stats.getOutcome().tag(),
+                    TimeUnit.NANOSECONDS.toMillis(stats.getTotalNanos()), stats.getBytesWritten());
+            return;
+        }
+        
+        timer("export.query", "Time until an export's query returned its first row", tags)
+                .record(stats.getQueryNanos(), TimeUnit.NANOSECONDS);
+        timer("export.hydration", "Time spent reading an export's rows after the first", tags)
+                .record(stats.getHydrationNanos(), TimeUnit.NANOSECONDS);
+        timer("export.connection.hold", "Time an export held a database connection while fetching its rows", tags)
+                .record(stats.getConnectionNanos(), TimeUnit.NANOSECONDS);
+        timer("export.render", "Time an export spent rendering after releasing its database connection", tags)
+                .record(stats.getRenderNanos(), TimeUnit.NANOSECONDS);
+        
+        DistributionSummary.builder("export.bytes.written")
+                .description("Bytes written per export")
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(registry)
+                .record(stats.getBytesWritten());
+        DistributionSummary.builder("export.throughput")
+                .description("Rows exported per second")
+                .baseUnit("rows")
+                .tags(tags)
+                .register(registry)
+                .record(stats.getRowsPerSecond());
+        DistributionSummary.builder("export.spool.memory")
+                .description("Estimated in-memory size of an export's row spool, excluding encoder and compression buffers")
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(registry)
+                .record(stats.getSpooledMemoryBytes());
+        
+        long totalMillis = TimeUnit.NANOSECONDS.toMillis(stats.getTotalNanos());
+        if (totalMillis >= properties.getMetrics().getSlowThreshold().toMillis()) {
+            log.warn("[EXPORT] Slow {} export took {} ms (query {} ms, hydration {} ms, render {} ms), "
+                            + "{} rows, {} bytes, spilled={}; type={}, month={}, year={}, submissionIds={}, "
+                            + "columns={}, compression={}",
+                    request.getFormat(), totalMillis,
+                    TimeUnit.NANOSECONDS.toMillis(stats.getQueryNanos()),
+                    TimeUnit.NANOSECONDS.toMillis(stats.getHydrationNanos()),
+                    TimeUnit.NANOSECONDS.toMillis(stats.getRenderNanos()),
+                    stats.getRows(), stats.getBytesWritten(), stats.isSpilled(),
+                    request.getType(), request.getMonth(), request.getYear(),
+                    request.getSubmissionIds() != null ? request.getSubmissionIds().size() : 0,
+                    request.getColumns(), request.getCompression());
+        } else {
+            log.debug("[EXPORT] {} export of {} rows held a connection for {} ms{}, then rendered for {} ms",
+                    request.getFormat(), stats.getRows(), TimeUnit.NANOSECONDS.toMillis(stats.getConnectionNanos()),
+                    stats.isSpilled() ? " spilling to disk" : "", TimeUnit.NANOSECONDS.toMillis(stats.getRenderNanos()));
+        }
+    }
+    
+    private Timer timer(String name, String description, Tags tags) {
+        return Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .register(registry);
+    }
+    
+}
@@ -0,0 +1,142 @@
+package dopaminelite.payment_portal.service.export;
+
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
+import dopaminelite.payment_portal.entity.enums.ExportSplit;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Splits one pass over an export's rows into consecutive parts.
+ *
+ * <p>Each part is a view of the shared row iterator that ends after the part's row limit or, when
+ * splitting by portal, before the first row of another portal. Nothing is buffered beyond one row
+ * of look-ahead, so a part must be read to its end before the next one is requested.
+ */
+public final class ExportParts implements Iterator<ExportParts.Part> {
+    
+    private final Iterator<SubmissionExportRow> rows;
+    private final ExportSplit split;
+    private final long partRows;
+    
+    private SubmissionExportRow pending;
+    private Part current;
+    private int parts;
+    
+    /**
+     * @param rows the export's rows, grouped by portal when splitting by portal
+     * @param split how to split the rows
+     * @param partRows the maximum number of rows per part when splitting by rows
+     */
+    public ExportParts(Iterator<SubmissionExportRow> rows, ExportSplit split, long partRows) {
+        if (split == ExportSplit.ROWS && partRows < 1) {
+            throw new IllegalArgumentException("Part size must be positive: " + partRows);
+        }
+        this.rows = rows;
+        this.split = split;
+        this.partRows = split == ExportSplit.ROWS ? partRows : Long.MAX_VALUE;
+    }
+    
+    /**
+     * Returns whether another part follows. An export without rows still has one empty part when it
+     * is not split by portal, so the result always contains the column headers.
+     */
+    @Override
+    public boolean hasNext() {
+        if (current != null && current.hasNext()) {
+            throw new IllegalStateException("Part " + current.number + " has not been read to its end");
+        }
+        return peek() != null || (parts == 0 && split != ExportSplit.PORTAL);
+    }
+    
+    @Override
+    public Part next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        SubmissionExportRow first = peek();
+        current = first != null
+                ? new Part(++parts, first.getPortalId(), first.getPortalName())
+                : new Part(++parts, null, null);
+        return current;
+    }
+    
+    private SubmissionExportRow peek() {
+        if (pending == null && rows.hasNext()) {
+            pending = rows.next();
+        }
+        return pending;
+    }
+    
+    /**
+     * One part of a split export.
+     */
+    public final class Part implements Iterator<SubmissionExportRow> {
+        
+        private final int number;
+        private final UUID portalId;
+        private final String portalName;
+        private long count;
+        
+        private Part(int number, UUID portalId, String portalName) {
+            this.number = number;
+            this.portalId = portalId;
+            this.portalName = portalName;
+        }
+        
+        /**
+         * @return the part's position in the export, starting at 1
+         */
+        public int getNumber() {
+            return number;
+        }
+        
+        /**
+         * @return the portal whose rows the part contains when splitting by portal, otherwise the first row's portal
+         */
+        public UUID getPortalId() {
+            return portalId;
+        }
+        
+        /**
+         * @return the portal name of the part's first row, null if the part is empty or the name was not read
+         */
+        public String getPortalName() {
+            return portalName;
+        }
+        
+        /**
+         * @return the part's rows, backed by the shared iterator
+         */
+        public Stream<SubmissionExportRow> rows() {
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false);
+        }
+        
+        @Override
+        public boolean hasNext() {
+            if (count >= partRows || peek() == null) {
+                return false;
+            }
+            return split != ExportSplit.PORTAL || Objects.equals(pending.getPortalId(), portalId);
+        }
+        
+        @Override
+        public SubmissionExportRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            SubmissionExportRow row = pending;
+            pending = null;
+            count++;
+            return row;
+        }
+    
+    }
+    
+}
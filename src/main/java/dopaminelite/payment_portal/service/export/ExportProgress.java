@@ -0,0 +1,31 @@
+package dopaminelite.payment_portal.service.export;
+
+/**
+ * Callback notified as an export's rows are read from the database and then rendered.
+ * All rows are read before the first one is rendered.
+ */
+@FunctionalInterface
+public interface ExportProgress {
+    
+    /**
+     * Progress listener that ignores all updates.
+     */
+    ExportProgress NONE = rowsRead -> {
+    };
+    
+    /**
+     * Called each time a row is read from the database.
+     *
+     * @param rowsRead the number of rows read so far
+     */
+    void onRowsRead(long rowsRead);
+    
+    /**
+     * Called each time a row is handed to the writer.
+     *
+     * @param rowsRendered the number of rows rendered so far
+     */
+    default void onRowsRendered(long rowsRendered) {
+    }
+    
+}
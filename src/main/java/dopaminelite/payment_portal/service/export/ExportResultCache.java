@@ -0,0 +1,448 @@
+package dopaminelite.payment_portal.service.export;
+
+import dopaminelite.payment_portal.config.DataSheetExportProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Cache of rendered exports, keyed by {@link ExportCacheKey}.
+ *
+ * <p>A cache miss renders the export once, streaming it to the client while a copy is written to
+ * the spool directory. Every entry keeps that file; entries up to the configured size are also held
+ * in memory. When the memory budget is exceeded the least recently used entries spill to their disk
+ * copy, and when the disk budget is exceeded they are dropped. Entries expire after the TTL.
+ *
+ * <p>Every entry records the SHA-256 hash of its content and the time its render started, which
+ * serve as its ETag and Last-Modified validators for resumed downloads. If the client disconnects
+ * part-way through a render, the render stops and nothing is cached, so the export's admission
+ * permit is not held for a download nobody is reading; a resumed download renders it again.
+ *
+ * <p>Entries are invalidated after a submission in their slice is created or changes status. A render
+ * that was in progress during an invalidation is not cached, because it may have read the old data.
+ * Hits, misses, evictions and invalidations are published as {@code export.cache.*} metrics.
+ */
+@Slf4j
+@Component
+public class ExportResultCache {
+    
+    private static final String FILE_PREFIX = "cache-";
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    
+    private final DataSheetExportProperties.Cache settings;
+    private final ExportFileStore fileStore;
+    private final Path spoolDirectory;
+    
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<ExportCacheKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private volatile long memoryBytes;
+    private volatile long diskBytes;
+    private long generation;
+    
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter invalidations;
+    
+    public ExportResultCache(DataSheetExportProperties properties, ExportFileStore fileStore, MeterRegistry registry) {
+        this.settings = properties.getCache();
+        this.fileStore = fileStore;
+        this.spoolDirectory = properties.getSpoolDirectory();
+        
+        this.hits = Counter.builder("export.cache.requests").tag("result", "hit")
+                .description("Export requests served from the result cache").register(registry);
+        this.misses = Counter.builder("export.cache.requests").tag("result", "miss")
+                .description("Cacheable export requests that had to be rendered").register(registry);
+        this.evictions = Counter.builder("export.cache.evictions")
+                .description("Cached exports dropped for size or age").register(registry);
+        this.invalidations = Counter.builder("export.cache.invalidations")
+                .description("Cached exports dropped because a submission in their slice changed").register(registry);
+        Gauge.builder("export.cache.size", this, cache -> cache.memoryBytes).tag("tier", "memory")
+                .baseUnit("bytes").register(registry);
+        Gauge.builder("export.cache.size", this, cache -> cache.diskBytes).tag("tier", "disk")
+                .baseUnit("bytes").register(registry);
+        Gauge.builder("export.cache.entries", this, ExportResultCache::entryCount).register(registry);
+    }
+    
+    /**
+     * The cache is held in memory, so files from a previous run are no longer referenced by any entry
+     * and are removed on startup.
+     */
+    @PostConstruct
+    void removeLeftoverFiles() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spoolDirectory, FILE_PREFIX + "*")) {
+            files.forEach(fileStore::delete);
+        } catch (IOException e) {
+            log.warn("[EXPORT] Could not clean up cached exports", e);
+        }
+    }
+    
+    /**
+     * @return whether the cache is enabled
+     */
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+    
+    /**
+     * Looks up a cached export and opens it for reading.
+     *
+     * @param key the export identity
+     * @return the opened export, or empty on a miss
+     */
+    public synchronized Optional<CachedExport> get(ExportCacheKey key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt.isBefore(LocalDateTime.now())) {
+            remove(key);
+            evictions.increment();
+            entry = null;
+        }
+        
+        if (entry != null) {
+            try {
+                CachedExport export = entry.data != null
+                        ? CachedExport.inMemory(entry.data, entry.contentHash, entry.renderedAt)
+                        : CachedExport.onDisk(FileChannel.open(entry.file), entry.size, entry.contentHash, entry.renderedAt);
+                hits.increment();
+                return Optional.of(export);
+            } catch (IOException e) {
+                log.warn("[EXPORT] Cached export file {} is unreadable, dropping it", entry.file, e);
+                remove(key);
+            }
+        }
+        
+        misses.increment();
+        return Optional.empty();
+    }
+    
+    /**
+     * Renders an export to the output stream and caches the result if rendering succeeds.
+     * A failure to write the cached copy never affects the client's download. A failure to write
+     * to the client stops the render and discards the copy.
+     *
+     * @param key the export identity
+     * @param renderedAt when the render started, kept as the entry's Last-Modified time
+     * @param out the client's output stream
+     * @param writer renders the export to the stream it is given
+     * @throws IOException if rendering or writing to the client fails
+     */
+    public void render(ExportCacheKey key, Instant renderedAt, OutputStream out, ExportWriter writer) throws IOException {
+        long startGeneration = currentGeneration();
+        String name = FILE_PREFIX + UUID.randomUUID();
+        Path partial = fileStore.partial(name);
+        
+        RecordingOutputStream recording = new RecordingOutputStream(out, partial);
+        boolean rendered = false;
+        try {
+            writer.write(recording);
+            rendered = true;
+        } finally {
+            recording.closeCopy();
+            if (!rendered || !recording.copyComplete()) {
+                fileStore.delete(partial);
+            }
+        }
+        
+        if (recording.copyComplete()) {
+            try {
+                store(key, fileStore.publish(name), recording.contentHash(), renderedAt, startGeneration);
+            } catch (IOException e) {
+                log.warn("[EXPORT] Could not cache export {}", key, e);
+                fileStore.delete(partial);
+                fileStore.delete(fileStore.resolve(name));
+            }
+        }
+    }
+    
+    /**
+     * Drops every entry whose slice contains the changed submission. Runs after the change commits,
+     * so exports rendered from then on see it.
+     *
+     * @param event the submission change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSubmissionChanged(SubmissionChangedEvent event) {
+        List<Path> files = new ArrayList<>();
+        synchronized (this) {
+            generation++;
+            Iterator<Map.Entry<ExportCacheKey, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<ExportCacheKey, Entry> mapEntry = iterator.next();
+                if (mapEntry.getKey().covers(event)) {
+                    iterator.remove();
+                    files.add(release(mapEntry.getValue()));
+                    invalidations.increment();
+                }
+            }
+        }
+        files.forEach(fileStore::delete);
+        if (!files.isEmpty()) {
+            log.debug("[EXPORT] Invalidated {} cached exports after submission {} changed",
+                    files.size(), event.submissionId());
+        }
+    }
+    
+    /**
+     * Drops every cached export.
+     */
+    public void invalidateAll() {
+        List<Path> files = new ArrayList<>();
+        synchronized (this) {
+            generation++;
+            entries.values().forEach(entry -> files.add(release(entry)));
+            entries.clear();
+        }
+        files.forEach(fileStore::delete);
+    }
+    
+    /**
+     * Removes expired entries and deletes their files.
+     */
+    @Scheduled(fixedDelayString = "${data-sheet.export.cache.cleanup-interval:PT5M}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Path> files = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.expiresAt.isBefore(now)) {
+                    iterator.remove();
+                    files.add(release(entry));
+                    evictions.increment();
+                }
+            }
+        }
+        files.forEach(fileStore::delete);
+    }
+    
+    private synchronized long currentGeneration() {
+        return generation;
+    }
+    
+    private synchronized int entryCount() {
+        return entries.size();
+    }
+    
+    private void store(ExportCacheKey key, Path file, String contentHash, Instant renderedAt, long startGeneration)
+            throws IOException {
+        long size = Files.size(file);
+        byte[] data = size <= settings.getMaxEntryMemoryBytes() ? Files.readAllBytes(file) : null;
+        
+        List<Path> dropped = new ArrayList<>();
+        synchronized (this) {
+            if (generation != startGeneration || size > settings.getMaxDiskBytes()) {
+                dropped.add(file);
+            } else {
+                Entry entry = new Entry(file, size, data, contentHash, renderedAt, LocalDateTime.now().plus(settings.getTtl()));
+                Entry previous = entries.put(key, entry);
+                if (previous != null) {
+                    dropped.add(release(previous));
+                }
+                diskBytes += size;
+                if (data != null) {
+                    memoryBytes += size;
+                }
+                enforceBudgets(dropped);
+            }
+        }
+        dropped.forEach(fileStore::delete);
+    }
+    
+    /**
+     * Spills least recently used entries out of memory, then drops them from disk, until both tiers
+     * are within budget. Must be called while holding the lock.
+     */
+    private void enforceBudgets(List<Path> dropped) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (memoryBytes > settings.getMaxMemoryBytes() && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.data != null) {
+                entry.data = null;
+                memoryBytes -= entry.size;
+            }
+        }
+        
+        iterator = entries.values().iterator();
+        while (diskBytes > settings.getMaxDiskBytes() && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            iterator.remove();
+            dropped.add(release(entry));
+            evictions.increment();
+        }
+    }
+    
+    private void remove(ExportCacheKey key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            fileStore.delete(release(entry));
+        }
+    }
+    
+    /**
+     * Updates the size accounting for an entry leaving the cache and returns its file for deletion.
+     */
+    private Path release(Entry entry) {
+        if (entry.data != null) {
+            memoryBytes -= entry.size;
+            entry.data = null;
+        }
+        diskBytes -= entry.size;
+        return entry.file;
+    }
+    
+    /**
+     * Renders an export to an output stream.
+     */
+    @FunctionalInterface
+    public interface ExportWriter {
+        void write(OutputStream out) throws IOException;
+    }
+    
+    private static final class Entry {
+        private final Path file;
+        private final long size;
+        private final String contentHash;
+        private final Instant renderedAt;
+        private final LocalDateTime expiresAt;
+        private byte[] data;
+        
+        private Entry(Path file, long size, byte[] data, String contentHash, Instant renderedAt, LocalDateTime expiresAt) {
+            this.file = file;
+            this.size = size;
+            this.data = data;
+            this.contentHash = contentHash;
+            this.renderedAt = renderedAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+    
+    /**
+     * Passes everything through to the client and keeps a hashed copy on disk. If the copy cannot
+     * be written it is abandoned and the client stream carries on unaffected. If the client stream
+     * fails, the copy is discarded and the failure ends the render.
+     */
+    private static final class RecordingOutputStream extends OutputStream {
+        private final OutputStream out;
+        private OutputStream copy;
+        private boolean copyFailed;
+        private final MessageDigest digest = sha256();
+        
+        private RecordingOutputStream(OutputStream out, Path file) {
+            this.out = out;
+            try {
+                this.copy = new BufferedOutputStream(Files.newOutputStream(file), COPY_BUFFER_SIZE);
+            } catch (IOException e) {
+                abandonCopy(e);
+            }
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            try {
+                out.write(b, off, len);
+            } catch (IOException e) {
+                discardCopy();
+                throw e;
+            }
+            if (copy != null) {
+                try {
+                    copy.write(b, off, len);
+                    digest.update(b, off, len);
+                } catch (IOException e) {
+                    abandonCopy(e);
+                }
+            }
+        }
+        
+        @Override
+        public void flush() throws IOException {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                discardCopy();
+                throw e;
+            }
+        }
+        
+        private boolean copyComplete() {
+            return !copyFailed;
+        }
+        
+        private String contentHash() {
+            return HexFormat.of().formatHex(digest.digest());
+        }
+        
+        private void closeCopy() {
+            if (copy != null) {
+                try {
+                    copy.close();
+                } catch (IOException e) {
+                    abandonCopy(e);
+                }
+                copy = null;
+            }
+        }
+        
+        private void discardCopy() {
+            log.debug("[EXPORT] Client disconnected, discarding the cached copy of the export");
+            abandon();
+        }
+        
+        private void abandonCopy(IOException e) {
+            log.warn("[EXPORT] Could not write cached copy of export, serving it uncached", e);
+            abandon();
+        }
+        
+        private void abandon() {
+            copyFailed = true;
+            if (copy != null) {
+                try {
+                    copy.close();
+                } catch (IOException ignored) {
+                    // Already failing; the partial file is deleted by the caller
+                }
+                copy = null;
+            }
+        }
+        
+        private static MessageDigest sha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+    }
+    
+}
@@ -0,0 +1,82 @@
+package dopaminelite.payment_portal.service.export;
+
+import dopaminelite.payment_portal.config.DataSheetExportProperties;
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
+import dopaminelite.payment_portal.entity.enums.SubmissionStatus;
+import dopaminelite.payment_portal.repository.PaymentSubmissionRepository;
+import dopaminelite.payment_portal.repository.SubmissionExportRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Fetch phase of an export: reads the rows through a database cursor into {@link SpooledRows}
+ * inside a short read-only transaction. The connection goes back to the pool when the method
+ * returns, before any rendering starts.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExportRowReader {
+    
+    private static final String FILE_PREFIX = "rows-";
+    
+    private final PaymentSubmissionRepository submissionRepository;
+    private final ExportFileStore fileStore;
+    private final DataSheetExportProperties properties;
+    
+    /**
+     * Spill files only live as long as one export, so any found on startup are left over from a crash.
+     */
+    @PostConstruct
+    void removeLeftoverFiles() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(properties.getSpoolDirectory(), FILE_PREFIX + "*")) {
+            files.forEach(fileStore::delete);
+        } catch (IOException e) {
+            log.warn("[EXPORT] Could not clean up spilled export rows", e);
+        }
+    }
+    
+    /**
+     * Reads every row of an export. See {@link SubmissionExportRepository#streamExportRows} for the
+     * filters and row order.
+     *
+     * @param submissionIds specific submissions to export, null or empty to use the other filters
+     * @param status filter by submission status, null for no filtering
+     * @param month filter by portal's month (1-12), null for no filtering
+     * @param year filter by portal's year, null for no filtering
+     * @param columns the columns that will be rendered
+     * @param groupByPortal whether filtered rows are grouped by portal
+     * @param progress listener notified as rows are read
+     * @param stats receives the end of the query, once the first row has been read
+     * @return the rows, which the caller must close
+     * @throws IOException if the rows cannot be spilled to disk
+     */
+    @Transactional(readOnly = true)
+    public SpooledRows read(List<UUID> submissionIds, SubmissionStatus status, Integer month, Integer year,
+                            Set<ExportColumn> columns, boolean groupByPortal, ExportProgress progress,
+                            ExportStats stats) throws IOException {
+        try (Stream<SubmissionExportRow> rows = submissionRepository.streamExportRows(
+                submissionIds, status, month, year, columns, groupByPortal)) {
+            Iterator<SubmissionExportRow> iterator = rows.iterator();
+            // Executes the query and fetches the first batch
+            iterator.hasNext();
+            stats.queried();
+            Path spillFile = fileStore.resolve(FILE_PREFIX + UUID.randomUUID());
+            return SpooledRows.drain(iterator, properties.getFetch().getMaxMemoryRows(), spillFile, progress);
+        }
+    }
+    
+}
@@ -0,0 +1,183 @@
+package dopaminelite.payment_portal.service.export;
+
+/**
+ * Timings and sizes of one export, collected as it moves through the fetch and render phases and
+ * published by {@link ExportMetrics}.
+ *
+ * <p>The fetch phase is split into the query, up to the first row, and hydration, which reads the
+ * remaining rows into {@link SpooledRows}. Together they are the time the export held a database
+ * connection. Rendering runs from the end of the fetch until the output is complete.
+ *
+ * <p>Every export ends with an {@link Outcome}. Phase timings are only complete for a successful one.
+ */
+public final class ExportStats {
+    
+    /**
+     * How an export ended.
+     */
+    public enum Outcome {
+        /**
+         * The whole export was written.
+         */
+        SUCCESS,
+        
+        /**
+         * Writing to the destination failed, typically because the client went away.
+         */
+        ABORTED,
+        
+        /**
+         * The export failed for any other reason, such as a query or rendering error.
+         */
+        FAILURE;
+        
+        /**
+         * @return the value of the {@code outcome} meter tag
+         */
+        public String tag() {
+            return name().toLowerCase();
+        }
+    }
+    
+    private final long startNanos = System.nanoTime();
+    private long queriedNanos;
+    private long fetchedNanos;
+    private long finishedNanos;
+    
+    private long rows;
+    private long spooledMemoryBytes;
+    private boolean spilled;
+    private long bytesWritten;
+    private Outcome outcome;
+    
+    /**
+     * Marks the end of the query, once the first row (or the end of the result) has been read.
+     */
+    public void queried() {
+        queriedNanos = System.nanoTime();
+    }
+    
+    /**
+     * Marks the end of the fetch phase, once the connection has been released.
+     *
+     * @param fetched the rows read by the fetch
+     */
+    public void fetched(SpooledRows fetched) {
+        fetchedNanos = System.nanoTime();
+        if (queriedNanos == 0) {
+            queriedNanos = fetchedNanos;
+        }
+        rows = fetched.size();
+        spooledMemoryBytes = fetched.getMemoryBytes();
+        spilled = fetched.isSpilled();
+    }
+    
+    /**
+     * Marks the successful end of the export.
+     *
+     * @param bytesWritten the number of bytes written to the destination
+     */
+    public void finished(long bytesWritten) {
+        end(bytesWritten, Outcome.SUCCESS);
+    }
+    
+    /**
+     * Marks the end of an export that did not complete.
+     *
+     * @param bytesWritten the number of bytes written to the destination before it stopped
+     * @param aborted whether it stopped because writing to the destination failed
+     */
+    public void failed(long bytesWritten, boolean aborted) {
+        end(bytesWritten, aborted ? Outcome.ABORTED : Outcome.FAILURE);
+    }
+    
+    private void end(long bytesWritten, Outcome outcome) {
+        finishedNanos = System.nanoTime();
+        this.bytesWritten = bytesWritten;
+        this.outcome = outcome;
+    }
+    
+    /**
+     * @return how the export ended, null while it is still running
+     */
+    public Outcome getOutcome() {
+        return outcome;
+    }
+    
+    /**
+     * @return nanoseconds until the first row was read
+     */
+    public long getQueryNanos() {
+        return queriedNanos - startNanos;
+    }
+    
+    /**
+     * @return nanoseconds spent reading the rows after the first
+     */
+    public long getHydrationNanos() {
+        return fetchedNanos - queriedNanos;
+    }
+    
+    /**
+     * @return nanoseconds the export held a database connection
+     */
+    public long getConnectionNanos() {
+        return fetchedNanos - startNanos;
+    }
+    
+    /**
+     * @return nanoseconds spent rendering after the connection was released
+     */
+    public long getRenderNanos() {
+        return finishedNanos - fetchedNanos;
+    }
+    
+    /**
+     * @return nanoseconds from the start of the fetch to the end of the export
+     */
+    public long getTotalNanos() {
+        return finishedNanos - startNanos;
+    }
+    
+    /**
+     * @return the number of rows exported
+     */
+    public long getRows() {
+        return rows;
+    }
+    
+    /**
+     * Returns an estimate of the in-memory part of the row spool, the fetched rows {@link SpooledRows}
+     * keeps until rendering ends. It is not the export's memory footprint: partitions the
+     * {@link PartitionedRenderer} has encoded but not yet written, writer and encoder buffers, and
+     * gzip or ZIP state are not included.
+     *
+     * @return the estimated size of the spooled rows held in memory
+     */
+    public long getSpooledMemoryBytes() {
+        return spooledMemoryBytes;
+    }
+    
+    /**
+     * @return whether rows beyond the memory limit were spilled to disk
+     */
+    public boolean isSpilled() {
+        return spilled;
+    }
+    
+    /**
+     * @return the number of bytes written to the destination
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+    
+    /**
+     * @return rows exported per second over the whole export
+     */
+    public double getRowsPerSecond() {
+        long nanos = getTotalNanos();
+        return nanos > 0 ? rows * 1e9 / nanos : 0;
+    }
+    
+}
@@ -0,0 +1,104 @@
+package dopaminelite.payment_portal.service.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.io.SerializedString;
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Writes payment submissions as newline-delimited JSON (NDJSON), one object per line.
+ * Objects are written field by field with a streaming {@link JsonGenerator}, so no per-row tree
+ * or intermediate document is built. Field names are the canonical column names
+ * (e.g. {@code portalName} even when {@code portal} was requested), in the requested order.
+ * Timestamps are ISO-8601 local date-times, counts are numbers and missing values are null.
+ * Each line depends only on its own row, so large exports are encoded in parallel partitions.
+ */
+@Component
+@RequiredArgsConstructor
+public class NdjsonDataSheetWriter {
+    
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+    
+    private static final SerializedString LINE_SEPARATOR = new SerializedString("\n");
+    
+    private final PartitionedRenderer renderer;
+    
+    /**
+     * Writes one JSON object per submission, each terminated by a line feed.
+     * The output stream is flushed but not closed.
+     *
+     * @param rows the submission rows to write
+     * @param columns the compiled columns to include, in order
+     * @param out the destination stream
+     * @throws IOException if writing to the stream fails
+     */
+    public void write(Stream<SubmissionExportRow> rows, ColumnPlan columns, OutputStream out) throws IOException {
+        int[] fields = distinctFields(columns);
+        renderer.render(rows.iterator(), (partition, sink) -> writeRows(partition, columns, fields, sink), out);
+        out.flush();
+    }
+    
+    private void writeRows(List<SubmissionExportRow> rows, ColumnPlan columns, int[] fields, OutputStream out)
+            throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            generator.setRootValueSeparator(LINE_SEPARATOR);
+            for (SubmissionExportRow row : rows) {
+                generator.writeStartObject();
+                for (int index : fields) {
+                    ExportColumn column = columns.column(index);
+                    generator.writeFieldName(column.getFieldName());
+                    writeValue(generator, column.getType(), columns.value(row, index));
+                }
+                generator.writeEndObject();
+            }
+            // The separator only goes between values, so terminate the last line explicitly
+            if (!rows.isEmpty()) {
+                generator.writeRaw('\n');
+            }
+        }
+    }
+    
+    private void writeValue(JsonGenerator generator, ExportColumn.ColumnType type, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+            return;
+        }
+        switch (type) {
+            case TEXT -> generator.writeString((String) value);
+            case IDENTIFIER -> generator.writeString(value.toString());
+            case NUMBER -> generator.writeNumber(((Number) value).longValue());
+            case DATETIME -> generator.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format((LocalDateTime) value));
+        }
+    }
+    
+    /**
+     * Returns the plan positions to emit, skipping repeats of a column so every object has unique keys.
+     */
+    private int[] distinctFields(ColumnPlan columns) {
+        Set<ExportColumn> seen = EnumSet.noneOf(ExportColumn.class);
+        int[] fields = new int[columns.size()];
+        int count = 0;
+        for (int i = 0; i < columns.size(); i++) {
+            if (seen.add(columns.column(i))) {
+                fields[count++] = i;
+            }
+        }
+        return Arrays.copyOf(fields, count);
+    }
+    
+}
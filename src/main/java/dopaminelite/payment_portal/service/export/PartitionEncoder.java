@@ -0,0 +1,26 @@
+package dopaminelite.payment_portal.service.export;
+
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Encodes a run of consecutive export rows on its own.
+ * Implementations must produce output that depends only on the rows given, so partitions
+ * encoded independently and concatenated in order are identical to encoding all rows at once.
+ */
+@FunctionalInterface
+public interface PartitionEncoder {
+    
+    /**
+     * Encodes the rows of one partition.
+     *
+     * @param rows the rows, in export order
+     * @param out the destination stream, flushed but not closed by the encoder
+     * @throws IOException if writing to the stream fails
+     */
+    void encode(List<SubmissionExportRow> rows, OutputStream out) throws IOException;
+    
+}
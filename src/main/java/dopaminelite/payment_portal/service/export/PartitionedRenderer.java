@@ -0,0 +1,134 @@
+package dopaminelite.payment_portal.service.export;
+
+import dopaminelite.payment_portal.config.DataSheetExportProperties;
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Splits an export's rows into ordered partitions and encodes them, moving to a shared
+ * fork-join pool once an export grows past the configured row threshold.
+ *
+ * <p>The rows come from {@link SpooledRows}, so the database connection has already been
+ * released when rendering starts. They are read on the calling thread only, since a spill file
+ * is a single sequential stream. Partitions encoded on the pool are buffered and written to the
+ * output in their original order, so the result is byte-identical to sequential encoding. At
+ * most two partitions per pool thread are in flight, which bounds memory use.
+ */
+@Slf4j
+@Component
+public class PartitionedRenderer {
+    
+    private final DataSheetExportProperties.Parallel settings;
+    private final ForkJoinPool pool;
+    private final int maxInFlight;
+    
+    public PartitionedRenderer(DataSheetExportProperties properties) {
+        this.settings = properties.getParallel();
+        this.pool = new ForkJoinPool(settings.getParallelism());
+        this.maxInFlight = settings.getParallelism() * 2;
+    }
+    
+    /**
+     * Encodes all rows to the output stream, partition by partition.
+     * Partitions are encoded inline until more than the threshold number of rows has been read,
+     * and in parallel after that.
+     *
+     * @param rows the rows to encode, in export order
+     * @param encoder the encoder applied to each partition
+     * @param out the destination stream
+     * @throws IOException if encoding or writing fails
+     */
+    public void render(Iterator<SubmissionExportRow> rows, PartitionEncoder encoder, OutputStream out) throws IOException {
+        Deque<Future<ByteArrayOutputStream>> inFlight = new ArrayDeque<>();
+        long rowsRead = 0;
+        boolean parallel = false;
+        
+        try {
+            while (rows.hasNext()) {
+                List<SubmissionExportRow> partition = nextPartition(rows);
+                rowsRead += partition.size();
+                
+                if (!settings.isEnabled() || rowsRead <= settings.getRowThreshold()) {
+                    encoder.encode(partition, out);
+                    continue;
+                }
+                
+                if (!parallel) {
+                    log.debug("[EXPORT] Export passed {} rows, encoding remaining partitions in parallel",
+                            settings.getRowThreshold());
+                    parallel = true;
+                }
+                if (inFlight.size() >= maxInFlight) {
+                    writeChunk(inFlight.removeFirst(), out);
+                }
+                inFlight.addLast(pool.submit(() -> encodeChunk(encoder, partition)));
+            }
+            
+            while (!inFlight.isEmpty()) {
+                writeChunk(inFlight.removeFirst(), out);
+            }
+        
+        } finally {
+            // Only non-empty if the export failed part way
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+    
+    private List<SubmissionExportRow> nextPartition(Iterator<SubmissionExportRow> rows) {
+        List<SubmissionExportRow> partition = new ArrayList<>(settings.getPartitionSize());
+        while (partition.size() < settings.getPartitionSize() && rows.hasNext()) {
+            partition.add(rows.next());
+        }
+        return partition;
+    }
+    
+    private static ByteArrayOutputStream encodeChunk(PartitionEncoder encoder, List<SubmissionExportRow> partition) {
+        ByteArrayOutputStream chunk = new ByteArrayOutputStream(partition.size() * 128);
+        try {
+            encoder.encode(partition, chunk);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return chunk;
+    }
+    
+    private static void writeChunk(Future<ByteArrayOutputStream> future, OutputStream out) throws IOException {
+        try {
+            future.get().writeTo(out);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for an export partition");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Failed to encode export partition", cause);
+        }
+    }
+    
+}
@@ -0,0 +1,133 @@
+package dopaminelite.payment_portal.service.export;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfWriter;
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
+import org.springframework.stereotype.Component;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes payment submissions as a PDF report directly to an output stream.
+ * The table is built as an incomplete large element and flushed to the document every
+ * {@link #FLUSH_INTERVAL} rows, so finished pages are written out while later rows are still
+ * being read. The header row repeats on every page.
+ */
+@Component
+public class PdfDataSheetWriter {
+    
+    /**
+     * Number of rows added to the table before it is flushed to the document.
+     */
+    static final int FLUSH_INTERVAL = 500;
+    
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    
+    // Fonts are immutable once created and safe to share between exports
+    private static final Font TITLE_FONT = new Font(Font.HELVETICA, 18, Font.BOLD);
+    private static final Font INFO_FONT = new Font(Font.HELVETICA, 10, Font.NORMAL, Color.GRAY);
+    private static final Font HEADER_FONT = new Font(Font.HELVETICA, 10, Font.BOLD, Color.WHITE);
+    private static final Font CELL_FONT = new Font(Font.HELVETICA, 9, Font.NORMAL);
+    private static final Color HEADER_BACKGROUND = new Color(52, 73, 94);
+    
+    /**
+     * Writes the report title, a table with one row per submission and a record count footer.
+     * The output stream is flushed but not closed.
+     *
+     * @param rows the submission rows to write
+     * @param columns the compiled columns to include, in order
+     * @param out the destination stream
+     * @throws IOException if the document cannot be written
+     */
+    public void write(Stream<SubmissionExportRow> rows, ColumnPlan columns, OutputStream out) throws IOException {
+        Document document = new Document(PageSize.A4.rotate());
+        try {
+            PdfWriter.getInstance(document, out).setCloseStream(false);
+            document.open();
+            
+            // Add title
+            Paragraph title = new Paragraph("Payment Submissions Report", TITLE_FONT);
+            title.setAlignment(Element.ALIGN_CENTER);
+            title.setSpacingAfter(20);
+            document.add(title);
+            
+            // Add timestamp
+            Paragraph timestamp = new Paragraph("Generated: " + LocalDate.now().format(DATE_FORMATTER), INFO_FONT);
+            timestamp.setAlignment(Element.ALIGN_RIGHT);
+            timestamp.setSpacingAfter(10);
+            document.add(timestamp);
+            
+            PdfPTable table = createTable(columns);
+            
+            // Add data rows, flushing completed rows to the document as we go
+            long rowCount = 0;
+            Iterator<SubmissionExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                SubmissionExportRow row = iterator.next();
+                for (int i = 0; i < columns.size(); i++) {
+                    table.addCell(new Phrase(columns.text(row, i), CELL_FONT));
+                }
+                rowCount++;
+                if (rowCount % FLUSH_INTERVAL == 0) {
+                    document.add(table);
+                }
+            }
+            
+            if (rowCount == 0) {
+                // A table holding only its header rows is not drawn at all
+                table.setHeaderRows(0);
+            }
+            table.setComplete(true);
+            document.add(table);
+            
+            // Add footer
+            Paragraph footer = new Paragraph("Total Records: " + rowCount, INFO_FONT);
+            footer.setSpacingBefore(10);
+            document.add(footer);
+            
+            document.close();
+            out.flush();
+        
+        } catch (DocumentException e) {
+            throw new IOException("Failed to generate PDF", e);
+        }
+    }
+    
+    private PdfPTable createTable(ColumnPlan columns) {
+        PdfPTable table = new PdfPTable(columns.size());
+        table.setWidthPercentage(100);
+        table.setSpacingBefore(10);
+        table.setHeaderRows(1);
+        // Rows added after each flush are rendered and released by the next document.add
+        table.setComplete(false);
+        
+        // Data cells are created from the default cell, so their style is configured once
+        table.getDefaultCell().setPadding(5);
+        
+        // Add header row
+        for (int i = 0; i < columns.size(); i++) {
+            PdfPCell headerCell = new PdfPCell(new Phrase(columns.headerLabel(i), HEADER_FONT));
+            headerCell.setBackgroundColor(HEADER_BACKGROUND);
+            headerCell.setPadding(8);
+            headerCell.setHorizontalAlignment(Element.ALIGN_CENTER);
+            table.addCell(headerCell);
+        }
+        
+        return table;
+    }
+    
+}
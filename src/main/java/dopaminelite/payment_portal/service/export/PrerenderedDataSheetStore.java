@@ -0,0 +1,327 @@
+package dopaminelite.payment_portal.service.export;
+
+import dopaminelite.payment_portal.config.DataSheetExportProperties;
+import dopaminelite.payment_portal.dto.export.DataSheetExportRequest;
+import dopaminelite.payment_portal.entity.enums.DataSheetType;
+import dopaminelite.payment_portal.entity.enums.ExportCompression;
+import dopaminelite.payment_portal.entity.enums.ExportFormat;
+import dopaminelite.payment_portal.entity.enums.SubmissionStatus;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Index of pre-rendered monthly data sheets kept in the spool directory.
+ *
+ * <p>A pre-rendered sheet is the standard export of one closed month in the window of
+ * {@code months-back} months before the current one: every default column, one type and one of the
+ * configured formats, uncompressed. Requests for exactly that export are served from the file (see
+ * {@link #open}); anything else is rendered live. A PDF sheet states the day it was generated, so
+ * {@link #isCurrent} reports it out of date from the next day and the nightly run renders it again,
+ * while the other formats are kept for as long as their month is unchanged.
+ *
+ * <p>When a submission of a month in the window changes after commit, the sheets of its month that
+ * contain it are withdrawn at once, so they are never served stale, and queued for the next refresh.
+ * A render that started before such a change is discarded instead of published. Months that leave
+ * the window are dropped by {@link #withdrawOutsideWindow}, so the store's files and state stay
+ * bounded by the window.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PrerenderedDataSheetStore {
+    
+    private static final String FILE_PREFIX = "monthly-";
+    
+    private final DataSheetExportProperties properties;
+    private final ExportFileStore fileStore;
+    
+    private final Map<Key, Sheet> sheets = new HashMap<>();
+    private final Set<Key> stale = new LinkedHashSet<>();
+    private final Map<YearMonth, Long> generations = new HashMap<>();
+    
+    /**
+     * Identifies one pre-rendered sheet.
+     *
+     * @param month the closed month the sheet covers
+     * @param type the submissions included
+     * @param format the file format
+     */
+    public record Key(YearMonth month, DataSheetType type, ExportFormat format) {
+        
+        /**
+         * @return the export request this sheet answers
+         */
+        public DataSheetExportRequest toRequest() {
+            return new DataSheetExportRequest(type, format, month.getMonthValue(), month.getYear(),
+                    null, null, ExportCompression.NONE);
+        }
+        
+        private String fileName() {
+            return FILE_PREFIX + month + "-" + type.name().toLowerCase() + "-" + UUID.randomUUID()
+                    + "." + format.name().toLowerCase();
+        }
+    }
+    
+    private record Sheet(Path file, LocalDate renderedOn) {
+    }
+    
+    /**
+     * Files from a previous run cannot be trusted to be current, so they are removed on startup.
+     */
+    @PostConstruct
+    void removeLeftoverFiles() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(properties.getSpoolDirectory(), FILE_PREFIX + "*")) {
+            files.forEach(fileStore::delete);
+        } catch (IOException e) {
+            log.warn("[EXPORT] Could not clean up pre-rendered data sheets", e);
+        }
+    }
+    
+    /**
+     * Opens the pre-rendered sheet that answers a request, if there is one. Only filter-based
+     * requests for a month and year with the default columns can match; compression is applied by
+     * the caller. The sheet stays readable even if it is withdrawn while being copied.
+     *
+     * @param request the export request
+     * @return the opened sheet, which the caller must close, or empty if the request must be rendered
+     * @throws IOException if the sheet cannot be opened
+     */
+    public Optional<InputStream> open(DataSheetExportRequest request) throws IOException {
+        if (!properties.getPrerender().isEnabled()
+                || request.getMonth() == null || request.getYear() == null
+                || (request.getSubmissionIds() != null && !request.getSubmissionIds().isEmpty())
+                || (request.getColumns() != null && !request.getColumns().isEmpty())) {
+            return Optional.empty();
+        }
+        Key key = new Key(YearMonth.of(request.getYear(), request.getMonth()), request.getType(), request.getFormat());
+        synchronized (this) {
+            Sheet sheet = sheets.get(key);
+            if (sheet == null || !inWindow(key.month())) {
+                return Optional.empty();
+            }
+            return Optional.of(Files.newInputStream(sheet.file()));
+        }
+    }
+    
+    /**
+     * Returns whether a sheet is published and needs no new rendering. Any change to a submission
+     * of the month withdraws its sheets, so a published sheet always matches the month's current
+     * generation; a PDF sheet is also out of date once the day it states has passed.
+     *
+     * @param key the sheet
+     * @param today the current day
+     * @return whether rendering the sheet again would produce the same file
+     */
+    public synchronized boolean isCurrent(Key key, LocalDate today) {
+        Sheet sheet = sheets.get(key);
+        return sheet != null && (key.format() != ExportFormat.PDF || sheet.renderedOn().equals(today));
+    }
+    
+    /**
+     * Returns the keys of every sheet of a month in the configured formats.
+     *
+     * @param month the closed month
+     * @return one key per type and format
+     */
+    public List<Key> keysFor(YearMonth month) {
+        List<Key> keys = new ArrayList<>();
+        for (DataSheetType type : DataSheetType.values()) {
+            for (ExportFormat format : properties.getPrerender().getFormats()) {
+                keys.add(new Key(month, type, format));
+            }
+        }
+        return keys;
+    }
+    
+    /**
+     * @return the most recent month in the window, the one before the current month
+     */
+    public YearMonth lastMonth() {
+        return YearMonth.now().minusMonths(1);
+    }
+    
+    /**
+     * @return the oldest month in the window
+     */
+    public YearMonth firstMonth() {
+        return lastMonth().minusMonths(properties.getPrerender().getMonthsBack() - 1L);
+    }
+    
+    /**
+     * Returns the current generation of a month; a render publishes only if it is unchanged.
+     *
+     * @param month the month being rendered
+     * @return the generation to pass to {@link #publish}
+     */
+    public synchronized long generation(YearMonth month) {
+        return generations.getOrDefault(month, 0L);
+    }
+    
+    /**
+     * Returns a unique file name for a new rendering of a sheet. The rendering is written to the
+     * name's {@link ExportFileStore#partial} path and then passed to {@link #publish}.
+     *
+     * @param key the sheet
+     * @return the file name
+     */
+    public String newFileName(Key key) {
+        return key.fileName();
+    }
+    
+    /**
+     * Publishes a finished rendering, replacing the previous file, unless a submission of its month
+     * changed since the render started or the month has left the window.
+     *
+     * @param key the sheet
+     * @param name the file name returned by {@link #newFileName}, already written to its partial path
+     * @param generation the month's generation when the render started
+     * @param renderedOn the day the render started, which a PDF states as its generation date
+     * @return whether the rendering was published
+     * @throws IOException if the file cannot be published
+     */
+    public boolean publish(Key key, String name, long generation, LocalDate renderedOn) throws IOException {
+        Path file = fileStore.publish(name);
+        boolean current;
+        Sheet replaced = null;
+        synchronized (this) {
+            current = inWindow(key.month()) && generation == generations.getOrDefault(key.month(), 0L);
+            if (current) {
+                replaced = sheets.put(key, new Sheet(file, renderedOn));
+                stale.remove(key);
+            }
+        }
+        if (!current) {
+            fileStore.delete(file);
+        } else if (replaced != null) {
+            fileStore.delete(replaced.file());
+        }
+        return current;
+    }
+    
+    /**
+     * Removes and returns the sheets withdrawn since the last call.
+     *
+     * @return the sheets to render again
+     */
+    public synchronized List<Key> drainStale() {
+        List<Key> keys = new ArrayList<>(stale);
+        stale.clear();
+        return keys;
+    }
+    
+    /**
+     * Marks a sheet for rendering on the next refresh, for example after its render failed.
+     *
+     * @param key the sheet
+     */
+    public synchronized void markStale(Key key) {
+        stale.add(key);
+    }
+    
+    /**
+     * Withdraws every sheet and forgets queued refreshes; renders in progress are discarded.
+     */
+    public void withdrawAll() {
+        List<Path> withdrawn;
+        synchronized (this) {
+            sheets.keySet().forEach(key -> generations.merge(key.month(), 1L, Long::sum));
+            withdrawn = sheets.values().stream().map(Sheet::file).toList();
+            sheets.clear();
+            stale.clear();
+        }
+        withdrawn.forEach(fileStore::delete);
+    }
+    
+    /**
+     * Withdraws the sheets of months that have left the window and forgets their queued refreshes
+     * and generations. Renders of such months are no longer published, so nothing needs the
+     * generations any more.
+     *
+     * @return the number of sheets withdrawn
+     */
+    public int withdrawOutsideWindow() {
+        List<Path> withdrawn = new ArrayList<>();
+        synchronized (this) {
+            sheets.entrySet().removeIf(entry -> {
+                if (inWindow(entry.getKey().month())) {
+                    return false;
+                }
+                withdrawn.add(entry.getValue().file());
+                return true;
+            });
+            stale.removeIf(key -> !inWindow(key.month()));
+            generations.keySet().removeIf(month -> !inWindow(month));
+        }
+        withdrawn.forEach(fileStore::delete);
+        return withdrawn.size();
+    }
+    
+    /**
+     * Withdraws the sheets that contain a changed submission, if it belongs to a month in the window.
+     * Months outside the window have no sheets to serve and are not rendered, so they are ignored.
+     *
+     * @param event the submission change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSubmissionChanged(SubmissionChangedEvent event) {
+        if (event.portalMonth() == null || event.portalYear() == null) {
+            return;
+        }
+        YearMonth month = YearMonth.of(event.portalYear(), event.portalMonth());
+        if (!inWindow(month)) {
+            return;
+        }
+        
+        Set<DataSheetType> types = EnumSet.of(DataSheetType.ALL);
+        types.add(typeOf(event.newStatus()));
+        if (event.previousStatus() != null) {
+            types.add(typeOf(event.previousStatus()));
+        }
+        
+        List<Path> withdrawn = new ArrayList<>();
+        synchronized (this) {
+            generations.merge(month, 1L, Long::sum);
+            for (Key key : keysFor(month)) {
+                if (types.contains(key.type())) {
+                    Sheet sheet = sheets.remove(key);
+                    if (sheet != null) {
+                        withdrawn.add(sheet.file());
+                    }
+                    stale.add(key);
+                }
+            }
+        }
+        withdrawn.forEach(fileStore::delete);
+        log.debug("[EXPORT] Withdrew {} pre-rendered data sheets of {} after submission {} changed",
+                withdrawn.size(), month, event.submissionId());
+    }
+    
+    private boolean inWindow(YearMonth month) {
+        return !month.isBefore(firstMonth()) && !month.isAfter(lastMonth());
+    }
+    
+    private DataSheetType typeOf(SubmissionStatus status) {
+        return DataSheetType.valueOf(status.name());
+    }
+    
+}
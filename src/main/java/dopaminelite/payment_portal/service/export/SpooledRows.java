@@ -0,0 +1,332 @@
+package dopaminelite.payment_portal.service.export;
+
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
+import dopaminelite.payment_portal.entity.enums.SubmissionStatus;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Export rows read ahead of rendering, so the database connection can be released first.
+ *
+ * <p>The first {@code maxMemoryRows} rows are kept in memory. Any further rows are appended to a
+ * spill file in a compact binary form and read back in order, which keeps memory use flat for
+ * exports of any size. The spill file is deleted when the rows are closed.
+ */
+@Slf4j
+public final class SpooledRows implements Closeable {
+    
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+    
+    /**
+     * Rough heap footprint of a row without its strings: the object, boxed values, UUIDs and timestamps.
+     */
+    private static final int ROW_OVERHEAD_BYTES = 256;
+    
+    /**
+     * Rough heap footprint of a string apart from its characters.
+     */
+    private static final int STRING_OVERHEAD_BYTES = 40;
+    
+    private final List<SubmissionExportRow> memory;
+    private final Path spillFile;
+    private final long size;
+    private final long memoryBytes;
+    
+    private SpooledRows(List<SubmissionExportRow> memory, Path spillFile, long size, long memoryBytes) {
+        this.memory = memory;
+        this.spillFile = spillFile;
+        this.size = size;
+        this.memoryBytes = memoryBytes;
+    }
+    
+    /**
+     * Reads all rows from the iterator, spilling to the given file once more than
+     * {@code maxMemoryRows} rows have been read.
+     *
+     * @param rows the rows to read, in export order
+     * @param maxMemoryRows the number of rows kept in memory
+     * @param spillFile the file that takes the remaining rows; only created if needed
+     * @param progress listener notified as rows are read
+     * @return the spooled rows, which the caller must close
+     * @throws IOException if the spill file cannot be written
+     */
+    public static SpooledRows drain(Iterator<SubmissionExportRow> rows, int maxMemoryRows, Path spillFile,
+                                    ExportProgress progress) throws IOException {
+        List<SubmissionExportRow> memory = new ArrayList<>();
+        long count = 0;
+        long memoryBytes = 0;
+        while (count < maxMemoryRows && rows.hasNext()) {
+            SubmissionExportRow row = rows.next();
+            memory.add(row);
+            memoryBytes += estimateBytes(row);
+            progress.onRowsRead(++count);
+        }
+        if (!rows.hasNext()) {
+            return new SpooledRows(memory, null, count, memoryBytes);
+        }
+        
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(spillFile), IO_BUFFER_SIZE))) {
+            while (rows.hasNext()) {
+                write(out, rows.next());
+                progress.onRowsRead(++count);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spillFile);
+            throw e;
+        }
+        return new SpooledRows(memory, spillFile, count, memoryBytes);
+    }
+    
+    /**
+     * @return the number of rows
+     */
+    public long size() {
+        return size;
+    }
+    
+    /**
+     * @return the estimated heap size of the rows held in memory
+     */
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+    
+    /**
+     * @return whether some rows were spilled to disk
+     */
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+    
+    /**
+     * Returns the rows in export order. Spilled rows are read from disk as the stream is consumed.
+     *
+     * @return a stream of the rows, which may be consumed once
+     */
+    public Stream<SubmissionExportRow> stream() {
+        if (spillFile == null) {
+            return memory.stream();
+        }
+        SpillReader spilled = new SpillReader();
+        Stream<SubmissionExportRow> fromDisk = StreamSupport.stream(
+                Spliterators.spliterator(spilled, size - memory.size(), Spliterator.ORDERED), false);
+        return Stream.concat(memory.stream(), fromDisk).onClose(spilled::close);
+    }
+    
+    /**
+     * Releases the rows and deletes the spill file, if any.
+     */
+    @Override
+    public void close() {
+        memory.clear();
+        if (spillFile != null) {
+            try {
+                Files.deleteIfExists(spillFile);
+            } catch (IOException e) {
+                log.warn("[EXPORT] Could not delete spilled export rows {}", spillFile, e);
+            }
+        }
+    }
+    
+    private static long estimateBytes(SubmissionExportRow row) {
+        return ROW_OVERHEAD_BYTES + estimateBytes(row.getPortalName())
+                + estimateBytes(row.getRejectionReason()) + estimateBytes(row.getFileNames());
+    }
+    
+    private static long estimateBytes(String value) {
+        return value == null ? 0 : STRING_OVERHEAD_BYTES + value.length();
+    }
+    
+    // Fields in the order of the presence mask bits
+    private static void write(DataOutputStream out, SubmissionExportRow row) throws IOException {
+        int mask = (row.getId() != null ? 1 : 0)
+                | (row.getStudentId() != null ? 1 << 1 : 0)
+                | (row.getPortalId() != null ? 1 << 2 : 0)
+                | (row.getPortalName() != null ? 1 << 3 : 0)
+                | (row.getStatus() != null ? 1 << 4 : 0)
+                | (row.getRejectionReason() != null ? 1 << 5 : 0)
+                | (row.getSubmittedAt() != null ? 1 << 6 : 0)
+                | (row.getLastUpdatedAt() != null ? 1 << 7 : 0)
+                | (row.getFileCount() != null ? 1 << 8 : 0)
+                | (row.getFileNames() != null ? 1 << 9 : 0);
+        out.writeShort(mask);
+        if (row.getId() != null) {
+            writeUuid(out, row.getId());
+        }
+        if (row.getStudentId() != null) {
+            writeUuid(out, row.getStudentId());
+        }
+        if (row.getPortalId() != null) {
+            writeUuid(out, row.getPortalId());
+        }
+        if (row.getPortalName() != null) {
+            writeString(out, row.getPortalName());
+        }
+        if (row.getStatus() != null) {
+            out.writeByte(row.getStatus().ordinal());
+        }
+        if (row.getRejectionReason() != null) {
+            writeString(out, row.getRejectionReason());
+        }
+        if (row.getSubmittedAt() != null) {
+            writeDateTime(out, row.getSubmittedAt());
+        }
+        if (row.getLastUpdatedAt() != null) {
+            writeDateTime(out, row.getLastUpdatedAt());
+        }
+        if (row.getFileCount() != null) {
+            out.writeLong(row.getFileCount());
+        }
+        if (row.getFileNames() != null) {
+            writeString(out, row.getFileNames());
+        }
+    }
+    
+    private static SubmissionExportRow read(DataInputStream in, int mask) throws IOException {
+        SubmissionExportRow row = new SubmissionExportRow();
+        if ((mask & 1) != 0) {
+            row.setId(readUuid(in));
+        }
+        if ((mask & 1 << 1) != 0) {
+            row.setStudentId(readUuid(in));
+        }
+        if ((mask & 1 << 2) != 0) {
+            row.setPortalId(readUuid(in));
+        }
+        if ((mask & 1 << 3) != 0) {
+            row.setPortalName(readString(in));
+        }
+        if ((mask & 1 << 4) != 0) {
+            row.setStatus(SubmissionStatus.values()[in.readByte()]);
+        }
+        if ((mask & 1 << 5) != 0) {
+            row.setRejectionReason(readString(in));
+        }
+        if ((mask & 1 << 6) != 0) {
+            row.setSubmittedAt(readDateTime(in));
+        }
+        if ((mask & 1 << 7) != 0) {
+            row.setLastUpdatedAt(readDateTime(in));
+        }
+        if ((mask & 1 << 8) != 0) {
+            row.setFileCount(in.readLong());
+        }
+        if ((mask & 1 << 9) != 0) {
+            row.setFileNames(readString(in));
+        }
+        return row;
+    }
+    
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+    
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+    
+    // Length-prefixed UTF-8; writeUTF is limited to 64 KB, which long file lists can exceed
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeLong(value.toLocalDate().toEpochDay());
+        out.writeLong(value.toLocalTime().toNanoOfDay());
+    }
+    
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        return LocalDateTime.of(LocalDate.ofEpochDay(in.readLong()), LocalTime.ofNanoOfDay(in.readLong()));
+    }
+    
+    private final class SpillReader implements Iterator<SubmissionExportRow>, Closeable {
+        
+        private DataInputStream in;
+        private SubmissionExportRow next;
+        private boolean done;
+        
+        @Override
+        public boolean hasNext() {
+            if (next == null && !done) {
+                next = readNext();
+            }
+            return next != null;
+        }
+        
+        @Override
+        public SubmissionExportRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            SubmissionExportRow row = next;
+            next = null;
+            return row;
+        }
+        
+        private SubmissionExportRow readNext() {
+            try {
+                if (in == null) {
+                    in = new DataInputStream(new BufferedInputStream(Files.newInputStream(spillFile), IO_BUFFER_SIZE));
+                }
+                int mask;
+                try {
+                    mask = in.readUnsignedShort();
+                } catch (EOFException e) {
+                    done = true;
+                    close();
+                    return null;
+                }
+                return read(in, mask);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read spilled export rows", e);
+            }
+        }
+        
+        @Override
+        public void close() {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                    // Read-only stream, nothing is lost
+                }
+                in = null;
+            }
+        }
+    
+    }
+    
+}
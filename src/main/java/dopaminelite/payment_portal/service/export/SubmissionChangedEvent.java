@@ -0,0 +1,24 @@
+package dopaminelite.payment_portal.service.export;
+
+import dopaminelite.payment_portal.entity.enums.SubmissionStatus;
+
+import java.util.UUID;
+
+/**
+ * Published when a payment submission is created or its status changes, so derived export data
+ * for the affected slice can be refreshed. Listeners act on it after the transaction commits.
+ *
+ * @param submissionId the submission that changed
+ * @param portalMonth the month of the submission's portal
+ * @param portalYear the year of the submission's portal
+ * @param previousStatus the status before the change, null for a new submission
+ * @param newStatus the status after the change
+ */
+public record SubmissionChangedEvent(
+        UUID submissionId,
+        Integer portalMonth,
+        Integer portalYear,
+        SubmissionStatus previousStatus,
+        SubmissionStatus newStatus
+) {
+}
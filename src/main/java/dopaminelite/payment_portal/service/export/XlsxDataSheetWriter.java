@@ -0,0 +1,282 @@
+package dopaminelite.payment_portal.service.export;
+
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes payment submissions as an Office Open XML spreadsheet (.xlsx) directly to an output stream.
+ * The package parts are written by hand and each row is encoded into the worksheet entry as soon as
+ * it is read, so only the current row and a fixed-size write buffer are ever held in memory.
+ * Timestamps are written as date cells, counts as numeric cells and everything else as inline strings.
+ */
+@Component
+public class XlsxDataSheetWriter {
+    
+    private static final int BUFFER_SIZE = 16 * 1024;
+    
+    /**
+     * Excel serial dates count days from 1899-12-30.
+     */
+    private static final LocalDate EXCEL_EPOCH = LocalDate.of(1899, 12, 30);
+    private static final double SECONDS_PER_DAY = 24 * 60 * 60;
+    
+    // Indexes into cellXfs in styles.xml
+    private static final int STYLE_DATETIME = 1;
+    private static final int STYLE_HEADER = 2;
+    
+    private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    
+    private static final String RELATIONSHIPS_START = XML_HEADER
+            + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">";
+    
+    private static final String ROOT_RELS = RELATIONSHIPS_START
+            + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>"
+            + "</Relationships>";
+    
+    private static final String STYLES = XML_HEADER
+            + "<styleSheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+            + "<numFmts count=\"1\"><numFmt numFmtId=\"164\" formatCode=\"yyyy-mm-dd hh:mm:ss\"/></numFmts>"
+            + "<fonts count=\"2\">"
+            + "<font><sz val=\"11\"/><name val=\"Calibri\"/></font>"
+            + "<font><b/><sz val=\"11\"/><name val=\"Calibri\"/></font>"
+            + "</fonts>"
+            + "<fills count=\"2\">"
+            + "<fill><patternFill patternType=\"none\"/></fill>"
+            + "<fill><patternFill patternType=\"gray125\"/></fill>"
+            + "</fills>"
+            + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+            + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+            + "<cellXfs count=\"3\">"
+            + "<xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+            + "<xf numFmtId=\"164\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+            + "<xf numFmtId=\"0\" fontId=\"1\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyFont=\"1\"/>"
+            + "</cellXfs>"
+            + "<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>"
+            + "</styleSheet>";
+    
+    private static final String SHEET_START = XML_HEADER
+            + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+            + "<sheetViews><sheetView workbookViewId=\"0\">"
+            + "<pane ySplit=\"1\" topLeftCell=\"A2\" activePane=\"bottomLeft\" state=\"frozen\"/>"
+            + "</sheetView></sheetViews>"
+            + "<sheetData>";
+    
+    private static final String SHEET_END = "</sheetData></worksheet>";
+    
+    private static final String SHEET_NAME = "Submissions";
+    
+    /**
+     * Rows per worksheet allowed by Excel, including the header row.
+     */
+    static final int MAX_SHEET_ROWS = 1_048_576;
+    
+    private final int sheetRowLimit;
+    
+    public XlsxDataSheetWriter() {
+        this(MAX_SHEET_ROWS);
+    }
+    
+    XlsxDataSheetWriter(int sheetRowLimit) {
+        this.sheetRowLimit = sheetRowLimit;
+    }
+    
+    /**
+     * Writes a workbook with a header row and one row per submission. When the rows do not fit
+     * on one worksheet they continue on further sheets, each starting with its own header row.
+     * The workbook parts that list the sheets are written after the rows, once the sheet count is known.
+     * The output stream is finished as a ZIP archive but not closed.
+     *
+     * @param rows the submission rows to write
+     * @param columns the compiled columns to include, in order
+     * @param out the destination stream
+     * @throws IOException if writing to the stream fails
+     */
+    public void write(Stream<SubmissionExportRow> rows, ColumnPlan columns, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        // Favour throughput over size; the archive is still far smaller than the equivalent CSV
+        zip.setLevel(Deflater.BEST_SPEED);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), BUFFER_SIZE);
+        
+        int sheetCount = 1;
+        startSheet(zip, writer, sheetCount, columns);
+        
+        // Data rows; row 1 of every sheet is the header
+        int rowNumber = 1;
+        Iterator<SubmissionExportRow> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            SubmissionExportRow row = iterator.next();
+            if (rowNumber == sheetRowLimit) {
+                endSheet(zip, writer);
+                startSheet(zip, writer, ++sheetCount, columns);
+                rowNumber = 1;
+            }
+            rowNumber++;
+            writer.write("<row r=\"");
+            writer.write(Integer.toString(rowNumber));
+            writer.write("\">");
+            for (int i = 0; i < columns.size(); i++) {
+                writeCell(writer, columns.column(i).getType(), columns.value(row, i));
+            }
+            writer.write("</row>");
+        }
+        endSheet(zip, writer);
+        
+        writeEntry(zip, writer, "[Content_Types].xml", contentTypes(sheetCount));
+        writeEntry(zip, writer, "_rels/.rels", ROOT_RELS);
+        writeEntry(zip, writer, "xl/workbook.xml", workbook(sheetCount));
+        writeEntry(zip, writer, "xl/_rels/workbook.xml.rels", workbookRels(sheetCount));
+        writeEntry(zip, writer, "xl/styles.xml", STYLES);
+        zip.finish();
+    }
+    
+    private void startSheet(ZipOutputStream zip, Writer writer, int sheet, ColumnPlan columns) throws IOException {
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheet + ".xml"));
+        writer.write(SHEET_START);
+        writer.write("<row r=\"1\">");
+        for (int i = 0; i < columns.size(); i++) {
+            writeStringCell(writer, columns.headerLabel(i), STYLE_HEADER);
+        }
+        writer.write("</row>");
+    }
+    
+    private void endSheet(ZipOutputStream zip, Writer writer) throws IOException {
+        writer.write(SHEET_END);
+        writer.flush();
+        zip.closeEntry();
+    }
+    
+    private String contentTypes(int sheetCount) {
+        StringBuilder xml = new StringBuilder(XML_HEADER)
+                .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+                .append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>");
+        for (int sheet = 1; sheet <= sheetCount; sheet++) {
+            xml.append("<Override PartName=\"/xl/worksheets/sheet").append(sheet)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        return xml.append("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>")
+                .append("</Types>")
+                .toString();
+    }
+    
+    private String workbook(int sheetCount) {
+        StringBuilder xml = new StringBuilder(XML_HEADER)
+                .append("<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" ")
+                .append("xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\">")
+                .append("<sheets>");
+        for (int sheet = 1; sheet <= sheetCount; sheet++) {
+            xml.append("<sheet name=\"").append(SHEET_NAME);
+            if (sheet > 1) {
+                xml.append(" (").append(sheet).append(')');
+            }
+            xml.append("\" sheetId=\"").append(sheet).append("\" r:id=\"rId").append(sheet).append("\"/>");
+        }
+        return xml.append("</sheets></workbook>").toString();
+    }
+    
+    private String workbookRels(int sheetCount) {
+        StringBuilder xml = new StringBuilder(RELATIONSHIPS_START);
+        for (int sheet = 1; sheet <= sheetCount; sheet++) {
+            xml.append("<Relationship Id=\"rId").append(sheet)
+                    .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet")
+                    .append(sheet).append(".xml\"/>");
+        }
+        return xml.append("<Relationship Id=\"rId").append(sheetCount + 1)
+                .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" Target=\"styles.xml\"/>")
+                .append("</Relationships>")
+                .toString();
+    }
+    
+    private void writeEntry(ZipOutputStream zip, Writer writer, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        writer.write(content);
+        writer.flush();
+        zip.closeEntry();
+    }
+    
+    private void writeCell(Writer writer, ExportColumn.ColumnType type, Object value) throws IOException {
+        if (value == null) {
+            writer.write("<c/>");
+            return;
+        }
+        switch (type) {
+            case DATETIME -> {
+                writer.write("<c s=\"");
+                writer.write(Integer.toString(STYLE_DATETIME));
+                writer.write("\"><v>");
+                writer.write(Double.toString(toExcelSerial((LocalDateTime) value)));
+                writer.write("</v></c>");
+            }
+            case NUMBER -> {
+                writer.write("<c><v>");
+                writer.write(value.toString());
+                writer.write("</v></c>");
+            }
+            case IDENTIFIER -> writeStringCell(writer, value.toString(), 0);
+            case TEXT -> {
+                String text = (String) value;
+                if (text.isEmpty()) {
+                    writer.write("<c/>");
+                } else {
+                    writeStringCell(writer, text, 0);
+                }
+            }
+        }
+    }
+    
+    private void writeStringCell(Writer writer, String value, int style) throws IOException {
+        writer.write("<c t=\"inlineStr\"");
+        if (style != 0) {
+            writer.write(" s=\"");
+            writer.write(Integer.toString(style));
+            writer.write('"');
+        }
+        writer.write("><is><t");
+        if (!value.isEmpty() && (value.charAt(0) == ' ' || value.charAt(value.length() - 1) == ' ')) {
+            writer.write(" xml:space=\"preserve\"");
+        }
+        writer.write('>');
+        writeEscaped(writer, value);
+        writer.write("</t></is></c>");
+    }
+    
+    private void writeEscaped(Writer writer, String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> writer.write("&amp;");
+                case '<' -> writer.write("&lt;");
+                case '>' -> writer.write("&gt;");
+                case '"' -> writer.write("&quot;");
+                default -> {
+                    // Control characters other than tab, newline and carriage return are not legal in XML 1.0
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        writer.write(c);
+                    }
+                }
+            }
+        }
+    }
+    
+    private double toExcelSerial(LocalDateTime dateTime) {
+        long days = ChronoUnit.DAYS.between(EXCEL_EPOCH, dateTime.toLocalDate());
+        return days + dateTime.toLocalTime().toSecondOfDay() / SECONDS_PER_DAY;
+    }
+    
+}
@@ -0,0 +1,740 @@
+package dopaminelite.payment_portal.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import dopaminelite.payment_portal.dto.export.DataSheetExportRequest;
+import dopaminelite.payment_portal.dto.submission.PaymentSubmissionStatusUpdateRequest;
+import dopaminelite.payment_portal.entity.PaymentPortal;
+import dopaminelite.payment_portal.entity.PaymentSubmission;
+import dopaminelite.payment_portal.entity.UploadedFile;
+import dopaminelite.payment_portal.entity.enums.DataSheetType;
+import dopaminelite.payment_portal.entity.enums.ExportCompression;
+import dopaminelite.payment_portal.entity.enums.ExportFormat;
+import dopaminelite.payment_portal.entity.enums.PortalVisibility;
+import dopaminelite.payment_portal.entity.enums.SubmissionStatus;
+import dopaminelite.payment_portal.repository.PaymentPortalRepository;
+import dopaminelite.payment_portal.repository.PaymentSubmissionRepository;
+import dopaminelite.payment_portal.service.DataSheetService;
+import dopaminelite.payment_portal.service.PaymentSubmissionService;
+import dopaminelite.payment_portal.service.export.ColumnPlan;
+import dopaminelite.payment_portal.service.export.ExportAdmission;
+import dopaminelite.payment_portal.service.export.ExportProgress;
+import dopaminelite.payment_portal.service.export.ExportResultCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Exports are streamed on the MVC async executor, so these tests commit their fixtures
+ * instead of running inside a test-managed transaction.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Data Sheet API Tests")
+class DataSheetControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PaymentPortalRepository portalRepository;
+
+    @Autowired
+    private PaymentSubmissionRepository submissionRepository;
+
+    @Autowired
+    private PaymentSubmissionService submissionService;
+
+    @Autowired
+    private ExportResultCache exportResultCache;
+
+    @Autowired
+    private DataSheetService dataSheetService;
+
+    @Autowired
+    private ExportAdmission exportAdmission;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        submissionRepository.deleteAll();
+        portalRepository.deleteAll();
+        // Fixtures are saved through the repositories, which publish no change events
+        exportResultCache.invalidateAll();
+    }
+
+    @Test
+    @DisplayName("GET /data-sheets/export - Should stream CSV with header and filtered rows")
+    void testExportCsv_StreamsFilteredRows() throws Exception {
+        PaymentPortal portal = createTestPortal("portal-nov-2025", 11, 2025);
+        PaymentSubmission approved = createTestSubmission(portal, SubmissionStatus.APPROVED, null);
+        createTestSubmission(portal, SubmissionStatus.REJECTED, "Blurry receipt, please re-upload");
+
+        MvcResult result = mockMvc.perform(get("/data-sheets/export")
+                        .param("type", "APPROVED")
+                        .param("format", "CSV")
+                        .param("month", "11")
+                        .param("year", "2025")
+                        .param("columns", "id", "status"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", containsString("payment-submissions-approved-2025-11.csv")))
+                .andExpect(content().string("id,status\n" + approved.getId() + ",APPROVED\n"));
+    }
+
+    @Test
+    @DisplayName("GET /data-sheets/export - Should quote CSV values containing commas")
+    void testExportCsv_EscapesValues() throws Exception {
+        PaymentPortal portal = createTestPortal("portal-dec-2025", 12, 2025);
+        createTestSubmission(portal, SubmissionStatus.REJECTED, "Wrong amount, expected \"5000\"");
+
+        MvcResult result = mockMvc.perform(get("/data-sheets/export")
+                        .param("type", "REJECTED")
+                        .param("format", "CSV")
+                        .param("columns", "rejectionReason"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("rejectionReason\n\"Wrong amount, expected \"\"5000\"\"\"\n"));
+    }
+
+    @Test
+    @DisplayName("GET /data-sheets/export - Should encode timestamps and non-ASCII text as UTF-8")
+    void testExportCsv_EncodesDatesAndUnicode() throws Exception {
+        PaymentPortal portal = createTestPortal("portal-mar-2026", 3, 2026);
+        PaymentSubmission submission = createTestSubmission(portal, SubmissionStatus.REJECTED, "Reçu illisible – 请重新上传 📄");
+
+        MvcResult result = mockMvc.perform(get("/data-sheets/export")
+                        .param("type", "REJECTED")
+                        .param("format", "CSV")
+                        .param("columns", "submittedAt", "rejectionReason"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] csv = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        PaymentSubmission saved = submissionRepository.findById(submission.getId()).orElseThrow();
+        String expected = "submittedAt,rejectionReason\n"
+                + saved.getSubmittedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))
+                + ",Reçu illisible – 请重新上传 📄\n";
+        assertThat(csv).isEqualTo(expected.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("GET /data-sheets/export - Should aggregate file counts and names per submission")
+    void testExportCsv_AggregatesFiles() throws Exception {
+        PaymentPortal portal = createTestPortal("portal-feb-2026", 2, 2026);
+        PaymentSubmission withFiles = createTestSubmission(portal, SubmissionStatus.PENDING, null, "b-receipt.pdf", "a-slip.png");
+        PaymentSubmission withoutFiles = createTestSubmission(portal, SubmissionStatus.PENDING, null);
+
+        MvcResult result = mockMvc.perform(get("/data-sheets/export")
+                        .param("type", "ALL")
+                        .param("format", "CSV")
+                        .param("columns", "id", "portalId", "fileCount", "files")
+                        .param("submissionIds", withFiles.getId().toString(), withoutFiles.getId().toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String csv = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(csv.split("\n")).containsExactlyInAnyOrder(
+                "id,portalId,fileCount,files",
+                withFiles.getId() + "," + portal.getId() + ",2,a-slip.png; b-receipt.pdf",
+                withoutFiles.getId() + "," + portal.getId() + ",0,"
+        );
+    }
+
+    @Test
+    @DisplayName("GET /data-sheets/export - Should gzip CSV when the client accepts it")
+    void testExportCsv_NegotiatesGzip() throws Exception {
+        PaymentPortal portal = createTestPortal("portal-apr-2026", 4, 2026);
+        PaymentSubmission submission = createTestSubmission(portal, SubmissionStatus.APPROVED, null);
+
+        MvcResult result = mockMvc.perform(get("/data-sheets/export")
+                        .param("type", "APPROVED")
+                        .param("format", "CSV")
+                        .param("columns", "id", "status")
+                        .header("Accept-Encoding", "br;q=1.0, gzip;q=0.8"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andExpect(header().string("Content-Disposition", containsString("payment-submissions-approved.csv\"")))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(gunzip(body)).isEqualTo("id,status\n" + submission.getId() + ",APPROVED\n");
+    }
+
+    @Test
+    @DisplayName("GET /data-sheets/export - Should return a .gz file when compression is requested")
+    void testExportCsv_ExplicitGzip() throws Exception {
+        PaymentPortal portal = createTestPortal("portal-may-2026", 5, 2026);
+        PaymentSubmission submission = createTestSubmission(portal, SubmissionStatus.PENDING, null);
+
+        MvcResult result = mockMvc.perform(get("/data-sheets/export")
+                        .param("type", "PENDING")
+                        .param("format", "CSV")
+                        .param("columns", "id")
+                        .param("compression", "GZIP"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(header().string("Content-Type", "application/gzip"))
+                .andExpect(header().string("Content-Disposition", containsString("payment-submissions-pending.csv.gz")))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(gunzip(body)).isEqualTo("id\n" + submission.getId() + "\n");
+    }
+
+    @Test
+    @DisplayName("GET /data-sheets/export - Should not gzip when compression is NONE or gzip is refused")
+    void testExportCsv_GzipDisabled() throws Exception {
+        MvcResult refused = mockMvc.perform(get("/data-sheets/export")
+                        .param("type", "ALL")
+                        .param("format", "CSV")
+                        .header("Accept-Encoding", "gzip;q=0, *"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(refused))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"));
+
+        // Same file as the refused request, so it is served from the cache during the request
+        mockMvc.perform(get("/data-sheets/export")
+                        .param("type", "ALL")
+                        .param("format", "CSV")
+                        .param("compression", "NONE")
+                        .header("Accept-Encoding", "gzip"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(header().string("X-Export-Cache", "HIT"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(content().string(startsWith("id,studentId,")));
+    }
+
+    @Test
+    @DisplayName("GET /data-sheets/export - Should stream one JSON object per line for NDJSON")
+    void testExportNdjson_WritesJsonLines() throws Exception {
+        PaymentPortal portal = createTestPortal("portal-jun-2026", 6, 2026);
+        PaymentSubmission rejected = createTestSubmission(portal, SubmissionStatus.REJECTED, "Line one\nline \"two\"", "slip.png");
+
+        MvcResult result = mockMvc.perform(get("/data-sheets/export")
+                        .param("type", "REJECTED")
+                        .param("format", "NDJSON")
+                        .param("columns", "id", "portal", "fileCount", "rejectionReason", "lastUpdatedAt"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                .andExpect(header().string("Content-Disposition", containsString("payment-submissions-rejected.ndjson")))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        assertThat(body).endsWith("\n");
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(1);
+
+        JsonNode line = objectMapper.readTree(lines[0]);
+        assertThat(line.fieldNames()).toIterable()
+                .containsExactly("id", "portalName", "fileCount", "rejectionReason", "lastUpdatedAt");
+        assertThat(line.get("id").asText()).isEqualTo(rejected.getId().toString());
+        assertThat(line.get("portalName").asText()).isEqualTo("portal-jun-2026");
+        assertThat(line.get("fileCount").isNumber()).isTrue();
+        assertThat(line.get("fileCount").asLong()).isEqualTo(1);
+        assertThat(line.get("rejectionReason").asText()).isEqualTo("Line one\nline \"two\"");
+        assertThat(line.get("lastUpdatedAt").asText()).matches("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}.*");
+    }
+
+    @Test
+    @DisplayName("GET /data-sheets/export - Should record connection hold time and render time per export")
+    void testExportCsv_RecordsConnectionHoldAndRenderTime() throws Exception {
+        PaymentPortal portal = createTestPortal("portal-jul-2026-timings", 7, 2026);
+        createTestSubmission(portal, SubmissionStatus.APPROVED, null);
+        long holds = timerCount("export.connection.hold");
+        long renders = timerCount("export.render");
+
+        exportCsv("MISS");
+
+        assertThat(timerCount("export.connection.hold")).isEqualTo(holds + 1);
+        assertThat(timerCount("export.render")).isEqualTo(renders + 1);
+    }
+
+    @Test
+    @DisplayName("Should record an export whose client goes away as aborted")
+    void testExportCsv_RecordsAbortedOutcome() {
+        PaymentPortal portal = createTestPortal("portal-jul-2026-aborted", 7, 2026);
+        createTestSubmission(portal, SubmissionStatus.APPROVED, null);
+        long aborted = timerCount("export.duration", "outcome", "aborted");
+        long renders = timerCount("export.render");
+        OutputStream disconnected = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        DataSheetExportRequest request = new DataSheetExportRequest(
+                DataSheetType.ALL, ExportFormat.CSV, 7, 2026, null, null, ExportCompression.NONE);
+        assertThatThrownBy(() -> dataSheetService.renderDataSheet(
+                request, ColumnPlan.compile(null), disconnected, ExportProgress.NONE))
+                .isInstanceOf(IOException.class);
+
+        assertThat(timerCount("export.duration", "outcome", "aborted")).isEqualTo(aborted + 1);
+        assertThat(timerCount("export.render")).isEqualTo(renders);
+    }
+
+    @Test
+    @DisplayName("GET /data-sheets/export - Should serve a repeated export from the cache until a submission changes")
+    void testExportCsv_CachedUntilSubmissionChanges() throws Exception {
+        PaymentPortal portal = createTestPortal("portal-jul-2026", 7, 2026);
+        PaymentSubmission submission = createTestSubmission(portal, SubmissionStatus.PENDING, null);
+        String pending = "id,status\n" + submission.getId() + ",PENDING\n";
+
+        assertThat(exportCsv("MISS")).isEqualTo(pending);
+        assertThat(exportCsv("HIT")).isEqualTo(pending);
+
+        submissionService.updateSubmissionStatus(submission.getId(),
+                new PaymentSubmissionStatusUpdateRequest(SubmissionStatus.APPROVED, null));
+
+        assertThat(exportCsv("MISS")).isEqualTo("id,status\n" + submission.getId() + ",APPROVED\n");
+        assertThat(exportCsv("HIT")).isEqualTo("id,status\n" + submission.getId() + ",APPROVED\n");
+    }
+
+    @Test
+    @DisplayName("GET /data-sheets/export - Should admit renders and release their slots, but not cache hits")
+    void testExportCsv_AdmitsOnlyRenders() throws Exception {
+        PaymentPortal portal = createTestPortal("portal-jul-2026", 7, 2026);
+        createTestSubmission(portal, SubmissionStatus.PENDING, null);
+        long admitted = admittedCount();
+
+        exportCsv("MISS");
+        assertThat(admittedCount()).isEqualTo(admitted + 1);
+        exportCsv("HIT");
+        assertThat(admittedCount()).isEqualTo(admitted + 1);
+
+        assertThat(meterRegistry.get("export.admission.slots.used").tag("format", "CSV").gauge().value())
+                .isZero();
+    }
+
+    @Test
+    @DisplayName("GET /data-sheets/export - Should resume a cached export from a byte range")
+    void testExportCsv_ResumesWithRange() throws Exception {
+        PaymentPortal portal = createTestPortal("portal-jul-2026", 7, 2026);
+        createTestSubmission(portal, SubmissionStatus.PENDING, null);
+        createTestSubmission(portal, SubmissionStatus.APPROVED, null);
+
+        String full = exportCsv("MISS");
+        MockHttpServletResponse hit = exportCsvResponse(get("/data-sheets/export"));
+        String etag = hit.getHeader("ETag");
+        String lastModified = hit.getHeader("Last-Modified");
+        assertThat(hit.getHeader("Accept-Ranges")).isEqualTo("bytes");
+        assertThat(etag).matches("\"[0-9a-f]{64}\"");
+
+        MockHttpServletResponse partial = exportCsvResponse(get("/data-sheets/export")
+                .header("Range", "bytes=10-")
+                .header("If-Range", etag));
+        assertThat(partial.getStatus()).isEqualTo(206);
+        assertThat(partial.getHeader("Content-Range")).isEqualTo("bytes 10-" + (full.length() - 1) + "/" + full.length());
+        assertThat(partial.getContentAsString()).isEqualTo(full.substring(10));
+
+        MockHttpServletResponse byDate = exportCsvResponse(get("/data-sheets/export")
+                .header("Range", "bytes=0-1")
+                .header("If-Range", lastModified));
+        assertThat(byDate.getStatus()).isEqualTo(206);
+        assertThat(byDate.getContentAsString()).isEqualTo("id");
+
+        MockHttpServletResponse twoRanges = exportCsvResponse(get("/data-sheets/export")
+                .header("Range", "bytes=0-1,3-8"));
+        assertThat(twoRanges.getStatus()).isEqualTo(206);
+        assertThat(twoRanges.getContentType()).startsWith("multipart/byteranges");
+        assertThat(twoRanges.getContentAsString()).contains("Content-Range: bytes 0-1/" + full.length())
+                .contains("Content-Range: bytes 3-8/" + full.length());
+
+        MockHttpServletResponse stale = exportCsvResponse(get("/data-sheets/export")
+                .header("Range", "bytes=10-")
+                .header("If-Range", "\"stale\""));
+        assertThat(stale.getStatus()).isEqualTo(200);
+        assertThat(stale.getContentAsString()).isEqualTo(full);
+
+        mockMvc.perform(exportCsvRequest(get("/data-sheets/export"))
+                        .header("Range", "bytes=" + full.length() + "-"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */" + full.length()));
+    }
+
+    @Test
+    @DisplayName("GET /data-sheets/export - Should reject unknown columns before streaming")
+    void testExport_UnknownColumn() throws Exception {
+        mockMvc.perform(get("/data-sheets/export")
+                        .param("type", "ALL")
+                        .param("format", "CSV")
+                        .param("columns", "id", "amount"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("VALIDATION_ERROR"))
+                .andExpect(jsonPath("$.message").value("Unknown export columns: amount"));
+    }
+
+    @Test
+    @DisplayName("GET /data-sheets/export - Should stream XLSX workbook with typed cells")
+    void testExportXlsx_WritesWorkbook() throws Exception {
+        PaymentPortal portal = createTestPortal("portal-jan-2026", 1, 2026);
+        PaymentSubmission submission = createTestSubmission(portal, SubmissionStatus.APPROVED, null);
+
+        MvcResult result = mockMvc.perform(get("/data-sheets/export")
+                        .param("type", "APPROVED")
+                        .param("format", "XLSX")
+                        .param("columns", "id", "submittedAt", "fileCount"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] workbook = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        Map<String, String> entries = unzip(workbook);
+
+        assertThat(entries).containsKeys("[Content_Types].xml", "xl/workbook.xml", "xl/styles.xml");
+        String sheet = entries.get("xl/worksheets/sheet1.xml");
+        assertThat(sheet).contains("<is><t>Submitted At</t></is>");
+        assertThat(sheet).contains("<t>" + submission.getId() + "</t>");
+        assertThat(sheet).contains("<c s=\"1\"><v>");
+        assertThat(sheet).contains("<c><v>0</v></c>");
+    }
+
+    @Test
+    @DisplayName("GET /data-sheets/export - Should stream a readable PDF report")
+    void testExportPdf_WritesDocument() throws Exception {
+        PaymentPortal portal = createTestPortal("portal-jan-2026", 1, 2026);
+        PaymentSubmission submission = createTestSubmission(portal, SubmissionStatus.APPROVED, null);
+
+        MvcResult result = mockMvc.perform(get("/data-sheets/export")
+                        .param("type", "APPROVED")
+                        .param("format", "PDF")
+                        .param("columns", "id", "status"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] pdf = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_PDF))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(new String(pdf, 0, 5, StandardCharsets.US_ASCII)).isEqualTo("%PDF-");
+        PdfReader reader = new PdfReader(pdf);
+        try {
+            assertThat(reader.getNumberOfPages()).isEqualTo(1);
+            assertThat(new PdfTextExtractor(reader).getTextFromPage(1))
+                    .contains(submission.getId().toString())
+                    .contains("Total Records: 1");
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    @DisplayName("GET /data-sheets/export - Should split export into a ZIP of row-limited parts")
+    void testExportSplitByRows_StreamsZipParts() throws Exception {
+        PaymentPortal portal = createTestPortal("portal-mar-2026", 3, 2026);
+        createTestSubmission(portal, SubmissionStatus.APPROVED, null);
+        createTestSubmission(portal, SubmissionStatus.APPROVED, null);
+        createTestSubmission(portal, SubmissionStatus.APPROVED, null);
+
+        MvcResult result = mockMvc.perform(get("/data-sheets/export")
+                        .param("type", "APPROVED")
+                        .param("format", "CSV")
+                        .param("month", "3")
+                        .param("year", "2026")
+                        .param("columns", "id", "status")
+                        .param("split", "ROWS")
+                        .param("partRows", "2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MockHttpServletResponse response = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/zip"))
+                .andExpect(header().string("Content-Disposition", containsString("payment-submissions-approved-2026-03.zip")))
+                .andExpect(header().doesNotExist("X-Export-Cache"))
+                .andReturn().getResponse();
+
+        Map<String, String> parts = unzip(response.getContentAsByteArray());
+        assertThat(parts).containsOnlyKeys(
+                "payment-submissions-approved-2026-03-part-001.csv",
+                "payment-submissions-approved-2026-03-part-002.csv");
+        assertThat(parts.get("payment-submissions-approved-2026-03-part-001.csv").lines())
+                .hasSize(3).first().isEqualTo("id,status");
+        assertThat(parts.get("payment-submissions-approved-2026-03-part-002.csv").lines())
+                .hasSize(2).first().isEqualTo("id,status");
+    }
+
+    @Test
+    @DisplayName("GET /data-sheets/export - Should split export into one ZIP part per portal")
+    void testExportSplitByPortal_StreamsZipParts() throws Exception {
+        PaymentPortal first = createTestPortal("portal-apr-2026-a", 4, 2026);
+        PaymentPortal second = createTestPortal("portal-apr-2026-b", 4, 2026);
+        PaymentSubmission inFirst = createTestSubmission(first, SubmissionStatus.PENDING, null);
+        PaymentSubmission inSecond = createTestSubmission(second, SubmissionStatus.PENDING, null);
+        PaymentSubmission alsoInFirst = createTestSubmission(first, SubmissionStatus.PENDING, null);
+
+        MvcResult result = mockMvc.perform(get("/data-sheets/export")
+                        .param("type", "PENDING")
+                        .param("format", "CSV")
+                        .param("month", "4")
+                        .param("year", "2026")
+                        .param("columns", "id")
+                        .param("split", "PORTAL"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] archive = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        Map<String, String> parts = unzip(archive);
+        assertThat(parts).hasSize(2);
+        String firstPart = parts.entrySet().stream()
+                .filter(entry -> entry.getKey().endsWith("-portal-apr-2026-a.csv"))
+                .map(Map.Entry::getValue)
+                .findFirst().orElseThrow();
+        String secondPart = parts.entrySet().stream()
+                .filter(entry -> entry.getKey().endsWith("-portal-apr-2026-b.csv"))
+                .map(Map.Entry::getValue)
+                .findFirst().orElseThrow();
+        assertThat(firstPart.lines()).containsExactlyInAnyOrder(
+                "id", inFirst.getId().toString(), alsoInFirst.getId().toString());
+        assertThat(secondPart).isEqualTo("id\n" + inSecond.getId() + "\n");
+    }
+
+    @Test
+    @DisplayName("GET /data-sheets/export - Should reject gzip compression of a split export")
+    void testExportSplit_RejectsGzip() throws Exception {
+        mockMvc.perform(get("/data-sheets/export")
+                        .param("type", "ALL")
+                        .param("format", "CSV")
+                        .param("split", "ROWS")
+                        .param("compression", "GZIP"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("VALIDATION_ERROR"));
+    }
+
+    @Test
+    @DisplayName("POST /data-sheets/export-jobs - Should render export in background and serve the file")
+    void testExportJob_CompletesAndDownloads() throws Exception {
+        PaymentPortal portal = createTestPortal("portal-feb-2026", 2, 2026);
+        PaymentSubmission submission = createTestSubmission(portal, SubmissionStatus.PENDING, null);
+
+        String body = "{\"type\":\"PENDING\",\"format\":\"CSV\",\"columns\":[\"id\",\"status\"]}";
+        String response = mockMvc.perform(post("/data-sheets/export-jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andExpect(jsonPath("$.jobId").exists())
+                .andReturn().getResponse().getContentAsString();
+        String jobId = objectMapper.readTree(response).get("jobId").asText();
+
+        String status = "QUEUED";
+        for (int attempt = 0; attempt < 50 && !status.equals("COMPLETED") && !status.equals("FAILED"); attempt++) {
+            Thread.sleep(100);
+            String poll = mockMvc.perform(get("/data-sheets/export-jobs/{jobId}", jobId))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            status = objectMapper.readTree(poll).get("status").asText();
+        }
+        assertThat(status).isEqualTo("COMPLETED");
+
+        mockMvc.perform(get("/data-sheets/export-jobs/{jobId}", jobId))
+                .andExpect(jsonPath("$.totalRows").value(1))
+                .andExpect(jsonPath("$.rowsWritten").value(1))
+                .andExpect(jsonPath("$.progressPercent").value(100));
+
+        mockMvc.perform(get("/data-sheets/export-jobs/{jobId}/file", jobId))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", containsString("payment-submissions-pending.csv")))
+                .andExpect(content().string("id,status\n" + submission.getId() + ",PENDING\n"));
+    }
+
+    @Test
+    @DisplayName("POST /data-sheets/export-jobs - Should keep a job queued until export slots are free")
+    void testExportJob_WaitsForAdmission() throws Exception {
+        PaymentPortal portal = createTestPortal("portal-feb-2026", 2, 2026);
+        createTestSubmission(portal, SubmissionStatus.PENDING, null);
+
+        String jobId;
+        try (ExportAdmission.Permit running = exportAdmission.admit(ExportFormat.CSV, () -> 1_000_000)) {
+            String response = mockMvc.perform(post("/data-sheets/export-jobs")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"type\":\"PENDING\",\"format\":\"CSV\"}"))
+                    .andExpect(status().isAccepted())
+                    .andReturn().getResponse().getContentAsString();
+            jobId = objectMapper.readTree(response).get("jobId").asText();
+
+            double depth = 0;
+            for (int attempt = 0; attempt < 50 && depth == 0; attempt++) {
+                Thread.sleep(20);
+                depth = meterRegistry.get("export.admission.queue.depth").tag("format", "CSV").gauge().value();
+            }
+            assertThat(depth).isEqualTo(1);
+            mockMvc.perform(get("/data-sheets/export-jobs/{jobId}", jobId))
+                    .andExpect(jsonPath("$.status").value("QUEUED"));
+        }
+
+        String status = "QUEUED";
+        for (int attempt = 0; attempt < 50 && !status.equals("COMPLETED") && !status.equals("FAILED"); attempt++) {
+            Thread.sleep(100);
+            String poll = mockMvc.perform(get("/data-sheets/export-jobs/{jobId}", jobId))
+                    .andReturn().getResponse().getContentAsString();
+            status = objectMapper.readTree(poll).get("status").asText();
+        }
+        assertThat(status).isEqualTo("COMPLETED");
+    }
+
+    @Test
+    @DisplayName("GET /data-sheets/export-jobs/{jobId} - Should return 404 for unknown job")
+    void testExportJob_NotFound() throws Exception {
+        mockMvc.perform(get("/data-sheets/export-jobs/{jobId}", UUID.randomUUID()))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.code").value("RESOURCE_NOT_FOUND"));
+    }
+
+    private String exportCsv(String expectedCacheStatus) throws Exception {
+        MockHttpServletResponse response = exportCsvResponse(get("/data-sheets/export"));
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader("X-Export-Cache")).isEqualTo(expectedCacheStatus);
+        return response.getContentAsString();
+    }
+
+    private long admittedCount() {
+        return meterRegistry.get("export.admission.wait").tags("format", "CSV", "outcome", "admitted").timer().count();
+    }
+
+    private long timerCount(String name, String... tags) {
+        Timer timer = meterRegistry.find(name).tags("format", "CSV", "type", "ALL").tags(tags).timer();
+        return timer != null ? timer.count() : 0;
+    }
+
+    private MockHttpServletResponse exportCsvResponse(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult result = mockMvc.perform(exportCsvRequest(builder)).andReturn();
+        // Renders stream asynchronously; cache hits are written during the request
+        boolean hit = "HIT".equals(result.getResponse().getHeader("X-Export-Cache"));
+        assertThat(result.getRequest().isAsyncStarted()).isEqualTo(!hit);
+        return hit ? result.getResponse() : mockMvc.perform(asyncDispatch(result)).andReturn().getResponse();
+    }
+
+    // The July 2026 CSV export shared by the cache tests
+    private MockHttpServletRequestBuilder exportCsvRequest(MockHttpServletRequestBuilder builder) {
+        return builder
+                .param("type", "ALL")
+                .param("format", "CSV")
+                .param("month", "7")
+                .param("year", "2026")
+                .param("columns", "id", "status");
+    }
+
+    // Entries in archive order
+    private Map<String, String> unzip(byte[] body) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(body))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    private String gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    // Helper method to create test portals
+    private PaymentPortal createTestPortal(String name, int month, int year) {
+        PaymentPortal portal = new PaymentPortal();
+        portal.setName(name);
+        portal.setDisplayName(name);
+        portal.setMonth(month);
+        portal.setYear(year);
+        portal.setIsPublished(true);
+        portal.setVisibility(PortalVisibility.PUBLISHED);
+        portal.setCreatedByAdminId(UUID.randomUUID());
+        return portalRepository.save(portal);
+    }
+
+    // Helper method to create test submissions
+    private PaymentSubmission createTestSubmission(PaymentPortal portal, SubmissionStatus status, String rejectionReason,
+                                                   String... fileNames) {
+        PaymentSubmission submission = new PaymentSubmission();
+        submission.setStudentId(UUID.randomUUID());
+        submission.setPortal(portal);
+        submission.setStatus(status);
+        submission.setRejectionReason(rejectionReason);
+        submission.setPortalNameAtSubmission(portal.getName());
+        for (String fileName : fileNames) {
+            UploadedFile file = new UploadedFile();
+            file.setFileId(UUID.randomUUID());
+            file.setFileName(fileName);
+            file.setFileType("application/octet-stream");
+            file.setSubmission(submission);
+            submission.getUploadedFiles().add(file);
+        }
+        return submissionRepository.save(submission);
+    }
+}
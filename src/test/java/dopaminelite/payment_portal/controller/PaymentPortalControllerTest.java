@@ -82,6 +82,30 @@ class PaymentPortalControllerTest {
                 .andExpect(jsonPath("$.total").value(3));
     }
 
+    @Test
+    @DisplayName("GET /portals - Should page without a total in count mode NONE")
+    void testListPortals_CountNone() throws Exception {
+        createTestPortal("portal-1", "Portal 1", 11, 2025, true);
+        createTestPortal("portal-2", "Portal 2", 12, 2025, true);
+        createTestPortal("portal-3", "Portal 3", 1, 2026, true);
+
+        mockMvc.perform(get("/portals")
+                        .param("limit", "2")
+                        .param("count", "NONE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.total").value(nullValue()))
+                .andExpect(jsonPath("$.hasMore").value(true));
+
+        mockMvc.perform(get("/portals")
+                        .param("limit", "2")
+                        .param("offset", "2")
+                        .param("count", "NONE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
     @Test
     @DisplayName("GET /portals - Should filter by month and year")
     void testListPortals_FilterByMonthAndYear() throws Exception {
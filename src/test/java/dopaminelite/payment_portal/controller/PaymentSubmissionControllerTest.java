@@ -0,0 +1,236 @@
+package dopaminelite.payment_portal.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dopaminelite.payment_portal.entity.PaymentPortal;
+import dopaminelite.payment_portal.entity.PaymentSubmission;
+import dopaminelite.payment_portal.entity.enums.PortalVisibility;
+import dopaminelite.payment_portal.entity.enums.SubmissionStatus;
+import dopaminelite.payment_portal.repository.PaymentPortalRepository;
+import dopaminelite.payment_portal.repository.PaymentSubmissionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Fixtures are committed so every request reads submissions as stored, the way cursors are
+ * issued and followed across separate requests in production.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Payment Submission API Tests")
+class PaymentSubmissionControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PaymentPortalRepository portalRepository;
+
+    @Autowired
+    private PaymentSubmissionRepository submissionRepository;
+
+    @BeforeEach
+    void setUp() {
+        submissionRepository.deleteAll();
+        portalRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("GET /submissions - Should page through all submissions by cursor in offset order")
+    void testListSubmissions_CursorPagination() throws Exception {
+        PaymentPortal portal = createTestPortal("portal-nov-2025", 11, 2025);
+        for (int i = 0; i < 5; i++) {
+            createTestSubmission(portal, SubmissionStatus.PENDING);
+        }
+        List<String> expected = ids(list(get("/submissions").param("limit", "5")));
+
+        JsonNode page = list(get("/submissions").param("limit", "2"));
+        assertThat(page.get("total").asLong()).isEqualTo(5);
+        List<String> walked = new ArrayList<>(ids(page));
+        int pages = 1;
+        while (page.hasNonNull("nextCursor")) {
+            page = list(get("/submissions").param("limit", "2").param("cursor", page.get("nextCursor").asText()));
+            assertThat(page.get("total").isNull()).isTrue();
+            walked.addAll(ids(page));
+            pages++;
+        }
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(walked).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("GET /submissions - Should start at the exact offset when it is not a multiple of the limit")
+    void testListSubmissions_UnalignedOffset() throws Exception {
+        PaymentPortal portal = createTestPortal("portal-dec-2025", 12, 2025);
+        for (int i = 0; i < 4; i++) {
+            createTestSubmission(portal, SubmissionStatus.APPROVED);
+        }
+        List<String> all = ids(list(get("/submissions").param("limit", "4")));
+
+        JsonNode page = list(get("/submissions").param("limit", "2").param("offset", "1"));
+
+        assertThat(ids(page)).isEqualTo(all.subList(1, 3));
+        assertThat(page.get("total").asLong()).isEqualTo(4);
+        assertThat(page.hasNonNull("nextCursor")).isTrue();
+    }
+
+    @Test
+    @DisplayName("GET /submissions - Should page without a total in count mode NONE")
+    void testListSubmissions_CountNone() throws Exception {
+        PaymentPortal portal = createTestPortal("portal-mar-2026", 3, 2026);
+        for (int i = 0; i < 3; i++) {
+            createTestSubmission(portal, SubmissionStatus.PENDING);
+        }
+
+        mockMvc.perform(get("/submissions").param("limit", "2").param("count", "NONE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.total").value(nullValue()))
+                .andExpect(jsonPath("$.hasMore").value(true))
+                .andExpect(jsonPath("$.nextCursor").exists());
+        mockMvc.perform(get("/submissions").param("limit", "2").param("offset", "2").param("count", "NONE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.hasMore").value(false))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("GET /submissions - Should reuse the counted total in count mode CACHED")
+    void testListSubmissions_CountCached() throws Exception {
+        PaymentPortal portal = createTestPortal("portal-apr-2026", 4, 2026);
+        createTestSubmission(portal, SubmissionStatus.PENDING);
+        createTestSubmission(portal, SubmissionStatus.PENDING);
+
+        mockMvc.perform(get("/submissions").param("portalId", portal.getId().toString()).param("count", "CACHED"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.hasMore").value(false));
+
+        createTestSubmission(portal, SubmissionStatus.PENDING);
+
+        // Cached for the same filters, while the items and the exact count are current
+        mockMvc.perform(get("/submissions").param("portalId", portal.getId().toString()).param("count", "CACHED"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(3)))
+                .andExpect(jsonPath("$.total").value(2));
+        mockMvc.perform(get("/submissions").param("portalId", portal.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3));
+    }
+
+    @Test
+    @DisplayName("GET /submissions - Should filter by an inclusive submission date range")
+    void testListSubmissions_DateRange() throws Exception {
+        PaymentPortal portal = createTestPortal("portal-feb-2026", 2, 2026);
+        PaymentSubmission submission = createTestSubmission(portal, SubmissionStatus.PENDING);
+        LocalDate today = submission.getSubmittedAt().toLocalDate();
+
+        mockMvc.perform(get("/submissions")
+                        .param("fromDate", today.toString())
+                        .param("toDate", today.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(submission.getId().toString()));
+        mockMvc.perform(get("/submissions").param("fromDate", today.minusDays(6).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1));
+        mockMvc.perform(get("/submissions").param("fromDate", today.plusDays(1).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(0)));
+        mockMvc.perform(get("/submissions").param("toDate", today.minusDays(1).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(0)));
+    }
+
+    @Test
+    @DisplayName("GET /submissions - Should return 400 when fromDate is after toDate")
+    void testListSubmissions_InvertedDateRange() throws Exception {
+        mockMvc.perform(get("/submissions")
+                        .param("fromDate", "2026-02-10")
+                        .param("toDate", "2026-02-01"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("fromDate must not be after toDate"));
+    }
+
+    @Test
+    @DisplayName("GET /submissions - Should return 400 for a limit above the maximum")
+    void testListSubmissions_LimitTooLarge() throws Exception {
+        mockMvc.perform(get("/submissions").param("limit", "101"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("limit must be between 1 and 100")));
+    }
+
+    @Test
+    @DisplayName("GET /submissions - Should return 400 for a malformed cursor or a cursor with an offset")
+    void testListSubmissions_InvalidCursor() throws Exception {
+        mockMvc.perform(get("/submissions").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid pagination cursor"));
+
+        PaymentPortal portal = createTestPortal("portal-jan-2026", 1, 2026);
+        createTestSubmission(portal, SubmissionStatus.PENDING);
+        createTestSubmission(portal, SubmissionStatus.PENDING);
+        String cursor = list(get("/submissions").param("limit", "1")).get("nextCursor").asText();
+
+        mockMvc.perform(get("/submissions").param("cursor", cursor).param("offset", "1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("offset cannot be combined with a cursor")));
+    }
+
+    private JsonNode list(MockHttpServletRequestBuilder request) throws Exception {
+        String body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private List<String> ids(JsonNode page) {
+        List<String> ids = new ArrayList<>();
+        page.get("items").forEach(item -> ids.add(item.get("id").asText()));
+        return ids;
+    }
+
+    private PaymentPortal createTestPortal(String name, int month, int year) {
+        PaymentPortal portal = new PaymentPortal();
+        portal.setName(name);
+        portal.setDisplayName(name);
+        portal.setMonth(month);
+        portal.setYear(year);
+        portal.setIsPublished(true);
+        portal.setVisibility(PortalVisibility.PUBLISHED);
+        portal.setCreatedByAdminId(UUID.randomUUID());
+        return portalRepository.save(portal);
+    }
+
+    private PaymentSubmission createTestSubmission(PaymentPortal portal, SubmissionStatus status) {
+        PaymentSubmission submission = new PaymentSubmission();
+        submission.setStudentId(UUID.randomUUID());
+        submission.setPortal(portal);
+        submission.setStatus(status);
+        submission.setPortalNameAtSubmission(portal.getName());
+        return submissionRepository.save(submission);
+    }
+}
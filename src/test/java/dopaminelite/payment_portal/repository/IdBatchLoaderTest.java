@@ -0,0 +1,83 @@
+package dopaminelite.payment_portal.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ID Batch Loader Tests")
+class IdBatchLoaderTest {
+
+    @Test
+    @DisplayName("Should pad batches to a power of two within the minimum and maximum batch size")
+    void testPaddedSize() {
+        assertThat(IdBatchLoader.paddedSize(1)).isEqualTo(16);
+        assertThat(IdBatchLoader.paddedSize(16)).isEqualTo(16);
+        assertThat(IdBatchLoader.paddedSize(17)).isEqualTo(32);
+        assertThat(IdBatchLoader.paddedSize(256)).isEqualTo(256);
+        assertThat(IdBatchLoader.paddedSize(257)).isEqualTo(512);
+        assertThat(IdBatchLoader.paddedSize(512)).isEqualTo(512);
+    }
+
+    @Test
+    @DisplayName("Should query full batches plus one padded batch and keep the caller's order")
+    void testLoadInOrder_SplitsAndKeepsOrder() {
+        List<Integer> ids = new ArrayList<>(IntStream.range(0, 1_100).boxed().toList());
+        Collections.shuffle(ids, new Random(42));
+        List<List<Integer>> queried = new ArrayList<>();
+
+        List<String> loaded = IdBatchLoader.loadInOrder(ids, recordingLoader(queried), IdBatchLoaderTest::idOf);
+
+        assertThat(loaded).containsExactlyElementsOf(ids.stream().map(IdBatchLoaderTest::record).toList());
+        assertThat(queried).extracting(List::size).containsExactly(512, 512, 128);
+        assertThat(queried.get(2).subList(76, 128)).containsOnly(ids.get(ids.size() - 1));
+    }
+
+    @Test
+    @DisplayName("Should load repeated IDs once and skip IDs with no record")
+    void testLoadInOrder_DuplicatesAndMissing() {
+        List<List<Integer>> queried = new ArrayList<>();
+        Function<List<Integer>, List<String>> loader = recordingLoader(queried)
+                .andThen(records -> records.stream().filter(record -> !record.equals(record(7))).toList());
+
+        List<String> loaded = IdBatchLoader.loadInOrder(List.of(3, 7, 1, 3, 5, 1), loader, IdBatchLoaderTest::idOf);
+
+        assertThat(loaded).containsExactly(record(3), record(1), record(5));
+        assertThat(queried).hasSize(1);
+        assertThat(queried.get(0)).hasSize(16).startsWith(3, 7, 1, 5);
+    }
+
+    @Test
+    @DisplayName("Should not query for an empty ID list")
+    void testLoadInOrder_Empty() {
+        List<List<Integer>> queried = new ArrayList<>();
+
+        assertThat(IdBatchLoader.loadInOrder(List.of(), recordingLoader(queried), IdBatchLoaderTest::idOf)).isEmpty();
+        assertThat(queried).isEmpty();
+    }
+
+    // Stands in for an IN query: returns one record per distinct ID, in no particular order
+    private static Function<List<Integer>, List<String>> recordingLoader(List<List<Integer>> queried) {
+        return batch -> {
+            queried.add(batch);
+            List<String> records = new ArrayList<>(batch.stream().distinct().map(IdBatchLoaderTest::record).toList());
+            Collections.reverse(records);
+            return records;
+        };
+    }
+
+    private static String record(int id) {
+        return "record-" + id;
+    }
+
+    private static Integer idOf(String record) {
+        return Integer.parseInt(record.substring("record-".length()));
+    }
+}
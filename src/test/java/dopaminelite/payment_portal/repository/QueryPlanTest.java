@@ -0,0 +1,143 @@
+package dopaminelite.payment_portal.repository;
+
+import dopaminelite.payment_portal.entity.enums.SubmissionStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs EXPLAIN on the SQL Hibernate generates for the hot submission and portal queries and fails
+ * when one of them no longer reads through its index. Each test issues the query through the
+ * repository, so a change to the query itself is caught as well as a dropped index.
+ *
+ * <p>The plans come from the H2 test database, which names the index it reads for each table, for
+ * example {@code PUBLIC.IDX_NAME: STUDENT_ID = ?1}, or reports {@code tableScan} when it reads none.
+ */
+@SpringBootTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=dopaminelite.payment_portal.repository.SqlCapture")
+@ActiveProfiles("test")
+@DisplayName("Query Plan Tests")
+class QueryPlanTest {
+
+    private static final int PAGE_SIZE = 10;
+    private static final String SUBMISSIONS_SCAN = "PAYMENT_SUBMISSIONS.TABLESCAN";
+
+    @Autowired
+    private PaymentSubmissionRepository submissionRepository;
+
+    @Autowired
+    private PaymentPortalRepository portalRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        SqlCapture.clear();
+    }
+
+    @Test
+    @DisplayName("Submission list by student should use the (student_id, submitted_at) index")
+    void testFindByFilters_Student() {
+        UUID studentId = UUID.randomUUID();
+        submissionRepository.findByFilters(studentId, null, null, null, null, null, null, PageRequest.of(0, PAGE_SIZE));
+
+        assertThat(explainCaptured(studentId))
+                .contains("IDX_PAYMENT_SUBMISSIONS_STUDENT_ID_SUBMITTED_AT")
+                .doesNotContain(SUBMISSIONS_SCAN);
+    }
+
+    @Test
+    @DisplayName("Submission list by status should use the (status, submitted_at) index")
+    void testFindByFilters_Status() {
+        submissionRepository.findByFilters(null, null, SubmissionStatus.PENDING, null, null, null, null,
+                PageRequest.of(0, PAGE_SIZE));
+
+        assertThat(explainCaptured(SubmissionStatus.PENDING.name()))
+                .contains("IDX_PAYMENT_SUBMISSIONS_STATUS_SUBMITTED_AT")
+                .doesNotContain(SUBMISSIONS_SCAN);
+    }
+
+    @Test
+    @DisplayName("Submission list by portal should read through a portal_id index")
+    void testFindByFilters_Portal() {
+        // The foreign key brings an index of its own in H2, so only the absence of a scan is checked
+        UUID portalId = UUID.randomUUID();
+        submissionRepository.findByFilters(null, portalId, null, null, null, null, null, PageRequest.of(0, PAGE_SIZE));
+
+        assertThat(explainCaptured(portalId)).doesNotContain(SUBMISSIONS_SCAN);
+    }
+
+    @Test
+    @DisplayName("Submission list by date range should use the (submitted_at, id) index")
+    void testFindByFilters_DateRange() {
+        LocalDate fromDate = LocalDate.of(2025, 11, 1);
+        LocalDate toDate = LocalDate.of(2025, 11, 7);
+        submissionRepository.findByFilters(null, null, null, fromDate, toDate, null, null, PageRequest.of(0, PAGE_SIZE));
+
+        assertThat(explainCaptured(fromDate.atStartOfDay(), toDate.plusDays(1).atStartOfDay()))
+                .contains("IDX_PAYMENT_SUBMISSIONS_SUBMITTED_AT_ID")
+                .doesNotContain(SUBMISSIONS_SCAN);
+    }
+
+    @Test
+    @DisplayName("Submission list by month and year should find portals through the (year, month) index")
+    void testFindByFilters_MonthAndYear() {
+        submissionRepository.findByFilters(null, null, null, null, null, 11, 2025, PageRequest.of(0, PAGE_SIZE));
+
+        assertThat(explainCaptured(11, 2025))
+                .contains("IDX_PAYMENT_PORTALS_YEAR_MONTH")
+                .doesNotContain(SUBMISSIONS_SCAN);
+    }
+
+    @Test
+    @DisplayName("findByStudentId and findByStatus should use their composite indexes")
+    void testDerivedFinders() {
+        UUID studentId = UUID.randomUUID();
+        submissionRepository.findByStudentId(studentId,
+                PageRequest.of(0, PAGE_SIZE, SubmissionSpecifications.LIST_ORDER));
+        assertThat(explainCaptured(studentId)).contains("IDX_PAYMENT_SUBMISSIONS_STUDENT_ID_SUBMITTED_AT");
+
+        SqlCapture.clear();
+        submissionRepository.findByStatus(SubmissionStatus.APPROVED,
+                PageRequest.of(0, PAGE_SIZE, SubmissionSpecifications.LIST_ORDER));
+        assertThat(explainCaptured(SubmissionStatus.APPROVED.name())).contains("IDX_PAYMENT_SUBMISSIONS_STATUS_SUBMITTED_AT");
+    }
+
+    @Test
+    @DisplayName("Portal lookup by month and year should use the (year, month) index")
+    void testFindPortalsByMonthAndYear() {
+        portalRepository.findByMonthAndYear(11, 2025, PageRequest.of(0, PAGE_SIZE));
+
+        assertThat(explainCaptured(11, 2025))
+                .contains("IDX_PAYMENT_PORTALS_YEAR_MONTH")
+                .doesNotContain("PAYMENT_PORTALS.TABLESCAN");
+    }
+
+    /**
+     * Explains the first statement captured since the last clear. The given values are bound to the
+     * leading parameters, which are the filters; any remaining parameters are the page limit and offset.
+     */
+    private String explainCaptured(Object... values) {
+        List<String> statements = SqlCapture.statements();
+        assertThat(statements).isNotEmpty();
+        String sql = statements.get(0);
+        Object[] args = new Object[(int) sql.chars().filter(c -> c == '?').count()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = i < values.length ? values[i] : PAGE_SIZE;
+        }
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, args).toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,38 @@
+package dopaminelite.payment_portal.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Records the SQL Hibernate sends to the database so tests can assert its shape. Register it with
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}; statements are
+ * recorded per thread, normalized to lower case with single spaces.
+ */
+public class SqlCapture implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> STATEMENTS = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.get().add(sql.replaceAll("\\s+", " ").trim().toLowerCase(Locale.ROOT));
+        return sql;
+    }
+
+    /**
+     * Forgets the statements recorded so far on this thread.
+     */
+    public static void clear() {
+        STATEMENTS.get().clear();
+    }
+
+    /**
+     * @return the statements recorded on this thread since the last {@link #clear()}
+     */
+    public static List<String> statements() {
+        return List.copyOf(STATEMENTS.get());
+    }
+
+}
@@ -0,0 +1,133 @@
+package dopaminelite.payment_portal.repository;
+
+import dopaminelite.payment_portal.entity.enums.SubmissionStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Asserts the SQL of the submission list for every combination of filters. The tables are empty,
+ * so each call issues exactly one select, the page's ID query: no IDs means no submissions to load,
+ * and Spring Data skips the count for a short first page.
+ */
+@SpringBootTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=dopaminelite.payment_portal.repository.SqlCapture")
+@ActiveProfiles("test")
+@DisplayName("Submission Filter SQL Tests")
+class SubmissionFilterSqlTest {
+
+    @Autowired
+    private PaymentSubmissionRepository submissionRepository;
+
+    @BeforeEach
+    void setUp() {
+        submissionRepository.deleteAll();
+        SqlCapture.clear();
+    }
+
+    static Stream<Arguments> filterShapes() {
+        // Every subset of the seven filters, as bits: studentId, portalId, status, fromDate, toDate, month, year
+        return IntStream.range(0, 1 << 7).mapToObj(shape -> Arguments.of(
+                (shape & 1) != 0, (shape & 2) != 0, (shape & 4) != 0, (shape & 8) != 0,
+                (shape & 16) != 0, (shape & 32) != 0, (shape & 64) != 0));
+    }
+
+    @ParameterizedTest(name = "studentId={0}, portalId={1}, status={2}, fromDate={3}, toDate={4}, month={5}, year={6}")
+    @MethodSource("filterShapes")
+    @DisplayName("Should emit only the supplied predicates and join the portal only for month or year")
+    void testFindByFilters_EmitsOnlySuppliedPredicates(boolean studentId, boolean portalId, boolean status,
+                                                       boolean fromDate, boolean toDate, boolean month, boolean year) {
+        submissionRepository.findByFilters(
+                studentId ? UUID.randomUUID() : null,
+                portalId ? UUID.randomUUID() : null,
+                status ? SubmissionStatus.PENDING : null,
+                fromDate ? LocalDate.of(2025, 11, 1) : null,
+                toDate ? LocalDate.of(2025, 11, 7) : null,
+                month ? 11 : null,
+                year ? 2025 : null,
+                PageRequest.of(0, 10));
+
+        String sql = singleStatement();
+        assertThat(sql).doesNotContain("is null");
+        assertThat(sql.contains("join payment_portals")).isEqualTo(month || year);
+        assertThat(sql.contains("join")).isEqualTo(month || year);
+        assertThat(sql.matches(".*\\.student_id ?= ?\\?.*")).isEqualTo(studentId);
+        assertThat(sql.matches(".*\\.portal_id ?= ?\\?.*")).isEqualTo(portalId);
+        assertThat(sql.matches(".*\\.status ?= ?\\?.*")).isEqualTo(status);
+        assertThat(sql.matches(".*\\.submitted_at ?>= ?\\?.*")).isEqualTo(fromDate);
+        assertThat(sql.matches(".*\\.submitted_at ?< ?\\?.*")).isEqualTo(toDate);
+        assertThat(sql.matches(".*\\.portal_month ?= ?\\?.*")).isEqualTo(month);
+        assertThat(sql.matches(".*\\.portal_year ?= ?\\?.*")).isEqualTo(year);
+        assertThat(sql.contains(" where ")).isEqualTo(studentId || portalId || status || fromDate || toDate || month || year);
+        assertThat(sql).startsWith("select ps1_0.id from payment_submissions ps1_0");
+        // Hibernate refers to the selected id by position
+        assertThat(sql).matches(".* order by \\w+\\.submitted_at desc, ?(\\w+\\.id|1) desc offset \\? rows fetch first \\? rows only");
+    }
+
+    @Test
+    @DisplayName("Should emit the same SQL for the same filter shape with different values")
+    void testFindByFilters_SameShapeSameSql() {
+        submissionRepository.findByFilters(UUID.randomUUID(), null, SubmissionStatus.PENDING,
+                LocalDate.of(2025, 11, 1), null, null, null, PageRequest.of(0, 10));
+        submissionRepository.findByFilters(UUID.randomUUID(), null, SubmissionStatus.APPROVED,
+                LocalDate.of(2026, 2, 1), null, null, null, PageRequest.of(0, 10));
+
+        List<String> statements = SqlCapture.statements();
+        assertThat(statements).hasSize(2);
+        assertThat(statements.get(0)).isEqualTo(statements.get(1));
+    }
+
+    @Test
+    @DisplayName("Should seek past the cursor position without a join or a count")
+    void testFindByFiltersAfter_SeeksWithoutJoinOrCount() {
+        submissionRepository.findByFiltersAfter(null, null, SubmissionStatus.PENDING, null, null, null, null,
+                LocalDateTime.of(2025, 11, 1, 12, 0), UUID.randomUUID(), PageRequest.of(0, 11));
+
+        String sql = singleStatement();
+        assertThat(sql).doesNotContain("join").doesNotContain("count(").doesNotContain("is null");
+        assertThat(sql).matches(".*\\.submitted_at ?<= ?\\?.*");
+        assertThat(sql).matches(".*\\.id ?< ?\\?.*");
+        assertThat(sql).matches(".*\\.status ?= ?\\?.*");
+    }
+
+    @Test
+    @DisplayName("Should count exports with only the supplied predicates")
+    void testCountByFilters_EmitsOnlySuppliedPredicates() {
+        submissionRepository.countByFilters(SubmissionStatus.PENDING, null, null);
+
+        String sql = singleStatement();
+        assertThat(sql).contains("count(").doesNotContain("is null").doesNotContain("join");
+        assertThat(sql).matches(".*\\.status ?= ?\\?.*");
+
+        SqlCapture.clear();
+        submissionRepository.countByFilters(null, 11, 2025);
+
+        sql = singleStatement();
+        assertThat(sql).doesNotContain("is null").doesNotContain(".status");
+        assertThat(sql).contains("join payment_portals");
+        assertThat(sql).matches(".*\\.portal_month ?= ?\\?.*");
+        assertThat(sql).matches(".*\\.portal_year ?= ?\\?.*");
+    }
+
+    private String singleStatement() {
+        List<String> statements = SqlCapture.statements();
+        assertThat(statements).hasSize(1);
+        return statements.get(0);
+    }
+}
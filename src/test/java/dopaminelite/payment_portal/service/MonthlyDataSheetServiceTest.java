@@ -0,0 +1,187 @@
+package dopaminelite.payment_portal.service;
+
+import dopaminelite.payment_portal.dto.export.DataSheetExportRequest;
+import dopaminelite.payment_portal.dto.submission.PaymentSubmissionStatusUpdateRequest;
+import dopaminelite.payment_portal.entity.PaymentPortal;
+import dopaminelite.payment_portal.entity.PaymentSubmission;
+import dopaminelite.payment_portal.entity.enums.DataSheetType;
+import dopaminelite.payment_portal.entity.enums.ExportCompression;
+import dopaminelite.payment_portal.entity.enums.ExportFormat;
+import dopaminelite.payment_portal.entity.enums.PortalVisibility;
+import dopaminelite.payment_portal.entity.enums.SubmissionStatus;
+import dopaminelite.payment_portal.repository.PaymentPortalRepository;
+import dopaminelite.payment_portal.repository.PaymentSubmissionRepository;
+import dopaminelite.payment_portal.service.export.PrerenderedDataSheetStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fixtures are saved through the repositories, which publish no change events, so a sheet
+ * keeps its old content until a change goes through {@link PaymentSubmissionService}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Monthly Data Sheet Tests")
+class MonthlyDataSheetServiceTest {
+
+    private static final YearMonth CLOSED_MONTH = YearMonth.now().minusMonths(2);
+
+    @Autowired
+    private MonthlyDataSheetService monthlyDataSheetService;
+
+    @Autowired
+    private DataSheetService dataSheetService;
+
+    @Autowired
+    private PaymentSubmissionService submissionService;
+
+    @Autowired
+    private PrerenderedDataSheetStore prerenderedStore;
+
+    @Autowired
+    private PaymentPortalRepository portalRepository;
+
+    @Autowired
+    private PaymentSubmissionRepository submissionRepository;
+
+    @BeforeEach
+    void setUp() {
+        submissionRepository.deleteAll();
+        portalRepository.deleteAll();
+        prerenderedStore.withdrawAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        // The store is shared by the whole test context, and other tests expect live exports
+        prerenderedStore.withdrawAll();
+    }
+
+    @Test
+    @DisplayName("Should serve a closed month from its pre-rendered sheet")
+    void testRenderClosedMonths_ServesSheet() {
+        PaymentPortal portal = createTestPortal(CLOSED_MONTH);
+        PaymentSubmission submission = createTestSubmission(portal, SubmissionStatus.PENDING);
+
+        assertThat(monthlyDataSheetService.renderClosedMonths())
+                .isEqualTo(DataSheetType.values().length * 2);
+
+        // Saved without an event, so only a served sheet still shows the old status
+        submission.setStatus(SubmissionStatus.APPROVED);
+        submissionRepository.save(submission);
+
+        assertThat(export(DataSheetType.ALL)).contains(",PENDING,").doesNotContain("APPROVED");
+        assertThat(export(DataSheetType.PENDING)).contains(submission.getId().toString());
+    }
+
+    @Test
+    @DisplayName("Should keep unchanged sheets on the next nightly run and replace PDFs from the next day")
+    void testRenderClosedMonths_SkipsCurrentSheets() {
+        PaymentPortal portal = createTestPortal(CLOSED_MONTH);
+        createTestSubmission(portal, SubmissionStatus.PENDING);
+        monthlyDataSheetService.renderClosedMonths();
+
+        assertThat(monthlyDataSheetService.renderClosedMonths()).isZero();
+
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        assertThat(prerenderedStore.isCurrent(key(ExportFormat.CSV), tomorrow)).isTrue();
+        assertThat(prerenderedStore.isCurrent(key(ExportFormat.PDF), tomorrow)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should withdraw and re-render only the sheets a submission change affects")
+    void testSubmissionChange_WithdrawsAndRefreshesSheets() {
+        PaymentPortal portal = createTestPortal(CLOSED_MONTH);
+        PaymentSubmission submission = createTestSubmission(portal, SubmissionStatus.PENDING);
+        monthlyDataSheetService.renderClosedMonths();
+
+        submissionService.updateSubmissionStatus(submission.getId(),
+                new PaymentSubmissionStatusUpdateRequest(SubmissionStatus.APPROVED, null));
+
+        // Withdrawn at once, so exports are rendered live
+        assertThat(export(DataSheetType.ALL)).contains(",APPROVED,");
+        assertThat(export(DataSheetType.PENDING)).doesNotContain(submission.getId().toString());
+
+        // ALL, PENDING and APPROVED in both formats; REJECTED is untouched
+        assertThat(monthlyDataSheetService.renderStale()).isEqualTo(6);
+        assertThat(monthlyDataSheetService.renderStale()).isZero();
+        assertThat(export(DataSheetType.APPROVED)).contains(submission.getId().toString());
+    }
+
+    @Test
+    @DisplayName("Should not queue sheets of months outside the window")
+    void testSubmissionChange_OutsideWindowIgnored() {
+        YearMonth old = prerenderedStore.firstMonth().minusMonths(1);
+        PaymentPortal portal = createTestPortal(old);
+        PaymentSubmission submission = createTestSubmission(portal, SubmissionStatus.PENDING);
+
+        submissionService.updateSubmissionStatus(submission.getId(),
+                new PaymentSubmissionStatusUpdateRequest(SubmissionStatus.APPROVED, null));
+
+        assertThat(monthlyDataSheetService.renderStale()).isZero();
+        assertThat(prerenderedStore.generation(old)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should render requests with custom columns live")
+    void testExport_CustomColumnsRenderedLive() {
+        PaymentPortal portal = createTestPortal(CLOSED_MONTH);
+        PaymentSubmission submission = createTestSubmission(portal, SubmissionStatus.PENDING);
+        monthlyDataSheetService.renderClosedMonths();
+
+        submission.setStatus(SubmissionStatus.REJECTED);
+        submissionRepository.save(submission);
+
+        DataSheetExportRequest request = request(DataSheetType.ALL);
+        request.setColumns(List.of("id", "status"));
+        String csv = new String(dataSheetService.exportDataSheet(request), StandardCharsets.UTF_8);
+        assertThat(csv).isEqualTo("id,status\n" + submission.getId() + ",REJECTED\n");
+    }
+
+    private PrerenderedDataSheetStore.Key key(ExportFormat format) {
+        return new PrerenderedDataSheetStore.Key(CLOSED_MONTH, DataSheetType.ALL, format);
+    }
+
+    private String export(DataSheetType type) {
+        return new String(dataSheetService.exportDataSheet(request(type)), StandardCharsets.UTF_8);
+    }
+
+    private DataSheetExportRequest request(DataSheetType type) {
+        return new DataSheetExportRequest(type, ExportFormat.CSV, CLOSED_MONTH.getMonthValue(),
+                CLOSED_MONTH.getYear(), null, null, ExportCompression.NONE);
+    }
+
+    private PaymentPortal createTestPortal(YearMonth month) {
+        PaymentPortal portal = new PaymentPortal();
+        portal.setName("portal-" + month);
+        portal.setDisplayName("portal-" + month);
+        portal.setMonth(month.getMonthValue());
+        portal.setYear(month.getYear());
+        portal.setIsPublished(true);
+        portal.setVisibility(PortalVisibility.PUBLISHED);
+        portal.setCreatedByAdminId(UUID.randomUUID());
+        return portalRepository.save(portal);
+    }
+
+    private PaymentSubmission createTestSubmission(PaymentPortal portal, SubmissionStatus status) {
+        PaymentSubmission submission = new PaymentSubmission();
+        submission.setStudentId(UUID.randomUUID());
+        submission.setPortal(portal);
+        submission.setStatus(status);
+        submission.setPortalNameAtSubmission(portal.getName());
+        return submissionRepository.save(submission);
+    }
+}
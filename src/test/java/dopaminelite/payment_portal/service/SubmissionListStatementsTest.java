@@ -0,0 +1,160 @@
+package dopaminelite.payment_portal.service;
+
+import dopaminelite.payment_portal.dto.common.PaginatedResponse;
+import dopaminelite.payment_portal.dto.submission.PaymentSubmissionResponse;
+import dopaminelite.payment_portal.dto.submission.UploadedFileRefDto;
+import dopaminelite.payment_portal.entity.PaymentPortal;
+import dopaminelite.payment_portal.entity.PaymentSubmission;
+import dopaminelite.payment_portal.entity.UploadedFile;
+import dopaminelite.payment_portal.entity.enums.CountMode;
+import dopaminelite.payment_portal.entity.enums.PortalVisibility;
+import dopaminelite.payment_portal.entity.enums.SubmissionStatus;
+import dopaminelite.payment_portal.repository.PaymentPortalRepository;
+import dopaminelite.payment_portal.repository.PaymentSubmissionRepository;
+import dopaminelite.payment_portal.repository.SqlCapture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the statements of one submission list page. The page is loaded as its IDs and then the
+ * submissions with their files, so the count must not grow with the page size.
+ */
+@SpringBootTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=dopaminelite.payment_portal.repository.SqlCapture")
+@ActiveProfiles("test")
+@DisplayName("Submission List Statement Tests")
+class SubmissionListStatementsTest {
+
+    private static final int SUBMISSIONS = 60;
+    private static final int FILES_PER_SUBMISSION = 2;
+
+    @Autowired
+    private PaymentSubmissionService submissionService;
+
+    @Autowired
+    private PaymentPortalRepository portalRepository;
+
+    @Autowired
+    private PaymentSubmissionRepository submissionRepository;
+
+    private PaymentPortal portal;
+    private final Map<UUID, List<UUID>> fileIds = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        submissionRepository.deleteAll();
+        portalRepository.deleteAll();
+        fileIds.clear();
+
+        portal = createTestPortal();
+        for (int i = 0; i < SUBMISSIONS; i++) {
+            PaymentSubmission submission = createTestSubmission();
+            fileIds.put(submission.getId(), submission.getUploadedFiles().stream().map(UploadedFile::getFileId).toList());
+        }
+        SqlCapture.clear();
+    }
+
+    @ParameterizedTest(name = "limit={0}")
+    @ValueSource(ints = {5, 50})
+    @DisplayName("Should load a page and its files with two statements without a count")
+    void testListSubmissions_WithoutCount(int limit) {
+        PaginatedResponse<PaymentSubmissionResponse> page = list(limit, null, CountMode.NONE);
+
+        assertThat(SqlCapture.statements()).hasSize(2);
+        assertThat(page.getItems()).hasSize(limit);
+        assertFiles(page);
+    }
+
+    @ParameterizedTest(name = "limit={0}")
+    @ValueSource(ints = {5, 50})
+    @DisplayName("Should add only the count query for exact totals")
+    void testListSubmissions_ExactCount(int limit) {
+        PaginatedResponse<PaymentSubmissionResponse> page = list(limit, null, CountMode.EXACT);
+
+        List<String> statements = SqlCapture.statements();
+        assertThat(statements).hasSize(3);
+        assertThat(statements).filteredOn(sql -> sql.contains("count(")).hasSize(1);
+        assertThat(page.getTotal()).isEqualTo((long) SUBMISSIONS);
+        assertFiles(page);
+    }
+
+    @Test
+    @DisplayName("Should load a cursor page and its files with two statements")
+    void testListSubmissions_Cursor() {
+        PaginatedResponse<PaymentSubmissionResponse> first = list(20, null, null);
+        SqlCapture.clear();
+
+        PaginatedResponse<PaymentSubmissionResponse> second = list(40, first.getNextCursor(), null);
+
+        assertThat(SqlCapture.statements()).hasSize(2);
+        assertThat(second.getItems()).hasSize(40);
+        assertThat(second.getNextCursor()).isNull();
+        assertFiles(second);
+    }
+
+    @Test
+    @DisplayName("Should keep the list order after loading the files")
+    void testListSubmissions_KeepsOrder() {
+        List<PaymentSubmissionResponse> items = list(SUBMISSIONS, null, CountMode.NONE).getItems();
+
+        assertThat(items).hasSize(SUBMISSIONS);
+        for (int i = 1; i < items.size(); i++) {
+            assertThat(items.get(i - 1).getSubmittedAt()).isAfterOrEqualTo(items.get(i).getSubmittedAt());
+        }
+    }
+
+    private PaginatedResponse<PaymentSubmissionResponse> list(int limit, String cursor, CountMode count) {
+        return submissionService.listSubmissions(null, portal.getId(), null, null, null, null, null,
+                limit, 0, cursor, count);
+    }
+
+    private void assertFiles(PaginatedResponse<PaymentSubmissionResponse> page) {
+        for (PaymentSubmissionResponse item : page.getItems()) {
+            assertThat(item.getUploadedFiles())
+                    .extracting(UploadedFileRefDto::getFileId)
+                    .containsExactlyInAnyOrderElementsOf(fileIds.get(item.getId()));
+        }
+    }
+
+    private PaymentPortal createTestPortal() {
+        PaymentPortal portal = new PaymentPortal();
+        portal.setName("statements-portal");
+        portal.setDisplayName("Statements Portal");
+        portal.setMonth(11);
+        portal.setYear(2025);
+        portal.setIsPublished(true);
+        portal.setVisibility(PortalVisibility.PUBLISHED);
+        portal.setCreatedByAdminId(UUID.randomUUID());
+        return portalRepository.save(portal);
+    }
+
+    private PaymentSubmission createTestSubmission() {
+        PaymentSubmission submission = new PaymentSubmission();
+        submission.setStudentId(UUID.randomUUID());
+        submission.setPortal(portal);
+        submission.setStatus(SubmissionStatus.PENDING);
+        submission.setPortalNameAtSubmission(portal.getName());
+        for (int i = 0; i < FILES_PER_SUBMISSION; i++) {
+            UploadedFile file = new UploadedFile();
+            file.setFileId(UUID.randomUUID());
+            file.setFileName("receipt-" + i + ".pdf");
+            file.setFileType("application/pdf");
+            file.setSubmission(submission);
+            submission.getUploadedFiles().add(file);
+        }
+        return submissionRepository.save(submission);
+    }
+}
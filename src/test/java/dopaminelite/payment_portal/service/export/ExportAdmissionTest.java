@@ -0,0 +1,185 @@
+package dopaminelite.payment_portal.service.export;
+
+import dopaminelite.payment_portal.config.DataSheetExportProperties;
+import dopaminelite.payment_portal.entity.enums.ExportFormat;
+import dopaminelite.payment_portal.exception.ExportRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Export Admission Tests")
+class ExportAdmissionTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private DataSheetExportProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new DataSheetExportProperties();
+        properties.getAdmission().getConcurrency().put(ExportFormat.CSV, 3);
+        properties.getAdmission().setRowsPerSlot(100);
+        properties.getAdmission().setQueueCapacity(1);
+        properties.getAdmission().setMaxWait(Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should cost exports by row count, capped at the format's capacity")
+    void testAdmit_CostsByRowCount() {
+        ExportAdmission admission = new ExportAdmission(properties, registry);
+
+        try (ExportAdmission.Permit small = admission.admit(ExportFormat.CSV, () -> 0)) {
+            assertThat(small.getSlots()).isEqualTo(1);
+        }
+        try (ExportAdmission.Permit medium = admission.admit(ExportFormat.CSV, () -> 101)) {
+            assertThat(medium.getSlots()).isEqualTo(2);
+        }
+        try (ExportAdmission.Permit huge = admission.admit(ExportFormat.CSV, () -> 1_000_000)) {
+            assertThat(huge.getSlots()).isEqualTo(3);
+            assertThat(registry.get("export.admission.slots.used").tag("format", "CSV").gauge().value()).isEqualTo(3);
+        }
+        assertThat(registry.get("export.admission.slots.used").tag("format", "CSV").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should queue an export until slots are released")
+    void testAdmit_WaitsForRelease() throws Exception {
+        ExportAdmission admission = new ExportAdmission(properties, registry);
+        ExportAdmission.Permit running = admission.admit(ExportFormat.CSV, () -> 300);
+
+        CompletableFuture<ExportAdmission.Permit> queued = CompletableFuture.supplyAsync(
+                () -> admission.admit(ExportFormat.CSV, () -> 1), executor);
+        awaitQueueDepth(1);
+        assertThat(queued).isNotDone();
+
+        running.close();
+        running.close();
+
+        try (ExportAdmission.Permit admitted = queued.get(5, TimeUnit.SECONDS)) {
+            assertThat(admitted.getSlots()).isEqualTo(1);
+        }
+        assertThat(registry.get("export.admission.queue.depth").tag("format", "CSV").gauge().value()).isZero();
+        assertThat(registry.get("export.admission.wait").tags("format", "CSV", "outcome", "admitted").timer().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should reject with a Retry-After estimate when the queue is full")
+    void testAdmit_RejectsWhenQueueFull() throws Exception {
+        ExportAdmission admission = new ExportAdmission(properties, registry);
+        ExportAdmission.Permit running = admission.admit(ExportFormat.CSV, () -> 300);
+        CompletableFuture<ExportAdmission.Permit> queued = CompletableFuture.supplyAsync(
+                () -> admission.admit(ExportFormat.CSV, () -> 1), executor);
+        awaitQueueDepth(1);
+
+        assertThatThrownBy(() -> admission.admit(ExportFormat.CSV, () -> 1))
+                .isInstanceOf(ExportRejectedException.class)
+                .hasMessageContaining("CSV")
+                .extracting(e -> ((ExportRejectedException) e).getRetryAfter())
+                .isEqualTo(Duration.ofSeconds(5));
+        assertThat(registry.get("export.admission.rejections").tags("format", "CSV", "reason", "queue_full")
+                .counter().count()).isEqualTo(1);
+
+        running.close();
+        queued.get(5, TimeUnit.SECONDS).close();
+    }
+
+    @Test
+    @DisplayName("Should reject an export that waits longer than the maximum wait")
+    void testAdmit_RejectsAfterMaxWait() {
+        properties.getAdmission().setMaxWait(Duration.ofMillis(50));
+        ExportAdmission admission = new ExportAdmission(properties, registry);
+
+        try (ExportAdmission.Permit running = admission.admit(ExportFormat.CSV, () -> 300)) {
+            assertThatThrownBy(() -> admission.admit(ExportFormat.CSV, () -> 1))
+                    .isInstanceOf(ExportRejectedException.class)
+                    .extracting(e -> ((ExportRejectedException) e).getRetryAfter())
+                    .isEqualTo(Duration.ofSeconds(1));
+        }
+        assertThat(registry.get("export.admission.rejections").tags("format", "CSV", "reason", "timeout")
+                .counter().count()).isEqualTo(1);
+        assertThat(registry.get("export.admission.wait").tags("format", "CSV", "outcome", "rejected")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should hold a background export in the queue past its bound and maximum wait")
+    void testAwait_WaitsWithoutLimit() throws Exception {
+        properties.getAdmission().setQueueCapacity(0);
+        properties.getAdmission().setMaxWait(Duration.ofMillis(50));
+        ExportAdmission admission = new ExportAdmission(properties, registry);
+        ExportAdmission.Permit running = admission.admit(ExportFormat.CSV, () -> 300);
+
+        CompletableFuture<ExportAdmission.Permit> job = CompletableFuture.supplyAsync(() -> {
+            try {
+                return admission.await(ExportFormat.CSV, 150);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }, executor);
+        awaitQueueDepth(1);
+        Thread.sleep(100);
+        assertThat(job).isNotDone();
+
+        running.close();
+        try (ExportAdmission.Permit admitted = job.get(5, TimeUnit.SECONDS)) {
+            assertThat(admitted.getSlots()).isEqualTo(2);
+            assertThat(registry.get("export.admission.slots.used").tag("format", "CSV").gauge().value()).isEqualTo(2);
+        }
+        assertThat(registry.get("export.admission.rejections").tags("format", "CSV", "reason", "timeout")
+                .counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should limit each format independently")
+    void testAdmit_FormatsAreIndependent() {
+        properties.getAdmission().setQueueCapacity(0);
+        ExportAdmission admission = new ExportAdmission(properties, registry);
+
+        try (ExportAdmission.Permit pdf = admission.admit(ExportFormat.PDF, () -> 1);
+             ExportAdmission.Permit csv = admission.admit(ExportFormat.CSV, () -> 1)) {
+            assertThat(csv.getSlots()).isEqualTo(1);
+            assertThatThrownBy(() -> admission.admit(ExportFormat.PDF, () -> 1))
+                    .isInstanceOf(ExportRejectedException.class);
+        }
+    }
+
+    @Test
+    @DisplayName("Should not estimate row counts when admission control is disabled")
+    void testAdmit_Disabled() {
+        properties.getAdmission().setEnabled(false);
+        ExportAdmission admission = new ExportAdmission(properties, registry);
+
+        ExportAdmission.Permit permit = admission.admit(ExportFormat.PDF, () -> {
+            throw new AssertionError("row count should not be estimated");
+        });
+
+        assertThat(permit.getSlots()).isZero();
+    }
+
+    private void awaitQueueDepth(int depth) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            if (registry.get("export.admission.queue.depth").tag("format", "CSV").gauge().value() == depth) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("queue depth never reached " + depth);
+    }
+}
@@ -0,0 +1,46 @@
+package dopaminelite.payment_portal.service.export;
+
+import dopaminelite.payment_portal.dto.export.DataSheetExportRequest;
+import dopaminelite.payment_portal.entity.enums.DataSheetType;
+import dopaminelite.payment_portal.entity.enums.ExportCompression;
+import dopaminelite.payment_portal.entity.enums.ExportFormat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Export Job Tests")
+class ExportJobTest {
+
+    @Test
+    @DisplayName("Should advance progress through both the fetch and the render")
+    void testProgressPercent_CoversFetchAndRender() {
+        ExportJob job = job();
+        assertThat(job.getProgressPercent()).isNull();
+
+        job.markRunning(200);
+        job.onRowsRead(100);
+        assertThat(job.getProgressPercent()).isEqualTo(25);
+        job.onRowsRead(200);
+        assertThat(job.getProgressPercent()).isEqualTo(50);
+
+        job.onRowsRendered(100);
+        assertThat(job.getProgressPercent()).isEqualTo(75);
+        assertThat(job.getRowsWritten()).isEqualTo(100);
+        job.onRowsRendered(200);
+        assertThat(job.getProgressPercent()).isEqualTo(99);
+
+        job.markCompleted(Path.of("job.csv"), 10, LocalDateTime.now().plusHours(1));
+        assertThat(job.getProgressPercent()).isEqualTo(100);
+    }
+
+    private ExportJob job() {
+        DataSheetExportRequest request = new DataSheetExportRequest(
+                DataSheetType.ALL, ExportFormat.CSV, null, null, null, null, ExportCompression.NONE);
+        return new ExportJob(UUID.randomUUID(), request, ColumnPlan.compile(null));
+    }
+}
@@ -0,0 +1,81 @@
+package dopaminelite.payment_portal.service.export;
+
+import dopaminelite.payment_portal.config.DataSheetExportProperties;
+import dopaminelite.payment_portal.dto.export.DataSheetExportRequest;
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
+import dopaminelite.payment_portal.entity.enums.DataSheetType;
+import dopaminelite.payment_portal.entity.enums.ExportCompression;
+import dopaminelite.payment_portal.entity.enums.ExportFormat;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Export Metrics Tests")
+class ExportMetricsTest {
+
+    private static final DataSheetExportRequest REQUEST = new DataSheetExportRequest(
+            DataSheetType.APPROVED, ExportFormat.PDF, 5, 2026, null, null, ExportCompression.NONE);
+
+    @TempDir
+    Path spoolDirectory;
+
+    @Test
+    @DisplayName("Should publish every phase tagged by format and type")
+    void testRecord_PublishesMeters() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ExportMetrics metrics = new ExportMetrics(registry, new DataSheetExportProperties());
+
+        List<SubmissionExportRow> rows = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            rows.add(new SubmissionExportRow());
+        }
+        ExportStats stats = new ExportStats();
+        stats.queried();
+        try (SpooledRows fetched = SpooledRows.drain(rows.iterator(), 10, spoolDirectory.resolve("rows"),
+                ExportProgress.NONE)) {
+            stats.fetched(fetched);
+        }
+        stats.finished(4_096);
+        metrics.record(REQUEST, stats);
+
+        for (String timer : List.of("export.query", "export.hydration", "export.connection.hold", "export.render")) {
+            assertThat(registry.get(timer).tags("format", "PDF", "type", "APPROVED").timer().count())
+                    .as(timer).isEqualTo(1);
+        }
+        assertThat(registry.get("export.bytes.written").tags("format", "PDF", "type", "APPROVED")
+                .summary().totalAmount()).isEqualTo(4_096);
+        assertThat(registry.get("export.spool.memory").summary().totalAmount()).isPositive();
+        assertThat(registry.get("export.throughput").summary().count()).isEqualTo(1);
+        assertThat(registry.get("export.duration").tags("format", "PDF", "type", "APPROVED", "outcome", "success")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should record the duration and outcome of exports that did not complete")
+    void testRecord_FailedExports() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ExportMetrics metrics = new ExportMetrics(registry, new DataSheetExportProperties());
+
+        ExportStats aborted = new ExportStats();
+        aborted.queried();
+        aborted.failed(1_024, true);
+        metrics.record(REQUEST, aborted);
+        ExportStats failed = new ExportStats();
+        failed.failed(0, false);
+        metrics.record(REQUEST, failed);
+
+        assertThat(registry.get("export.duration").tags("format", "PDF", "type", "APPROVED", "outcome", "aborted")
+                .timer().count()).isEqualTo(1);
+        assertThat(registry.get("export.duration").tags("format", "PDF", "type", "APPROVED", "outcome", "failure")
+                .timer().count()).isEqualTo(1);
+        assertThat(registry.find("export.render").timer()).isNull();
+        assertThat(registry.find("export.bytes.written").summary()).isNull();
+    }
+}
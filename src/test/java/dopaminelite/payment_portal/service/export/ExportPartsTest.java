@@ -0,0 +1,91 @@
+package dopaminelite.payment_portal.service.export;
+
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
+import dopaminelite.payment_portal.entity.enums.ExportSplit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Export Parts Tests")
+class ExportPartsTest {
+
+    private static final UUID PORTAL_A = UUID.randomUUID();
+    private static final UUID PORTAL_B = UUID.randomUUID();
+
+    @Test
+    @DisplayName("Should split rows into parts of at most the part size")
+    void testSplitByRows() {
+        List<List<SubmissionExportRow>> parts = drain(new ExportParts(
+                rows(PORTAL_A, 5).iterator(), ExportSplit.ROWS, 2));
+
+        assertThat(parts).extracting(List::size).containsExactly(2, 2, 1);
+    }
+
+    @Test
+    @DisplayName("Should start a new part whenever the portal changes")
+    void testSplitByPortal() {
+        List<SubmissionExportRow> rows = new ArrayList<>(rows(PORTAL_A, 3));
+        rows.addAll(rows(PORTAL_B, 2));
+        rows.addAll(rows(PORTAL_A, 1));
+
+        ExportParts parts = new ExportParts(rows.iterator(), ExportSplit.PORTAL, 0);
+        List<UUID> portals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+        while (parts.hasNext()) {
+            ExportParts.Part part = parts.next();
+            portals.add(part.getPortalId());
+            names.add(part.getPortalName());
+            sizes.add(part.rows().toList().size());
+        }
+
+        assertThat(portals).containsExactly(PORTAL_A, PORTAL_B, PORTAL_A);
+        assertThat(names).containsExactly("portal-" + PORTAL_A, "portal-" + PORTAL_B, "portal-" + PORTAL_A);
+        assertThat(sizes).containsExactly(3, 2, 1);
+    }
+
+    @Test
+    @DisplayName("Should produce one empty part for an empty export split by rows, none by portal")
+    void testEmptyExport() {
+        assertThat(drain(new ExportParts(Collections.emptyIterator(), ExportSplit.ROWS, 10)))
+                .containsExactly(List.of());
+        assertThat(drain(new ExportParts(Collections.emptyIterator(), ExportSplit.PORTAL, 0)))
+                .isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should refuse to move on before the current part has been read")
+    void testUnreadPart() {
+        ExportParts parts = new ExportParts(rows(PORTAL_A, 3).iterator(), ExportSplit.ROWS, 2);
+        parts.next();
+
+        assertThatThrownBy(parts::hasNext).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static List<List<SubmissionExportRow>> drain(ExportParts parts) {
+        List<List<SubmissionExportRow>> result = new ArrayList<>();
+        while (parts.hasNext()) {
+            result.add(parts.next().rows().toList());
+        }
+        return result;
+    }
+
+    private static List<SubmissionExportRow> rows(UUID portalId, int count) {
+        List<SubmissionExportRow> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            SubmissionExportRow row = new SubmissionExportRow();
+            row.setId(UUID.randomUUID());
+            row.setPortalId(portalId);
+            row.setPortalName("portal-" + portalId);
+            rows.add(row);
+        }
+        return rows;
+    }
+}
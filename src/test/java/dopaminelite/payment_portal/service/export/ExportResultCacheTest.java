@@ -0,0 +1,155 @@
+package dopaminelite.payment_portal.service.export;
+
+import dopaminelite.payment_portal.config.DataSheetExportProperties;
+import dopaminelite.payment_portal.entity.enums.DataSheetType;
+import dopaminelite.payment_portal.entity.enums.ExportCompression;
+import dopaminelite.payment_portal.entity.enums.ExportFormat;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Export Result Cache Tests")
+class ExportResultCacheTest {
+
+    private static final ExportCacheKey KEY = new ExportCacheKey(
+            DataSheetType.ALL, ExportFormat.CSV, 3, 2026, List.of("id"), ExportCompression.NONE);
+
+    private static final Instant RENDERED_AT = Instant.parse("2026-03-01T10:15:30Z");
+
+    @TempDir
+    Path spoolDirectory;
+
+    private ExportResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        DataSheetExportProperties properties = new DataSheetExportProperties();
+        properties.setSpoolDirectory(spoolDirectory);
+        // Keep entries on disk only, so reads go through the file channel
+        properties.getCache().setMaxEntryMemoryBytes(0);
+        ExportFileStore fileStore = new ExportFileStore(properties);
+        fileStore.init();
+        cache = new ExportResultCache(properties, fileStore, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Should record the content hash and render time of a cached export")
+    void testRender_RecordsValidators() throws Exception {
+        cache.render(KEY, RENDERED_AT, new ByteArrayOutputStream(), out -> out.write(bytes("id\n1\n2\n")));
+
+        CachedExport cached = cache.get(KEY).orElseThrow();
+        assertThat(cached.getContentHash()).isEqualTo(sha256("id\n1\n2\n"));
+        assertThat(cached.getRenderedAt()).isEqualTo(RENDERED_AT);
+        assertThat(cached.size()).isEqualTo(7);
+        cached.close();
+    }
+
+    @Test
+    @DisplayName("Should stop the render and cache nothing when the client disconnects part-way")
+    void testRender_StopsWhenClientDisconnects() throws Exception {
+        OutputStream client = new DisconnectingOutputStream(5);
+        List<String> written = new ArrayList<>();
+
+        assertThatThrownBy(() -> cache.render(KEY, RENDERED_AT, client, out -> {
+            for (String line : List.of("id\n", "1\n", "2\n", "3\n")) {
+                out.write(bytes(line));
+                written.add(line);
+            }
+        })).isInstanceOf(IOException.class).hasMessage("Broken pipe");
+
+        assertThat(written).containsExactly("id\n", "1\n");
+        assertThat(cache.get(KEY)).isEmpty();
+        try (Stream<Path> files = Files.list(spoolDirectory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("Should read byte ranges from the cached file")
+    void testAsResource_ReadsRanges() throws Exception {
+        cache.render(KEY, RENDERED_AT, new ByteArrayOutputStream(), out -> out.write(bytes("0123456789")));
+
+        assertThat(read(3, 6)).isEqualTo("3456");
+        assertThat(read(0, 9)).isEqualTo("0123456789");
+        try (CachedExport cached = cache.get(KEY).orElseThrow()) {
+            Resource resource = cached.asResource();
+            assertThat(resource.contentLength()).isEqualTo(10);
+            assertThat(resource.lastModified()).isEqualTo(RENDERED_AT.toEpochMilli());
+            assertThat(resource.getContentAsString(StandardCharsets.UTF_8)).isEqualTo("0123456789");
+        }
+    }
+
+    @Test
+    @DisplayName("Should remove cached files left over from a previous run on startup")
+    void testRemoveLeftoverFiles() throws Exception {
+        Path leftover = Files.writeString(spoolDirectory.resolve("cache-" + UUID.randomUUID()), "old");
+        Path partial = Files.writeString(spoolDirectory.resolve("cache-" + UUID.randomUUID() + ".part"), "old");
+        Path other = Files.writeString(spoolDirectory.resolve(UUID.randomUUID() + ".csv"), "kept");
+
+        cache.removeLeftoverFiles();
+
+        assertThat(leftover).doesNotExist();
+        assertThat(partial).doesNotExist();
+        assertThat(other).exists();
+    }
+
+    // Reads an inclusive byte range the way ResourceRegionHttpMessageConverter does
+    private String read(long start, long end) throws IOException {
+        try (CachedExport cached = cache.get(KEY).orElseThrow()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            StreamUtils.copyRange(cached.asResource().getInputStream(), out, start, end);
+            return out.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String sha256(String text) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes(text)));
+    }
+
+    // Accepts a fixed number of bytes, then fails like a closed connection
+    private static final class DisconnectingOutputStream extends OutputStream {
+        private int remaining;
+
+        private DisconnectingOutputStream(int remaining) {
+            this.remaining = remaining;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > remaining) {
+                throw new IOException("Broken pipe");
+            }
+            remaining -= len;
+        }
+    }
+}
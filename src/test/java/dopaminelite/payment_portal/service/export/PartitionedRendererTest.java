@@ -0,0 +1,113 @@
+package dopaminelite.payment_portal.service.export;
+
+import dopaminelite.payment_portal.config.DataSheetExportProperties;
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
+import dopaminelite.payment_portal.entity.enums.SubmissionStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Partitioned Renderer Tests")
+class PartitionedRendererTest {
+
+    private static final ColumnPlan COLUMNS = ColumnPlan.compile(List.of(
+            "id", "studentId", "portalName", "status", "submittedAt", "fileCount", "files", "rejectionReason"
+    ));
+
+    private final List<PartitionedRenderer> renderers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        renderers.forEach(PartitionedRenderer::shutdown);
+    }
+
+    @Test
+    @DisplayName("Parallel CSV output should be byte-identical to sequential output")
+    void testParallelCsv_MatchesSequential() throws IOException {
+        List<SubmissionExportRow> rows = rows(10_007);
+
+        byte[] sequential = renderCsv(rows, renderer(false, 0, 1_000));
+        byte[] parallel = renderCsv(rows, renderer(true, 2_500, 333));
+
+        assertThat(parallel).isEqualTo(sequential);
+        assertThat(new String(sequential).lines()).hasSize(10_008);
+    }
+
+    @Test
+    @DisplayName("Parallel NDJSON output should be byte-identical to sequential output")
+    void testParallelNdjson_MatchesSequential() throws IOException {
+        List<SubmissionExportRow> rows = rows(5_003);
+
+        byte[] sequential = renderNdjson(rows, renderer(false, 0, 1_000));
+        byte[] parallel = renderNdjson(rows, renderer(true, 1_000, 250));
+
+        assertThat(parallel).isEqualTo(sequential);
+        assertThat(new String(sequential).lines()).hasSize(5_003);
+    }
+
+    @Test
+    @DisplayName("Should propagate encoder failures from pool threads")
+    void testParallel_PropagatesFailure() {
+        PartitionedRenderer renderer = renderer(true, 0, 10);
+
+        assertThatThrownBy(() -> renderer.render(rows(100).iterator(), (partition, out) -> {
+            throw new IOException("disk full");
+        }, new ByteArrayOutputStream()))
+                .isInstanceOf(IOException.class)
+                .hasMessage("disk full");
+    }
+
+    private byte[] renderCsv(List<SubmissionExportRow> rows, PartitionedRenderer renderer) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new CsvDataSheetWriter(renderer).write(rows.stream(), COLUMNS, out);
+        return out.toByteArray();
+    }
+
+    private byte[] renderNdjson(List<SubmissionExportRow> rows, PartitionedRenderer renderer) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new NdjsonDataSheetWriter(renderer).write(rows.stream(), COLUMNS, out);
+        return out.toByteArray();
+    }
+
+    private PartitionedRenderer renderer(boolean enabled, long rowThreshold, int partitionSize) {
+        DataSheetExportProperties properties = new DataSheetExportProperties();
+        properties.getParallel().setEnabled(enabled);
+        properties.getParallel().setRowThreshold(rowThreshold);
+        properties.getParallel().setPartitionSize(partitionSize);
+        properties.getParallel().setParallelism(4);
+        PartitionedRenderer renderer = new PartitionedRenderer(properties);
+        renderers.add(renderer);
+        return renderer;
+    }
+
+    private List<SubmissionExportRow> rows(int count) {
+        LocalDateTime base = LocalDateTime.of(2025, 11, 1, 0, 0);
+        UUID portalId = UUID.randomUUID();
+        List<SubmissionExportRow> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SubmissionExportRow row = new SubmissionExportRow();
+            row.setId(UUID.randomUUID());
+            row.setStudentId(UUID.randomUUID());
+            row.setPortalId(portalId);
+            row.setPortalName("portal-nov-2025");
+            row.setStatus(SubmissionStatus.values()[i % 3]);
+            row.setRejectionReason(i % 3 == 2 ? "Row " + i + ", \"amount\" wrong – überprüfen" : null);
+            row.setSubmittedAt(base.plusSeconds(i * 37L));
+            row.setFileCount((long) (i % 4));
+            row.setFileNames(i % 4 == 0 ? null : "receipt-" + i + ".pdf");
+            rows.add(row);
+        }
+        return rows;
+    }
+
+}
@@ -0,0 +1,100 @@
+package dopaminelite.payment_portal.service.export;
+
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
+import dopaminelite.payment_portal.entity.enums.SubmissionStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("PDF Data Sheet Writer Tests")
+class PdfDataSheetWriterTest {
+
+    private static final ColumnPlan COLUMNS = ColumnPlan.compile(List.of("id", "status"));
+
+    private final PdfDataSheetWriter writer = new PdfDataSheetWriter();
+
+    @Test
+    @DisplayName("Should repeat the header on every page and write each row exactly once")
+    void testWrite_SpansPagesAcrossFlushes() throws IOException {
+        int rowCount = PdfDataSheetWriter.FLUSH_INTERVAL * 2 + 137;
+        List<SubmissionExportRow> rows = rows(rowCount);
+
+        List<String> pages = pageTexts(render(rows));
+
+        assertThat(pages).hasSizeGreaterThan(1);
+        // The footer may land alone on the last page; every page carrying rows repeats the header
+        assertThat(pages).filteredOn(page -> page.contains(" PENDING") || page.contains(" APPROVED"))
+                .hasSizeGreaterThan(1)
+                .allSatisfy(page -> assertThat(page).contains("ID Status"));
+
+        String text = String.join("\n", pages);
+        for (SubmissionExportRow row : rows) {
+            assertThat(occurrences(text, row.getId().toString()))
+                    .as("occurrences of row %s", row.getId())
+                    .isEqualTo(1);
+        }
+        assertThat(pages.get(0)).contains("Payment Submissions Report")
+                .contains("Generated: " + LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+        assertThat(pages.get(pages.size() - 1)).contains("Total Records: " + rowCount);
+    }
+
+    @Test
+    @DisplayName("Should write a header-only table when there are no rows")
+    void testWrite_NoRows() throws IOException {
+        List<String> pages = pageTexts(render(List.of()));
+
+        assertThat(pages).hasSize(1);
+        assertThat(pages.get(0)).contains("ID Status").contains("Total Records: 0");
+    }
+
+    private byte[] render(List<SubmissionExportRow> rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(rows.stream(), COLUMNS, out);
+        return out.toByteArray();
+    }
+
+    private List<String> pageTexts(byte[] pdf) throws IOException {
+        PdfReader reader = new PdfReader(pdf);
+        try {
+            PdfTextExtractor extractor = new PdfTextExtractor(reader);
+            List<String> pages = new ArrayList<>();
+            for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+                pages.add(extractor.getTextFromPage(page));
+            }
+            return pages;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private int occurrences(String text, String value) {
+        int count = 0;
+        for (int index = text.indexOf(value); index >= 0; index = text.indexOf(value, index + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    private List<SubmissionExportRow> rows(int count) {
+        List<SubmissionExportRow> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SubmissionExportRow row = new SubmissionExportRow();
+            row.setId(UUID.randomUUID());
+            row.setStatus(SubmissionStatus.values()[i % 3]);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+}
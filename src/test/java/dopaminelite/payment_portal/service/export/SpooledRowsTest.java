@@ -0,0 +1,79 @@
+package dopaminelite.payment_portal.service.export;
+
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
+import dopaminelite.payment_portal.entity.enums.SubmissionStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Spooled Rows Tests")
+class SpooledRowsTest {
+
+    @TempDir
+    Path spoolDirectory;
+
+    @Test
+    @DisplayName("Should keep small exports in memory without creating a spill file")
+    void testDrain_InMemory() throws Exception {
+        List<SubmissionExportRow> rows = rows(3);
+        Path spillFile = spoolDirectory.resolve("rows-small");
+
+        try (SpooledRows spooled = SpooledRows.drain(rows.iterator(), 3, spillFile, ExportProgress.NONE)) {
+            assertThat(spooled.isSpilled()).isFalse();
+            assertThat(spooled.stream().toList()).isEqualTo(rows);
+        }
+        assertThat(spillFile).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Should spill rows beyond the memory limit and read every field back in order")
+    void testDrain_SpillsToDisk() throws Exception {
+        List<SubmissionExportRow> rows = rows(10);
+        // Past writeUTF's 64 KB limit
+        rows.get(7).setFileNames("x".repeat(70_000) + " é");
+        Path spillFile = spoolDirectory.resolve("rows-large");
+        AtomicLong progress = new AtomicLong();
+
+        try (SpooledRows spooled = SpooledRows.drain(rows.iterator(), 4, spillFile, progress::set)) {
+            assertThat(spooled.isSpilled()).isTrue();
+            assertThat(spooled.size()).isEqualTo(10);
+            assertThat(progress).hasValue(10);
+            assertThat(spillFile).exists();
+            try (Stream<SubmissionExportRow> stream = spooled.stream()) {
+                assertThat(stream.toList()).isEqualTo(rows);
+            }
+        }
+        assertThat(Files.exists(spillFile)).isFalse();
+    }
+
+    private static List<SubmissionExportRow> rows(int count) {
+        List<SubmissionExportRow> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            SubmissionExportRow row = new SubmissionExportRow();
+            row.setId(UUID.randomUUID());
+            row.setStudentId(UUID.randomUUID());
+            row.setPortalId(UUID.randomUUID());
+            row.setPortalName("portal-" + i);
+            row.setStatus(SubmissionStatus.values()[i % SubmissionStatus.values().length]);
+            // Sparse fields stay null on some rows
+            row.setRejectionReason(i % 2 == 0 ? null : "Reason, with \"quotes\" " + i);
+            row.setSubmittedAt(LocalDateTime.of(2026, 1, 1, 12, 0).plusSeconds(i).plusNanos(123_456_789));
+            row.setLastUpdatedAt(i % 3 == 0 ? null : LocalDateTime.of(2026, 2, 1, 0, 0));
+            row.setFileCount((long) i);
+            row.setFileNames(i == 0 ? null : "receipt-" + i + ".pdf");
+            rows.add(row);
+        }
+        return rows;
+    }
+}
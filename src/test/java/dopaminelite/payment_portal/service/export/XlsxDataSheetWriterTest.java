@@ -0,0 +1,97 @@
+package dopaminelite.payment_portal.service.export;
+
+import dopaminelite.payment_portal.dto.export.SubmissionExportRow;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("XLSX Data Sheet Writer Tests")
+class XlsxDataSheetWriterTest {
+
+    private static final ColumnPlan COLUMNS = ColumnPlan.compile(List.of("id"));
+
+    // Header plus three data rows per sheet
+    private final XlsxDataSheetWriter writer = new XlsxDataSheetWriter(4);
+
+    @Test
+    @DisplayName("Should cap a worksheet at Excel's row limit including the header")
+    void testMaxSheetRows_MatchesExcelLimit() {
+        assertThat(XlsxDataSheetWriter.MAX_SHEET_ROWS).isEqualTo(1_048_576);
+    }
+
+    @Test
+    @DisplayName("Should keep rows that exactly fill the limit on a single sheet")
+    void testWrite_FillsSingleSheet() throws IOException {
+        List<SubmissionExportRow> rows = rows(3);
+
+        Map<String, String> entries = render(rows);
+
+        assertThat(entries).containsKey("xl/worksheets/sheet1.xml").doesNotContainKey("xl/worksheets/sheet2.xml");
+        String sheet = entries.get("xl/worksheets/sheet1.xml");
+        assertThat(sheet).contains("<row r=\"4\">" + cell(rows.get(2)) + "</row>").doesNotContain("<row r=\"5\">");
+        assertThat(entries.get("xl/workbook.xml")).contains("<sheet name=\"Submissions\" sheetId=\"1\" r:id=\"rId1\"/></sheets>");
+    }
+
+    @Test
+    @DisplayName("Should continue on a new sheet with its own header once the limit is reached")
+    void testWrite_RollsOverToNextSheet() throws IOException {
+        List<SubmissionExportRow> rows = rows(4);
+
+        Map<String, String> entries = render(rows);
+
+        String second = entries.get("xl/worksheets/sheet2.xml");
+        assertThat(second).contains("<row r=\"1\"><c t=\"inlineStr\" s=\"2\"><is><t>ID</t></is></c></row>"
+                + "<row r=\"2\">" + cell(rows.get(3)) + "</row></sheetData>");
+        assertThat(entries.get("xl/worksheets/sheet1.xml")).doesNotContain(rows.get(3).getId().toString());
+
+        assertThat(entries.get("xl/workbook.xml"))
+                .contains("<sheet name=\"Submissions\" sheetId=\"1\" r:id=\"rId1\"/>")
+                .contains("<sheet name=\"Submissions (2)\" sheetId=\"2\" r:id=\"rId2\"/>");
+        assertThat(entries.get("xl/_rels/workbook.xml.rels"))
+                .contains("Id=\"rId2\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet2.xml\"")
+                .contains("Id=\"rId3\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\"");
+        assertThat(entries.get("[Content_Types].xml")).contains("PartName=\"/xl/worksheets/sheet2.xml\"");
+    }
+
+    private String cell(SubmissionExportRow row) {
+        return "<c t=\"inlineStr\"><is><t>" + row.getId() + "</t></is></c>";
+    }
+
+    private Map<String, String> render(List<SubmissionExportRow> rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(rows.stream(), COLUMNS, out);
+
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    private List<SubmissionExportRow> rows(int count) {
+        List<SubmissionExportRow> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SubmissionExportRow row = new SubmissionExportRow();
+            row.setId(UUID.randomUUID());
+            rows.add(row);
+        }
+        return rows;
+    }
+
+}